@@ -1,6 +1,7 @@
 plugins {
     java
     id("com.gradleup.shadow") version "8.3.0"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.github.lukesky19"
@@ -30,6 +31,72 @@ java {
     toolchain.languageVersion.set(JavaLanguageVersion.of(21))
 }
 
+// The offline rule replay, which runs the engine against a command log without a server.
+val replay: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[replay.compileOnlyConfigurationName].extendsFrom(configurations.compileOnly.get())
+
+dependencies {
+    // SkyLib bundles the relocated Configurate used to load the settings.
+    "replayRuntimeOnly"("com.github.lukesky19:SkyLib:1.3.0.0")
+}
+
+tasks.register<JavaExec>("replay") {
+    group = "verification"
+    description = "Replays a command log against a rule set. Pass the options with --args."
+    classpath = replay.runtimeClasspath
+    mainClass.set("com.github.lukesky19.commandRestrictions.replay.RuleReplay")
+    workingDir = projectDir
+}
+
+// The end-to-end load test, which fires millions of generated commands at a large generated rule set without a server.
+val loadtest: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[loadtest.compileOnlyConfigurationName].extendsFrom(configurations.compileOnly.get())
+
+dependencies {
+    // SkyLib bundles the relocated Configurate used to load the settings.
+    "loadtestRuntimeOnly"("com.github.lukesky19:SkyLib:1.3.0.0")
+    // The player command listener runs against stand-ins for the server, but still needs the Paper API classes.
+    "loadtestRuntimeOnly"("io.papermc.paper:paper-api:1.21.8-R0.1-SNAPSHOT")
+}
+
+val loadTest = tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Runs the load test and writes build/reports/loadtest/report.json. Fails if a verdict is wrong or a budget is exceeded."
+    classpath = loadtest.runtimeClasspath
+    mainClass.set("com.github.lukesky19.commandRestrictions.loadtest.LoadTest")
+    workingDir = projectDir
+}
+
+// Fails the build if checking a command starts allocating, with and without the verdict cache.
+val allocationCheck = tasks.register<JavaExec>("allocationCheck") {
+    group = "verification"
+    description = "Checks that the engine doesn't allocate per command, except for the verdict cache entry of a cache miss."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("com.github.lukesky19.commandRestrictions.benchmark.AllocationCheck")
+}
+
+tasks.check {
+    dependsOn(allocationCheck)
+}
+
+jmh {
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+    // Throughput plus sampled latency percentiles, with the allocation rate from the gc profiler.
+    benchmarkMode.addAll("thrpt", "sample")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
+
 tasks.processResources {
     val props = mapOf("version" to version)
     inputs.properties(props)
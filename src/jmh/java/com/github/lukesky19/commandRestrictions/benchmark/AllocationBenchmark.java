@@ -0,0 +1,86 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.benchmark;
+
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import com.github.lukesky19.commandRestrictions.engine.CommandNormalizer;
+import com.github.lukesky19.commandRestrictions.engine.CompiledRules;
+import com.github.lukesky19.commandRestrictions.engine.RestrictionEngine;
+import com.github.lukesky19.commandRestrictions.engine.RuleCompiler;
+import com.github.lukesky19.commandRestrictions.engine.RuleMetrics;
+import com.github.lukesky19.commandRestrictions.engine.RuleSnapshot;
+import com.github.lukesky19.commandRestrictions.engine.Verdict;
+import com.github.lukesky19.commandRestrictions.engine.VerdictCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks checking commands that match no entry through the {@link RestrictionEngine}, with and without the verdict cache.
+ * The corpus is small enough for the cache to hold, so with the cache every measured check is a hit.
+ * The gc profiler's gc.alloc.rate.norm should stay at 0 bytes per operation. {@link AllocationCheck} enforces this as part of the build.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AllocationBenchmark {
+    private static final int CORPUS_SIZE = 4096;
+
+    @Param({"100", "10000"})
+    private int ruleCount;
+
+    @Param({"0", "1024"})
+    private int verdictCacheSize;
+
+    private RestrictionEngine engine;
+    private RuleSnapshot snapshot;
+    private String[] commands;
+    private int next;
+
+    /**
+     * Compiles the rule set and generates the non-matching corpus.
+     */
+    @Setup
+    public void setup() {
+        Settings settings = RuleSets.settings(ruleCount);
+        CompiledRules compiledRules = RuleCompiler.compile(settings);
+        VerdictCache verdictCache = verdictCacheSize > 0 ? new VerdictCache(verdictCacheSize) : null;
+        snapshot = new RuleSnapshot(settings, compiledRules, verdictCache, new RuleMetrics(compiledRules.entries().size()), 0);
+        engine = new RestrictionEngine(() -> snapshot, () -> CommandNormalizer.EMPTY);
+
+        List<String> corpusCommands = RuleSets.commands("non-matching", ruleCount, CORPUS_SIZE);
+        commands = corpusCommands.toArray(new String[0]);
+    }
+
+    /**
+     * Checks the next command of the corpus.
+     * @return The {@link Verdict}, returned so the check isn't optimized away.
+     */
+    @Benchmark
+    public Verdict check() {
+        String command = commands[next];
+        next = (next + 1) & (CORPUS_SIZE - 1);
+
+        return engine.check(snapshot, command, 0L, true, null);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.benchmark;
+
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import com.github.lukesky19.commandRestrictions.engine.CommandNormalizer;
+import com.github.lukesky19.commandRestrictions.engine.CompiledRules;
+import com.github.lukesky19.commandRestrictions.engine.RestrictionEngine;
+import com.github.lukesky19.commandRestrictions.engine.RuleCompiler;
+import com.github.lukesky19.commandRestrictions.engine.RuleMetrics;
+import com.github.lukesky19.commandRestrictions.engine.RuleSnapshot;
+import com.github.lukesky19.commandRestrictions.engine.VerdictCache;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Checks how much the {@link RestrictionEngine} allocates per command, with and without the verdict cache.
+ * Checks that don't reach a new cache entry must not allocate at all. A cache miss may only allocate the cache entry it stores.
+ * Normalizing commands that are already canonical must not allocate either. Commands that normalization changes allocate the normalized command.
+ * Runs as the allocationCheck task, which check depends on, and exits with status 1 if a limit is exceeded.
+ */
+public final class AllocationCheck {
+    private static final int[] RULE_COUNTS = {100, 10_000};
+    private static final int VERDICT_CACHE_SIZE = 1024;
+    private static final int WARMUP_CHECKS = 200_000;
+    private static final int MEASURED_CHECKS = 200_000;
+    private static final int DISTINCT_COMMANDS = 65_536;
+    // A cache entry and the entry it evicts, with room for the JVM's object layout.
+    private static final int MAX_MISS_BYTES = 128;
+
+    private AllocationCheck() {}
+
+    /**
+     * Runs every allocation check.
+     * @param args Unused.
+     */
+    public static void main(String[] args) {
+        boolean passed = true;
+
+        for(int ruleCount : RULE_COUNTS) {
+            String[] nonMatching = RuleSets.commands("non-matching", ruleCount, 4096).toArray(new String[0]);
+
+            // The same few commands over and over, blocked and allowed, so every check after the warmup is a cache hit.
+            List<String> repeated = new ArrayList<>(RuleSets.commands("non-matching", ruleCount, 64));
+            repeated.addAll(RuleSets.commands("alias-heavy", ruleCount, 64));
+
+            // More distinct commands than the cache holds, so every check is a cache miss.
+            String[] distinct = new String[DISTINCT_COMMANDS];
+            for(int i = 0; i < distinct.length; i++) {
+                distinct[i] = "/msg Steve hello " + i;
+            }
+
+            passed &= check(ruleCount + " entries, no verdict cache", ruleCount, 0, false, nonMatching, 0);
+            passed &= check(ruleCount + " entries, normalized commands", ruleCount, 0, true, nonMatching, 0);
+            passed &= check(ruleCount + " entries, verdict cache hits", ruleCount, VERDICT_CACHE_SIZE, false, repeated.toArray(new String[0]), 0);
+            passed &= check(ruleCount + " entries, verdict cache misses", ruleCount, VERDICT_CACHE_SIZE, false, distinct, MAX_MISS_BYTES);
+        }
+
+        if(!passed) {
+            System.err.println("The engine allocates more per check than allowed.");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Measures what the current thread allocates while checking a corpus, after letting the JIT compile the path.
+     * @param name The name of the check shown in the output.
+     * @param ruleCount The number of entries in the rule set.
+     * @param verdictCacheSize The capacity of the verdict cache, or 0 to check without it.
+     * @param normalizeCommands Whether commands are normalized before they are checked.
+     * @param commands The commands to check in a loop.
+     * @param maxBytesPerCheck The most bytes a check may allocate on average.
+     * @return true if the check stayed within the limit, false if not.
+     */
+    private static boolean check(String name, int ruleCount, int verdictCacheSize, boolean normalizeCommands, String[] commands, int maxBytesPerCheck) {
+        Settings generated = RuleSets.settings(ruleCount);
+        Settings settings = new Settings(generated.configVersion(), 0, generated.locale(), 0, null, 0, null, null, null, normalizeCommands, false, null, null, generated.entries());
+        CompiledRules compiledRules = RuleCompiler.compile(settings);
+        VerdictCache verdictCache = verdictCacheSize > 0 ? new VerdictCache(verdictCacheSize) : null;
+        RuleSnapshot snapshot = new RuleSnapshot(settings, compiledRules, verdictCache, new RuleMetrics(compiledRules.entries().size()), 0);
+        RestrictionEngine engine = new RestrictionEngine(() -> snapshot, () -> CommandNormalizer.EMPTY);
+
+        for(int i = 0; i < WARMUP_CHECKS; i++) {
+            engine.check(snapshot, commands[i % commands.length], 0L, true, null);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for(int i = 0; i < MEASURED_CHECKS; i++) {
+            engine.check(snapshot, commands[i % commands.length], 0L, true, null);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // A single allocation is at least 16 bytes, so less than a byte per check on top of the limit is measurement noise.
+        boolean passed = allocated < (maxBytesPerCheck + 1L) * MEASURED_CHECKS;
+        System.out.printf(Locale.ROOT, "%-40s %8.2f bytes per check (limit %d) %s%n",
+                name, (double) allocated / MEASURED_CHECKS, maxBytesPerCheck, passed ? "OK" : "FAILED");
+
+        return passed;
+    }
+}
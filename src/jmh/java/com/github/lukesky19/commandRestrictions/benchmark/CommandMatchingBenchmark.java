@@ -0,0 +1,76 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.benchmark;
+
+import com.github.lukesky19.commandRestrictions.engine.CompiledRules;
+import com.github.lukesky19.commandRestrictions.engine.RuleCompiler;
+import com.github.lukesky19.commandRestrictions.engine.Verdict;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks checking commands against compiled rules, the work done by the listener for every command.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CommandMatchingBenchmark {
+    private static final int CORPUS_SIZE = 4096;
+
+    @Param({"10", "100", "1000", "10000"})
+    private int ruleCount;
+
+    @Param({"mixed", "non-matching", "alias-heavy", "pathological"})
+    private String corpus;
+
+    @Param({"regex", "tokens"})
+    private String ruleType;
+
+    private CompiledRules compiledRules;
+    private String[] commands;
+    private int next;
+
+    /**
+     * Compiles the rule set and generates the command corpus.
+     */
+    @Setup
+    public void setup() {
+        compiledRules = RuleCompiler.compile(ruleType.equals("tokens") ? RuleSets.tokenSettings(ruleCount) : RuleSets.settings(ruleCount));
+
+        List<String> corpusCommands = RuleSets.commands(corpus, ruleCount, CORPUS_SIZE);
+        commands = corpusCommands.toArray(new String[0]);
+    }
+
+    /**
+     * Checks the next command of the corpus.
+     * @return The {@link Verdict}, returned so the check isn't optimized away.
+     */
+    @Benchmark
+    public Verdict evaluate() {
+        String command = commands[next];
+        next = (next + 1) & (CORPUS_SIZE - 1);
+
+        return compiledRules.evaluate(command, null, null);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.benchmark;
+
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Generates synthetic rule sets and command corpora for the benchmarks.
+ * The rules are shaped like the entries in the bundled settings.yml.
+ */
+public final class RuleSets {
+    private static final List<String> COMMON_COMMANDS = List.of(
+            "/home", "/home base", "/spawn", "/bal", "/msg Steve hello there", "/tpa Alex", "/warp shop",
+            "/pay Steve 100", "/sethome farm", "/r thanks!", "/ah sell 64", "/kit daily");
+
+    private RuleSets() {}
+
+    /**
+     * Creates settings with the given number of entries.
+     * Half of the entries block permission nodes for a plugin's aliases, a quarter block a command and its namespaced alias,
+     * and a quarter can't be indexed by command label.
+     * @param size The number of entries.
+     * @return The generated {@link Settings}.
+     */
+    public static Settings settings(int size) {
+        List<Settings.Entry> entries = new ArrayList<>(size);
+
+        for(int i = 0; i < size; i++) {
+            switch(i % 4) {
+                case 0, 1 -> entries.add(new Settings.Entry(
+                        Pattern.compile("(?:/plugin" + i + "|/p" + i + "|/plugin" + i + ":plugin" + i + "|/plugin" + i + ":p" + i + ") (?:user|group) [^ ]+ permission (?:set|settemp) ([^ ]+)"),
+                        false,
+                        List.of("*", "plugin" + i + ".admin"),
+                        null,
+                        null,
+                        null,
+                        0));
+                case 2 -> entries.add(new Settings.Entry(
+                        Pattern.compile("/cmd" + i + "|/minecraft:cmd" + i),
+                        true,
+                        List.of(),
+                        null,
+                        null,
+                        null,
+                        0));
+                default -> entries.add(new Settings.Entry(
+                        Pattern.compile("[/]give [^ ]+ item" + i + "\\b"),
+                        true,
+                        List.of(),
+                        null,
+                        null,
+                        null,
+                        0));
+            }
+        }
+
+        return new Settings("1.0.0.0", 0, "en_US", 0, null, 0, null, null, null, false, false, null, null, entries);
+    }
+
+    /**
+     * Creates the same rule set as {@link #settings(int)} with token entries instead of regex.
+     * @param size The number of entries.
+     * @return The generated {@link Settings}.
+     */
+    public static Settings tokenSettings(int size) {
+        List<Settings.Entry> entries = new ArrayList<>(size);
+
+        for(int i = 0; i < size; i++) {
+            switch(i % 4) {
+                case 0, 1 -> entries.add(new Settings.Entry(
+                        null,
+                        false,
+                        List.of("*", "plugin" + i + ".admin"),
+                        null,
+                        null,
+                        List.of("/plugin" + i + "|/p" + i + "|/plugin" + i + ":plugin" + i + "|/plugin" + i + ":p" + i, "user|group", "*", "permission", "set|settemp"),
+                        5));
+                case 2 -> entries.add(new Settings.Entry(
+                        null,
+                        true,
+                        List.of(),
+                        null,
+                        null,
+                        List.of("/cmd" + i + "|/minecraft:cmd" + i),
+                        0));
+                default -> entries.add(new Settings.Entry(
+                        null,
+                        true,
+                        List.of(),
+                        null,
+                        null,
+                        List.of("/give", "*", "item" + i),
+                        0));
+            }
+        }
+
+        return new Settings("1.0.0.0", 0, "en_US", 0, null, 0, null, null, null, false, false, null, null, entries);
+    }
+
+    /**
+     * Creates a corpus of commands for a rule set.
+     * @param corpus The name of the corpus: mixed, non-matching, alias-heavy or pathological.
+     * @param ruleCount The number of entries in the rule set, used to pick commands that target existing rules.
+     * @param size The number of commands.
+     * @return A {@link List} of commands.
+     */
+    public static List<String> commands(String corpus, int ruleCount, int size) {
+        Random random = new Random(19);
+        List<String> commands = new ArrayList<>(size);
+
+        for(int i = 0; i < size; i++) {
+            commands.add(switch(corpus) {
+                case "non-matching" -> COMMON_COMMANDS.get(random.nextInt(COMMON_COMMANDS.size()));
+                case "alias-heavy" -> aliasCommand(random, ruleCount);
+                case "pathological" -> pathologicalCommand(random, ruleCount);
+                // Mostly non-matching commands with some rule hits, like a live server.
+                default -> random.nextInt(10) < 8
+                        ? COMMON_COMMANDS.get(random.nextInt(COMMON_COMMANDS.size()))
+                        : aliasCommand(random, ruleCount);
+            });
+        }
+
+        return commands;
+    }
+
+    private static String aliasCommand(Random random, int ruleCount) {
+        int rule = (random.nextInt(Math.max(ruleCount / 4, 1)) * 4) % ruleCount;
+        String[] aliases = {"/plugin" + rule, "/p" + rule, "/plugin" + rule + ":plugin" + rule, "/plugin" + rule + ":p" + rule};
+        String node = random.nextBoolean() ? "*" : "essentials.fly";
+
+        return aliases[random.nextInt(aliases.length)] + " user Steve permission set " + node;
+    }
+
+    private static String pathologicalCommand(Random random, int ruleCount) {
+        int rule = (random.nextInt(Math.max(ruleCount / 4, 1)) * 4) % ruleCount;
+
+        return switch(random.nextInt(3)) {
+            // Long argument that the captured group has to scan to the end.
+            case 0 -> "/p" + rule + " user Steve permission set " + "a".repeat(2000);
+            // Many spaces and labels that almost match.
+            case 1 -> "/p" + rule + " user" + " ".repeat(500) + "/p" + rule + " group";
+            // Many slashes, so every position starts a label lookup.
+            default -> "/" + "/p".repeat(500);
+        };
+    }
+}
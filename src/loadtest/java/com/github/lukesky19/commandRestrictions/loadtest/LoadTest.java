@@ -0,0 +1,569 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.loadtest;
+
+import com.github.lukesky19.commandRestrictions.audit.AuditLog;
+import com.github.lukesky19.commandRestrictions.audit.BlockedCommandReporter;
+import com.github.lukesky19.commandRestrictions.audit.ConsoleWarningLimiter;
+import com.github.lukesky19.commandRestrictions.bypass.BypassManager;
+import com.github.lukesky19.commandRestrictions.config.locale.LocaleManager;
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import com.github.lukesky19.commandRestrictions.engine.CommandNormalizer;
+import com.github.lukesky19.commandRestrictions.engine.CompiledRules;
+import com.github.lukesky19.commandRestrictions.engine.LatencyHistogram;
+import com.github.lukesky19.commandRestrictions.engine.RestrictionEngine;
+import com.github.lukesky19.commandRestrictions.engine.RuleCache;
+import com.github.lukesky19.commandRestrictions.engine.RuleCompiler;
+import com.github.lukesky19.commandRestrictions.engine.RuleMetrics;
+import com.github.lukesky19.commandRestrictions.engine.RuleSnapshot;
+import com.github.lukesky19.commandRestrictions.engine.Verdict;
+import com.github.lukesky19.commandRestrictions.engine.VerdictCache;
+import com.github.lukesky19.commandRestrictions.listener.PlayerCommandPreProcessListener;
+import com.github.lukesky19.commandRestrictions.throttle.ThrottleManager;
+import com.github.lukesky19.commandRestrictions.trace.TraceManager;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An end-to-end load test of the command checks, run without a server.
+ * It writes a large generated settings.yml, loads and compiles it the way a reload does, and then fires millions of commands
+ * from simulated players on every core, each through the plugin's player command listener, while the rules are reloaded in the background.
+ * The listener runs with its real managers, so blocked commands are throttled, audited and messaged as on a server. Only the server, the plugin and the players are stand-ins.
+ * Every verdict is compared with the one its command was written to get, and the latency of each command and the reload time are checked against budgets.
+ * The results are written as JSON and the process exits with 1 if any check failed, so CI fails on a regression.
+ * Run it with {@code ./gradlew loadTest --args="[--rules <n>] [--events <n>] [--players <n>] [--threads <n>] [--seed <n>] [--reload-interval-ms <n>]
+ * [--max-p99-micros <n>] [--max-reload-millis <n>] [--max-quarantines <n>] [--work-dir <dir>] [--report <file>]"}.
+ */
+public final class LoadTest {
+    private static final int CORPUS_SIZE = 100_000;
+    private static final int VERDICT_CACHE_SIZE = 1024;
+    private static final int MAX_MISMATCH_EXAMPLES = 20;
+    // Players without exemptions are the common case, so only one in four is exempt from any group.
+    private static final int EXEMPT_PLAYER_RATIO = 4;
+
+    private final LoadTestCorpus corpus;
+    private final SimulatedPlayer[] players;
+    private final AtomicReference<RuleSnapshot> snapshot;
+    private final Plugin plugin;
+    private final RestrictionEngine engine;
+    private final LocaleManager localeManager;
+    private final AuditLog auditLog;
+    private final ConsoleWarningLimiter consoleWarningLimiter = new ConsoleWarningLimiter();
+    private final RecordingReporter reporter;
+    private final BypassManager bypassManager;
+    private final TraceManager traceManager;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder[] categoryCounts = new LongAdder[LoadTestCorpus.CATEGORIES];
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder quarantineSkips = new LongAdder();
+    private final List<String> mismatchExamples = new ArrayList<>();
+
+    private LoadTest(@NotNull LoadTestCorpus corpus, int playerCount, long seed, @NotNull RuleSnapshot snapshot, @NotNull Path workDirectory) {
+        this.corpus = corpus;
+        this.players = SimulatedPlayer.generate(playerCount, seed, messages);
+        this.snapshot = new AtomicReference<>(snapshot);
+        this.plugin = LoadTestServer.plugin(workDirectory);
+        this.engine = new RestrictionEngine(this.snapshot::get, () -> CommandNormalizer.EMPTY);
+        // The locale is never reloaded, so the default messages are used.
+        this.localeManager = new LocaleManager(plugin, () -> this.snapshot.get().settings());
+        this.auditLog = new AuditLog(plugin);
+        this.reporter = new RecordingReporter(plugin, localeManager, auditLog, consoleWarningLimiter);
+        this.bypassManager = new BypassManager(this.snapshot::get);
+        this.traceManager = new TraceManager(plugin);
+        for(int i = 0; i < categoryCounts.length; i++) {
+            categoryCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * The entry point of the load test.
+     * @param args The command line arguments.
+     */
+    public static void main(String[] args) {
+        int ruleCount = 10_000;
+        long events = 2_000_000;
+        int playerCount = 500;
+        // Leave a core for the background reloads, since a check times out if it is descheduled for longer than the budget.
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        long seed = 1;
+        long reloadIntervalMillis = 1000;
+        double maxP99Micros = 100;
+        double maxReloadMillis = 5000;
+        int maxQuarantines = 0;
+        Path workDirectory = Path.of("build", "loadtest");
+        Path reportFile = Path.of("build", "reports", "loadtest", "report.json");
+
+        try {
+            for(int i = 0; i < args.length; i++) {
+                switch(args[i]) {
+                    case "--rules" -> ruleCount = Integer.parseInt(args[++i]);
+                    case "--events" -> events = Long.parseLong(args[++i]);
+                    case "--players" -> playerCount = Math.max(1, Integer.parseInt(args[++i]));
+                    case "--threads" -> threads = Math.max(1, Integer.parseInt(args[++i]));
+                    case "--seed" -> seed = Long.parseLong(args[++i]);
+                    case "--reload-interval-ms" -> reloadIntervalMillis = Math.max(0, Long.parseLong(args[++i]));
+                    case "--max-p99-micros" -> maxP99Micros = Double.parseDouble(args[++i]);
+                    case "--max-reload-millis" -> maxReloadMillis = Double.parseDouble(args[++i]);
+                    case "--max-quarantines" -> maxQuarantines = Integer.parseInt(args[++i]);
+                    case "--work-dir" -> workDirectory = Path.of(args[++i]);
+                    case "--report" -> reportFile = Path.of(args[++i]);
+                    default -> throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (RuntimeException exception) {
+            ruleCount = -1;
+        }
+
+        if(ruleCount < LoadTestRules.KINDS || events < 1) {
+            System.err.println("Usage: [--rules <n>] [--events <n>] [--players <n>] [--threads <n>] [--seed <n>] [--reload-interval-ms <n>] "
+                    + "[--max-p99-micros <n>] [--max-reload-millis <n>] [--max-quarantines <n>] [--work-dir <dir>] [--report <file>]");
+            System.err.println("At least " + LoadTestRules.KINDS + " rules and 1 event are required.");
+            System.exit(2);
+            return;
+        }
+
+        LoadTestReport report = new LoadTestReport();
+        report.put("timestamp", Instant.now().toString());
+        Map<String, Object> configuration = report.section("configuration");
+        configuration.put("rules", ruleCount);
+        configuration.put("events", events);
+        configuration.put("players", playerCount);
+        configuration.put("threads", threads);
+        configuration.put("seed", seed);
+        configuration.put("reload-interval-ms", reloadIntervalMillis);
+        configuration.put("java", System.getProperty("java.version"));
+
+        try {
+            // Write the generated settings, and remove the cache of an earlier run so the first reload compiles everything.
+            Path settingsFile = workDirectory.resolve("settings.yml");
+            Path cacheFile = workDirectory.resolve("cache").resolve("rules.bin");
+            LoadTestRules.write(settingsFile, LoadTestRules.entries(ruleCount), VERDICT_CACHE_SIZE);
+            Files.deleteIfExists(cacheFile);
+            RuleCache ruleCache = new RuleCache(cacheFile, "loadtest");
+            AtomicInteger quarantines = new AtomicInteger();
+
+            // Time a reload without the cache, like the first start, and one with it, like a reload that didn't change the entries.
+            RuleSnapshot coldSnapshot = reload(settingsFile, ruleCache, quarantines);
+            RuleSnapshot warmSnapshot = reload(settingsFile, ruleCache, quarantines);
+            Map<String, Object> reloadSection = report.section("reload");
+            reloadSection.put("cold-ms", coldSnapshot.compileMillis());
+            reloadSection.put("warm-ms", warmSnapshot.compileMillis());
+            reloadSection.put("entries", warmSnapshot.ruleCount());
+            reloadSection.put("invalid-entries", warmSnapshot.compiledRules().invalidEntries());
+            reloadSection.put("unindexed-entries", warmSnapshot.compiledRules().unindexedEntryCount());
+            System.out.printf(Locale.ROOT, "Reloaded %,d entries in %.1f ms without the cache and %.1f ms with it.%n",
+                    warmSnapshot.ruleCount(), coldSnapshot.compileMillis(), warmSnapshot.compileMillis());
+
+            LoadTestCorpus corpus = LoadTestCorpus.generate(ruleCount, (int) Math.min(events, CORPUS_SIZE), seed);
+            LoadTest loadTest = new LoadTest(corpus, Math.max(playerCount, threads), seed, warmSnapshot, workDirectory);
+            loadTest.apply(warmSnapshot);
+
+            // Keep reloading in the background, so commands are checked while snapshots are swapped.
+            LatencyHistogram reloads = new LatencyHistogram();
+            ScheduledExecutorService reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "CommandRestrictions-LoadTest-Reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if(reloadIntervalMillis > 0) {
+                reloader.scheduleWithFixedDelay(() -> {
+                    try {
+                        RuleSnapshot reloaded = reload(settingsFile, ruleCache, quarantines);
+                        reloads.record(reloaded.compileNanos());
+                        loadTest.snapshot.set(reloaded);
+                        loadTest.apply(reloaded);
+                    } catch (IOException exception) {
+                        System.err.println("Reload failed: " + exception.getMessage());
+                    }
+                }, reloadIntervalMillis, reloadIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+
+            long nanos;
+            try {
+                nanos = loadTest.run(events, threads, seed);
+            } finally {
+                reloader.shutdownNow();
+                loadTest.auditLog.shutdown();
+            }
+
+            Map<String, Object> eventSection = report.section("events");
+            eventSection.put("count", loadTest.latency.count());
+            eventSection.put("allowed-commands", loadTest.categoryCounts[LoadTestCorpus.ALLOWED].sum());
+            eventSection.put("blocked-commands", loadTest.categoryCounts[LoadTestCorpus.BLOCKED].sum());
+            eventSection.put("adversarial-commands", loadTest.categoryCounts[LoadTestCorpus.ADVERSARIAL].sum());
+            eventSection.put("blocked", loadTest.blocked.sum());
+            eventSection.put("throttled", loadTest.throttled.sum());
+            eventSection.put("player-messages", loadTest.messages.sum());
+            eventSection.put("audit-written", loadTest.auditLog.written());
+            eventSection.put("audit-dropped", loadTest.auditLog.dropped());
+            eventSection.put("mismatches", loadTest.mismatches.sum());
+            eventSection.put("timeouts", loadTest.timeouts.sum());
+            eventSection.put("quarantine-skips", loadTest.quarantineSkips.sum());
+            eventSection.put("seconds", nanos / 1_000_000_000D);
+            eventSection.put("events-per-second", nanos > 0 ? loadTest.latency.count() * 1_000_000_000D / nanos : 0D);
+            eventSection.put("latency-ns", latencySection(loadTest.latency));
+            eventSection.put("mismatch-examples", loadTest.mismatchExamples);
+
+            reloadSection.put("during-run", reloads.count());
+            reloadSection.put("during-run-max-ns", reloads.maxNanos());
+            reloadSection.put("quarantined-entries", quarantines.get());
+
+            // Check the results against the budgets.
+            List<Object> checks = new ArrayList<>();
+            double p99Micros = loadTest.latency.percentileNanos(99) / 1000D;
+            boolean passed = check(checks, "correct-verdicts", 0, loadTest.mismatches.sum());
+            passed &= check(checks, "invalid-entries", 0, warmSnapshot.compiledRules().invalidEntries());
+            passed &= check(checks, "p99-event-micros", maxP99Micros, p99Micros);
+            passed &= check(checks, "cold-reload-ms", maxReloadMillis, coldSnapshot.compileMillis());
+            passed &= check(checks, "quarantined-entries", maxQuarantines, quarantines.get());
+            report.put("checks", checks);
+            report.put("passed", passed);
+
+            System.out.printf(Locale.ROOT, "Checked %,d commands in %.2f s on %d threads: %,.0f commands/s, %,d blocked, %,d throttled, %,d wrong verdicts, %,d timeouts.%n",
+                    loadTest.latency.count(), nanos / 1_000_000_000D, threads, eventSection.get("events-per-second"), loadTest.blocked.sum(), loadTest.throttled.sum(),
+                    loadTest.mismatches.sum(), loadTest.timeouts.sum());
+            System.out.printf(Locale.ROOT, "Latency per command p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us. Reloaded %d times while checking.%n",
+                    loadTest.latency.percentileNanos(50) / 1000D, p99Micros, loadTest.latency.percentileNanos(99.9) / 1000D, loadTest.latency.maxNanos() / 1000D, reloads.count());
+            for(String example : loadTest.mismatchExamples) {
+                System.out.println("  " + example);
+            }
+
+            report.write(reportFile);
+            System.out.println((passed ? "Passed." : "Failed.") + " Wrote the report to " + reportFile + ".");
+            if(!passed) System.exit(1);
+        } catch (IOException | InterruptedException exception) {
+            System.err.println("Load test failed: " + exception.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Loads and compiles the settings the same way a reload of the plugin does and creates a snapshot of them.
+     * @param settingsFile The {@link Path} of the settings.yml.
+     * @param ruleCache The {@link RuleCache} to reuse the index from.
+     * @param quarantines The counter of entries quarantined at runtime.
+     * @return The new {@link RuleSnapshot}.
+     * @throws IOException If the settings can't be loaded.
+     */
+    @NotNull
+    private static RuleSnapshot reload(@NotNull Path settingsFile, @NotNull RuleCache ruleCache, @NotNull AtomicInteger quarantines) throws IOException {
+        long start = System.nanoTime();
+
+        Settings settings = LoadTestRules.load(settingsFile);
+        CompiledRules compiledRules = RuleCompiler.compile(settings, entryIndex -> quarantines.incrementAndGet(), ruleCache);
+        VerdictCache verdictCache = settings.verdictCacheSize() > 0 ? new VerdictCache(settings.verdictCacheSize()) : null;
+        RuleMetrics metrics = new RuleMetrics(compiledRules.entries().size());
+
+        return new RuleSnapshot(settings, compiledRules, verdictCache, metrics, System.nanoTime() - start);
+    }
+
+    /**
+     * Applies a new snapshot to the managers the same way a reload of the plugin does,
+     * and recomputes the exemptions of every player like the command trees sent after a reload do.
+     * @param snapshot The new {@link RuleSnapshot}.
+     */
+    private void apply(@NotNull RuleSnapshot snapshot) {
+        Settings.Audit audit = snapshot.settings().audit();
+        auditLog.reload(audit);
+        consoleWarningLimiter.configure(audit == null || audit.consoleWarnings(), audit != null ? audit.consoleWarningsPerSecond() : 0);
+        traceManager.reload(snapshot.settings().traceBufferSize());
+
+        for(SimulatedPlayer player : players) {
+            bypassManager.update(player.player());
+        }
+    }
+
+    /**
+     * Sends commands from the simulated players on several threads and checks every verdict.
+     * Each thread stands in for the main thread of a server, with its own listener, throttle state and share of the players,
+     * since the throttle state must only be used from the main thread.
+     * @param events The total number of commands to send.
+     * @param threads The number of threads.
+     * @param seed The seed the random generator of each thread is derived from.
+     * @return The time it took in nanoseconds.
+     * @throws InterruptedException If interrupted while waiting for the threads.
+     * @throws IOException If a command couldn't be checked.
+     */
+    private long run(long events, int threads, long seed) throws InterruptedException, IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "CommandRestrictions-LoadTest");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for(int t = 0; t < threads; t++) {
+            long threadEvents = events / threads + (t < events % threads ? 1 : 0);
+            SplittableRandom random = new SplittableRandom(seed * 31 + t);
+            SimulatedPlayer[] threadPlayers = new SimulatedPlayer[players.length / threads + (t < players.length % threads ? 1 : 0)];
+            for(int i = 0; i < threadPlayers.length; i++) {
+                threadPlayers[i] = players[t + i * threads];
+            }
+            futures.add(executor.submit(() -> sendCommands(threadPlayers, threadEvents, random)));
+        }
+
+        try {
+            for(Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException exception) {
+            throw new IOException("A command couldn't be checked: " + exception.getCause(), exception.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Sends random commands from random players through a player command listener of the thread and checks their verdicts.
+     * @param threadPlayers The players of the thread.
+     * @param events The number of commands to send.
+     * @param random The {@link SplittableRandom} of the thread.
+     */
+    private void sendCommands(@NotNull SimulatedPlayer[] threadPlayers, long events, @NotNull SplittableRandom random) {
+        ThrottleManager throttleManager = new ThrottleManager(plugin, localeManager);
+        throttleManager.reload(snapshot.get().settings().throttle());
+        PlayerCommandPreProcessListener listener = new PlayerCommandPreProcessListener(plugin, engine, localeManager, reporter, bypassManager, throttleManager, traceManager);
+
+        for(long i = 0; i < events; i++) {
+            SimulatedPlayer player = threadPlayers[random.nextInt(threadPlayers.length)];
+            int commandIndex = random.nextInt(corpus.size());
+            String command = corpus.command(commandIndex);
+            PlayerCommandPreprocessEvent event = new PlayerCommandPreprocessEvent(player.player(), command, Set.of());
+
+            long start = System.nanoTime();
+            listener.onPlayerCommandSent(event);
+            latency.record(System.nanoTime() - start);
+
+            categoryCounts[corpus.category(commandIndex)].increment();
+
+            // A command cancelled without being reported was rejected because the player is throttled, so it wasn't checked.
+            @Nullable Verdict reported = reporter.take();
+            if(reported == null && event.isCancelled()) {
+                throttled.increment();
+                continue;
+            }
+
+            Verdict verdict = reported != null ? reported : Verdict.ALLOW;
+            if(verdict.blocked()) blocked.increment();
+
+            // A timeout, or a command allowed because its entry was quarantined after a timeout, is the regex protection reacting to how long a check took.
+            // That is checked separately, not a wrong decision.
+            if(verdict.type() == Verdict.Type.MATCH_TIMEOUT) {
+                timeouts.increment();
+                continue;
+            }
+            int expectedEntry = corpus.expectedEntry(commandIndex);
+            if(!verdict.blocked() && expectedEntry >= 0 && snapshot.get().compiledRules().isQuarantined(expectedEntry)) {
+                quarantineSkips.increment();
+                continue;
+            }
+
+            if(!corpus.isExpected(commandIndex, verdict, player.groups())) {
+                mismatches.increment();
+                synchronized(mismatchExamples) {
+                    if(mismatchExamples.size() < MAX_MISMATCH_EXAMPLES) {
+                        mismatchExamples.add(player.name() + " " + abbreviate(command) + " -> " + verdict.type() + " #" + verdict.entryIndex());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the latency percentiles of a histogram to the report.
+     * @param histogram The {@link LatencyHistogram}.
+     * @return The section of the report.
+     */
+    @NotNull
+    private static Map<String, Object> latencySection(@NotNull LatencyHistogram histogram) {
+        Map<String, Object> section = new LinkedHashMap<>();
+        section.put("mean", histogram.meanNanos());
+        section.put("p50", histogram.percentileNanos(50));
+        section.put("p99", histogram.percentileNanos(99));
+        section.put("p99.9", histogram.percentileNanos(99.9));
+        section.put("max", histogram.maxNanos());
+        return section;
+    }
+
+    /**
+     * Adds a check of a result against its budget to the report.
+     * @param checks The list of checks in the report.
+     * @param name The name of the check.
+     * @param limit The largest value that passes.
+     * @param actual The measured value.
+     * @return true if the check passed, false if not.
+     */
+    private static boolean check(@NotNull List<Object> checks, @NotNull String name, double limit, double actual) {
+        boolean passed = actual <= limit;
+
+        Map<String, Object> check = new LinkedHashMap<>();
+        check.put("name", name);
+        check.put("limit", limit);
+        check.put("actual", actual);
+        check.put("passed", passed);
+        checks.add(check);
+
+        if(!passed) System.err.printf(Locale.ROOT, "Check %s failed: %.3f is over the limit of %.3f.%n", name, actual, limit);
+        return passed;
+    }
+
+    /**
+     * Shortens a command for the report.
+     * @param command The command.
+     * @return The command, cut to 80 characters.
+     */
+    @NotNull
+    private static String abbreviate(@NotNull String command) {
+        return command.length() <= 80 ? command : command.substring(0, 77) + "...";
+    }
+
+    /**
+     * This class reports blocked commands like the plugin does and remembers the last verdict it reported on each thread,
+     * so the verdict of a command can be checked after the listener handled it.
+     */
+    private static final class RecordingReporter extends BlockedCommandReporter {
+        private final ThreadLocal<Verdict> lastVerdict = new ThreadLocal<>();
+
+        private RecordingReporter(@NotNull Plugin plugin, @NotNull LocaleManager localeManager, @NotNull AuditLog auditLog, @NotNull ConsoleWarningLimiter consoleWarningLimiter) {
+            super(plugin, localeManager, auditLog, consoleWarningLimiter);
+        }
+
+        @Override
+        public void report(@NotNull CommandSender sender, @NotNull String command, @NotNull Verdict verdict) {
+            lastVerdict.set(verdict);
+            super.report(sender, command, verdict);
+        }
+
+        /**
+         * Gets and clears the last verdict reported on the current thread.
+         * @return The {@link Verdict}, or null if no command was reported since the last call.
+         */
+        @Nullable
+        Verdict take() {
+            Verdict verdict = lastVerdict.get();
+            if(verdict != null) lastVerdict.set(null);
+            return verdict;
+        }
+    }
+
+    /**
+     * This class represents a player sending commands.
+     * Its stand-in has the bypass permissions of the groups it is exempt from, so the plugin's bypass manager computes its exemptions.
+     */
+    private static final class SimulatedPlayer {
+        private final String name;
+        private final int groups;
+        private final Player player;
+
+        private SimulatedPlayer(@NotNull String name, int entityId, int groups, @NotNull LongAdder messages) {
+            this.name = name;
+            this.groups = groups;
+
+            Set<String> permissions = new HashSet<>();
+            for(int group = 0; group < LoadTestRules.GROUPS; group++) {
+                if((groups & (1 << group)) != 0) permissions.add(BypassManager.BYPASS_PERMISSION_PREFIX + LoadTestRules.groupName(group));
+            }
+            this.player = LoadTestServer.player(name, entityId, permissions, messages);
+        }
+
+        /**
+         * Generates the players. One in {@link #EXEMPT_PLAYER_RATIO} is exempt from one to three random groups.
+         * @param count The number of players.
+         * @param seed The seed of the random generator.
+         * @param messages The counter of messages sent to the players.
+         * @return The players.
+         */
+        @NotNull
+        static SimulatedPlayer[] generate(int count, long seed, @NotNull LongAdder messages) {
+            SplittableRandom random = new SplittableRandom(seed ^ 0x5DEECE66DL);
+            SimulatedPlayer[] players = new SimulatedPlayer[count];
+            for(int i = 0; i < count; i++) {
+                int groups = 0;
+                if(i % EXEMPT_PLAYER_RATIO == 0) {
+                    int exemptions = 1 + random.nextInt(3);
+                    for(int e = 0; e < exemptions; e++) {
+                        groups |= 1 << random.nextInt(LoadTestRules.GROUPS);
+                    }
+                }
+
+                players[i] = new SimulatedPlayer("player-" + i, i + 1, groups, messages);
+            }
+
+            return players;
+        }
+
+        /**
+         * Gets the name of the player.
+         * @return The name.
+         */
+        @NotNull
+        String name() {
+            return name;
+        }
+
+        /**
+         * Gets the groups the player is exempt from.
+         * @return The mask with one bit per group number of {@link LoadTestRules#group(int)}.
+         */
+        int groups() {
+            return groups;
+        }
+
+        /**
+         * Gets the stand-in the player's commands are sent from.
+         * @return The {@link Player}.
+         */
+        @NotNull
+        Player player() {
+            return player;
+        }
+    }
+}
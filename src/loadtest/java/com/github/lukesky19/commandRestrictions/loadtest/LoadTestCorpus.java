@@ -0,0 +1,267 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.loadtest;
+
+import com.github.lukesky19.commandRestrictions.engine.Verdict;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.SplittableRandom;
+
+import static com.github.lukesky19.commandRestrictions.loadtest.LoadTestRules.numbered;
+
+/**
+ * This class generates the commands the simulated players send, each with the verdict it must get.
+ * The commands are a mix of allowed commands, commands blocked by each kind of entry, and adversarial commands
+ * like very long arguments, near misses of blocked text, blocked labels hidden deep in chat and look-alike characters.
+ */
+final class LoadTestCorpus {
+    /**
+     * The category of commands that no entry blocks.
+     */
+    static final int ALLOWED = 0;
+    /**
+     * The category of commands written to be blocked by one entry.
+     */
+    static final int BLOCKED = 1;
+    /**
+     * The category of commands written to be slow to check or to slip past an entry.
+     */
+    static final int ADVERSARIAL = 2;
+    /**
+     * The number of categories.
+     */
+    static final int CATEGORIES = 3;
+
+    private static final int LONG_ARGUMENT_LENGTH = 1024;
+    private static final int MANY_WORDS = 256;
+
+    private final String[] commands;
+    private final int[] categories;
+    private final int[] expectedEntries;
+    private final Verdict.Type[] expectedTypes;
+    private final int[] expectedGroups;
+    private int size;
+
+    private LoadTestCorpus(int capacity) {
+        this.commands = new String[capacity];
+        this.categories = new int[capacity];
+        this.expectedEntries = new int[capacity];
+        this.expectedTypes = new Verdict.Type[capacity];
+        this.expectedGroups = new int[capacity];
+    }
+
+    /**
+     * Generates the commands.
+     * Roughly 60% are allowed, 30% are blocked and 10% are adversarial.
+     * @param ruleCount The number of entries generated by {@link LoadTestRules#entries(int)}, at least {@link LoadTestRules#KINDS}.
+     * @param size The number of commands.
+     * @param seed The seed of the random generator, so runs are reproducible.
+     * @return The {@link LoadTestCorpus}.
+     */
+    @NotNull
+    static LoadTestCorpus generate(int ruleCount, int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        LoadTestCorpus corpus = new LoadTestCorpus(size);
+
+        for(int i = 0; i < size; i++) {
+            int roll = random.nextInt(100);
+            if(roll < 60) {
+                corpus.addAllowed(random, ruleCount);
+            } else if(roll < 90) {
+                corpus.addBlocked(random, ruleCount);
+            } else {
+                corpus.addAdversarial(random, ruleCount);
+            }
+        }
+
+        return corpus;
+    }
+
+    /**
+     * Gets the number of commands.
+     * @return The number of commands.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets a command.
+     * @param index The index of the command.
+     * @return The command, starting with a slash.
+     */
+    @NotNull
+    String command(int index) {
+        return commands[index];
+    }
+
+    /**
+     * Gets the category of a command.
+     * @param index The index of the command.
+     * @return {@link #ALLOWED}, {@link #BLOCKED} or {@link #ADVERSARIAL}.
+     */
+    int category(int index) {
+        return categories[index];
+    }
+
+    /**
+     * Gets the entry that must block a command.
+     * @param index The index of the command.
+     * @return The index of the entry, or -1 if no entry blocks the command.
+     */
+    int expectedEntry(int index) {
+        return expectedEntries[index];
+    }
+
+    /**
+     * Checks if a verdict is the one a command must get.
+     * A command written for a grouped entry must be allowed for players exempt from that group, and blocked by that entry for everyone else.
+     * @param index The index of the command.
+     * @param verdict The {@link Verdict} the command got.
+     * @param exemptGroups The groups the player is exempt from, with one bit per group number of {@link LoadTestRules#group(int)}.
+     * @return true if the verdict is correct, false if not.
+     */
+    boolean isExpected(int index, @NotNull Verdict verdict, int exemptGroups) {
+        int expectedEntry = expectedEntries[index];
+        int group = expectedGroups[index];
+        if(expectedEntry < 0 || (group >= 0 && (exemptGroups & (1 << group)) != 0)) return !verdict.blocked();
+
+        return verdict.entryIndex() == expectedEntry && verdict.type() == expectedTypes[index];
+    }
+
+    /**
+     * Adds a command that no entry blocks.
+     * @param random The {@link SplittableRandom} to pick the command with.
+     * @param ruleCount The number of entries.
+     */
+    private void addAllowed(@NotNull SplittableRandom random, int ruleCount) {
+        switch(random.nextInt(6)) {
+            case 0 -> add(ALLOWED, "/say hello " + random.nextInt(1000));
+            case 1 -> add(ALLOWED, "/warp spawn");
+            case 2 -> add(ALLOWED, numbered("/cmd", pick(random, ruleCount, LoadTestRules.BLOCKED_TEXT)) + " give other" + random.nextInt(1000));
+            case 3 -> add(ALLOWED, numbered("/cmd", pick(random, ruleCount, LoadTestRules.BLOCKED_TEXT)) + " list");
+            case 4 -> add(ALLOWED, numbered("/tok", pick(random, ruleCount, LoadTestRules.TOKENS)) + " set x other");
+            default -> add(ALLOWED, numbered("/grp", pick(random, ruleCount, LoadTestRules.GROUPED)) + " a b public");
+        }
+    }
+
+    /**
+     * Adds a command that one entry of a random kind blocks.
+     * @param random The {@link SplittableRandom} to pick the command with.
+     * @param ruleCount The number of entries.
+     */
+    private void addBlocked(@NotNull SplittableRandom random, int ruleCount) {
+        int kind = random.nextInt(LoadTestRules.KINDS);
+        int entry = pick(random, ruleCount, kind);
+        switch(kind) {
+            case LoadTestRules.BLOCK_ALL -> add(BLOCKED, numbered(random.nextBoolean() ? "/blk" : "/ns:blk", entry) + " now", entry, Verdict.Type.BLOCK_ALL);
+            case LoadTestRules.BLOCKED_TEXT -> add(BLOCKED, random.nextBoolean()
+                    ? numbered("/cmd", entry) + " give " + numbered("item", entry)
+                    : numbered("/cmd", entry) + " take " + numbered("glob", entry) + ".sub", entry, Verdict.Type.BLOCKED_TEXT);
+            case LoadTestRules.TOKENS -> add(BLOCKED, numbered("/tok", entry) + (random.nextBoolean() ? " set" : " add") + " x " + numbered("perm", entry), entry, Verdict.Type.BLOCKED_TEXT);
+            default -> addGrouped(BLOCKED, numbered("/grp", entry) + " a " + numbered("secret", entry), entry);
+        }
+    }
+
+    /**
+     * Adds a command that is slow to check or written to slip past an entry.
+     * @param random The {@link SplittableRandom} to pick the command with.
+     * @param ruleCount The number of entries.
+     */
+    private void addAdversarial(@NotNull SplittableRandom random, int ruleCount) {
+        switch(random.nextInt(9)) {
+            case 0 -> add(ADVERSARIAL, numbered("/cmd", pick(random, ruleCount, LoadTestRules.BLOCKED_TEXT)) + " give " + "a".repeat(LONG_ARGUMENT_LENGTH));
+            case 1 -> {
+                int entry = pick(random, ruleCount, LoadTestRules.BLOCKED_TEXT);
+                add(ADVERSARIAL, numbered("/cmd", entry) + " give " + numbered("item", entry) + "x");
+            }
+            case 2 -> {
+                int entry = pick(random, ruleCount, LoadTestRules.BLOCKED_TEXT);
+                add(ADVERSARIAL, numbered("/cmd", entry) + " give " + numbered("glob", entry));
+            }
+            case 3 -> {
+                // Plain text entries match anywhere in the command, not only in the label.
+                int entry = pick(random, ruleCount, LoadTestRules.BLOCK_ALL);
+                add(ADVERSARIAL, "/msg friend look " + "x ".repeat(MANY_WORDS / 4) + numbered("/blk", entry), entry, Verdict.Type.BLOCK_ALL);
+            }
+            case 4 -> {
+                int entry = pick(random, ruleCount, LoadTestRules.GROUPED);
+                add(ADVERSARIAL, numbered("/grp", entry) + " " + "w ".repeat(MANY_WORDS) + "nosecret");
+            }
+            case 5 -> {
+                int entry = pick(random, ruleCount, LoadTestRules.GROUPED);
+                addGrouped(ADVERSARIAL, numbered("/grp", entry) + " " + "w ".repeat(MANY_WORDS) + numbered("secret", entry), entry);
+            }
+            // A Cyrillic letter that looks like the k of the label.
+            case 6 -> add(ADVERSARIAL, numbered("/bl\u043A", pick(random, ruleCount, LoadTestRules.BLOCK_ALL)) + " now");
+            case 7 -> add(ADVERSARIAL, numbered("/tok", pick(random, ruleCount, LoadTestRules.TOKENS)) + " set");
+            default -> {
+                int entry = pick(random, ruleCount, LoadTestRules.TOKENS);
+                add(ADVERSARIAL, numbered("/tok", entry) + " add x " + numbered("perm", entry) + " and more words", entry, Verdict.Type.BLOCKED_TEXT);
+            }
+        }
+    }
+
+    /**
+     * Picks a random entry of a kind.
+     * @param random The {@link SplittableRandom} to pick with.
+     * @param ruleCount The number of entries.
+     * @param kind The kind of entry.
+     * @return The index of the entry.
+     */
+    private static int pick(@NotNull SplittableRandom random, int ruleCount, int kind) {
+        int count = (ruleCount - kind + LoadTestRules.KINDS - 1) / LoadTestRules.KINDS;
+        return kind + LoadTestRules.KINDS * random.nextInt(count);
+    }
+
+    /**
+     * Adds a command that must be allowed.
+     * @param category The category of the command.
+     * @param command The command.
+     */
+    private void add(int category, @NotNull String command) {
+        add(category, command, -1, Verdict.Type.ALLOW);
+    }
+
+    /**
+     * Adds a command that must be blocked by a grouped entry, unless the player is exempt from its group.
+     * @param category The category of the command.
+     * @param command The command.
+     * @param entry The index of the grouped entry.
+     */
+    private void addGrouped(int category, @NotNull String command, int entry) {
+        add(category, command, entry, Verdict.Type.BLOCK_ALL);
+        expectedGroups[size - 1] = LoadTestRules.group(entry);
+    }
+
+    /**
+     * Adds a command.
+     * @param category The category of the command.
+     * @param command The command.
+     * @param expectedEntry The index of the entry that must block the command, or -1 if it must be allowed.
+     * @param expectedType The {@link Verdict.Type} the command must get.
+     */
+    private void add(int category, @NotNull String command, int expectedEntry, @NotNull Verdict.Type expectedType) {
+        commands[size] = command;
+        categories[size] = category;
+        expectedEntries[size] = expectedEntry;
+        expectedTypes[size] = expectedType;
+        expectedGroups[size] = -1;
+        size++;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.loadtest;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This class collects the results of a load test and writes them as JSON, so CI can keep them and compare runs.
+ * Sections keep the order they were added in.
+ */
+final class LoadTestReport {
+    private final Map<String, Object> root = new LinkedHashMap<>();
+
+    /**
+     * Gets a section of the report, creating it if needed.
+     * @param name The key of the section.
+     * @return The section's map, whose values may be numbers, booleans, strings, lists or maps.
+     */
+    @NotNull
+    Map<String, Object> section(@NotNull String name) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> section = (Map<String, Object>) root.computeIfAbsent(name, key -> new LinkedHashMap<String, Object>());
+        return section;
+    }
+
+    /**
+     * Sets a top level value of the report.
+     * @param name The key.
+     * @param value The value.
+     */
+    void put(@NotNull String name, @Nullable Object value) {
+        root.put(name, value);
+    }
+
+    /**
+     * Writes the report.
+     * @param file The {@link Path} to write the JSON to. Its directories are created if needed.
+     * @throws IOException If the file can't be written.
+     */
+    void write(@NotNull Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if(parent != null) Files.createDirectories(parent);
+
+        StringBuilder builder = new StringBuilder();
+        append(builder, root, "");
+        builder.append('\n');
+        Files.writeString(file, builder, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends a value as JSON.
+     * @param builder The {@link StringBuilder} to append to.
+     * @param value The value.
+     * @param indent The indentation of the line the value starts on.
+     */
+    private static void append(@NotNull StringBuilder builder, @Nullable Object value, @NotNull String indent) {
+        if(value instanceof Map<?, ?> map) {
+            if(map.isEmpty()) {
+                builder.append("{}");
+                return;
+            }
+
+            builder.append("{\n");
+            int i = 0;
+            for(Map.Entry<?, ?> entry : map.entrySet()) {
+                builder.append(indent).append("  ");
+                appendString(builder, String.valueOf(entry.getKey()));
+                builder.append(": ");
+                append(builder, entry.getValue(), indent + "  ");
+                builder.append(++i < map.size() ? ",\n" : "\n");
+            }
+            builder.append(indent).append('}');
+        } else if(value instanceof List<?> list) {
+            if(list.isEmpty()) {
+                builder.append("[]");
+                return;
+            }
+
+            builder.append("[\n");
+            for(int i = 0; i < list.size(); i++) {
+                builder.append(indent).append("  ");
+                append(builder, list.get(i), indent + "  ");
+                builder.append(i + 1 < list.size() ? ",\n" : "\n");
+            }
+            builder.append(indent).append(']');
+        } else if(value instanceof Double number) {
+            // JSON has no NaN or infinity.
+            builder.append(number.isNaN() || number.isInfinite() ? "null" : String.format(Locale.ROOT, "%.3f", number));
+        } else if(value instanceof Number || value instanceof Boolean || value == null) {
+            builder.append(value);
+        } else {
+            appendString(builder, value.toString());
+        }
+    }
+
+    /**
+     * Appends a JSON string.
+     * @param builder The {@link StringBuilder} to append to.
+     * @param text The text.
+     */
+    private static void appendString(@NotNull StringBuilder builder, @NotNull String text) {
+        builder.append('"');
+        for(int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            switch(character) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if(character < 0x20) {
+                        builder.append(String.format(Locale.ROOT, "\\u%04x", (int) character));
+                    } else {
+                        builder.append(character);
+                    }
+                }
+            }
+        }
+        builder.append('"');
+    }
+}
@@ -0,0 +1,230 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.loadtest;
+
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import com.github.lukesky19.skylib.libs.configurate.ConfigurateException;
+import com.github.lukesky19.skylib.libs.configurate.yaml.YamlConfigurationLoader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * This class generates the large rule set the load test runs against and writes it as a settings.yml.
+ * Every label is numbered with the same width, so no label is a prefix of another and each command can only be blocked by the entry it was written for.
+ * The entries cycle through four kinds:
+ * <ul>
+ *     <li>{@link #BLOCK_ALL}: plain text alternatives that block every command containing them, matched by the automaton.</li>
+ *     <li>{@link #BLOCKED_TEXT}: a regex whose captured argument is checked against blocked text and globs.</li>
+ *     <li>{@link #TOKENS}: tokens whose fourth word is checked against blocked text.</li>
+ *     <li>{@link #GROUPED}: a regex that requires a literal anywhere in the arguments, in one of {@link #GROUPS} bypassable groups.</li>
+ * </ul>
+ */
+final class LoadTestRules {
+    /**
+     * The kind of entry that blocks every command containing its label.
+     */
+    static final int BLOCK_ALL = 0;
+    /**
+     * The kind of entry that checks a captured argument against blocked text.
+     */
+    static final int BLOCKED_TEXT = 1;
+    /**
+     * The kind of entry that matches tokens.
+     */
+    static final int TOKENS = 2;
+    /**
+     * The kind of entry that belongs to a bypassable group.
+     */
+    static final int GROUPED = 3;
+    /**
+     * The number of kinds the entries cycle through.
+     */
+    static final int KINDS = 4;
+    /**
+     * The number of distinct groups of the grouped entries.
+     */
+    static final int GROUPS = 16;
+    /**
+     * The index of the token checked against the blocked text of token entries.
+     */
+    static final int BLOCKED_ARGUMENT = 3;
+
+    private LoadTestRules() {}
+
+    /**
+     * Gets the kind of an entry.
+     * @param entryIndex The index of the entry.
+     * @return The kind of the entry.
+     */
+    static int kind(int entryIndex) {
+        return entryIndex % KINDS;
+    }
+
+    /**
+     * Gets the group of a grouped entry.
+     * @param entryIndex The index of the entry.
+     * @return The number of the group between 0 and {@link #GROUPS}.
+     */
+    static int group(int entryIndex) {
+        return (entryIndex / KINDS) % GROUPS;
+    }
+
+    /**
+     * Gets the name of a group as written in the settings.
+     * @param group The number of the group.
+     * @return The name of the group.
+     */
+    @NotNull
+    static String groupName(int group) {
+        return String.format(Locale.ROOT, "group-%02d", group);
+    }
+
+    /**
+     * Gets the text that is unique to an entry, with the width shared by every entry.
+     * @param prefix The text before the number.
+     * @param entryIndex The index of the entry.
+     * @return The prefix followed by the padded index.
+     */
+    @NotNull
+    static String numbered(@NotNull String prefix, int entryIndex) {
+        return String.format(Locale.ROOT, "%s%05d", prefix, entryIndex);
+    }
+
+    /**
+     * Generates the entries.
+     * @param count The number of entries.
+     * @return The entries.
+     */
+    @NotNull
+    static List<Settings.Entry> entries(int count) {
+        List<Settings.Entry> entries = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            entries.add(switch(kind(i)) {
+                case BLOCK_ALL -> new Settings.Entry(
+                        Pattern.compile(numbered("/blk", i) + "|" + numbered("/ns:blk", i)), true, List.of(), null, null, null, 0);
+                case BLOCKED_TEXT -> new Settings.Entry(
+                        Pattern.compile(numbered("/cmd", i) + " (?:give|take) ([^ ]+)"), false,
+                        List.of(numbered("item", i)), List.of(numbered("glob", i) + ".*"), null, null, 0);
+                case TOKENS -> new Settings.Entry(
+                        null, false, List.of(numbered("perm", i)), null, null,
+                        List.of(numbered("/tok", i), "set|add", "*"), BLOCKED_ARGUMENT);
+                default -> new Settings.Entry(
+                        Pattern.compile(numbered("/grp", i) + " (?:[^ ]+ )*" + numbered("secret", i) + "(?: |$)"), true,
+                        List.of(), null, groupName(group(i)), null, 0);
+            });
+        }
+
+        return entries;
+    }
+
+    /**
+     * Writes a settings.yml with the entries, using the same keys a server admin would.
+     * @param file The {@link Path} to write to.
+     * @param entries The entries.
+     * @param verdictCacheSize The size of the verdict cache.
+     * @throws IOException If the file can't be written.
+     */
+    static void write(@NotNull Path file, @NotNull List<Settings.Entry> entries, int verdictCacheSize) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if(parent != null) Files.createDirectories(parent);
+
+        try(BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("config-version: 1.1.0.0\n");
+            writer.write("verdict-cache-size: " + verdictCacheSize + "\n");
+            writer.write("regex-protection:\n  budget-micros: 5000\n  fail-closed: true\n  reject-unsafe-patterns: false\n");
+            writer.write("sources:\n  players: true\n  tab-complete: true\n  console: false\n  command-blocks: true\n");
+            // Audit and throttle like the default settings, but with a bucket large enough that only a player far over the usual rate is throttled.
+            writer.write("audit:\n  enabled: true\n  flush-interval-ms: 1000\n  queue-capacity: 10000\n  max-file-size-kb: 10240\n  max-files: 5\n"
+                    + "  console-warnings: true\n  console-warnings-per-second: 10\n");
+            writer.write("throttle:\n  enabled: true\n  max-blocked-attempts: 1000\n  window-seconds: 1\n  summary-interval-seconds: 30\n  kick-after-throttles: 0\n");
+            writer.write("normalize-commands: false\n");
+            writer.write("prune-command-tree: true\n");
+            writer.write("entries:\n");
+
+            for(Settings.Entry entry : entries) {
+                if(entry.regex() != null) {
+                    writer.write("-   regex: " + quote(entry.regex().pattern()) + "\n");
+                } else {
+                    writer.write("-   tokens: " + list(entry.tokens()) + "\n");
+                    writer.write("    blocked-argument: " + entry.blockedArgument() + "\n");
+                }
+                writer.write("    block-all-matches: " + entry.blockAllMatches() + "\n");
+                writer.write("    blocked-text: " + list(entry.blockedText()) + "\n");
+                if(entry.blockedTextGlobs() != null) writer.write("    blocked-text-globs: " + list(entry.blockedTextGlobs()) + "\n");
+                if(entry.group() != null) writer.write("    group: " + quote(entry.group()) + "\n");
+            }
+        }
+    }
+
+    /**
+     * Loads a settings.yml the same way the plugin does.
+     * @param file The {@link Path} of the settings.yml.
+     * @return The loaded {@link Settings}.
+     * @throws IOException If the file can't be read or parsed.
+     */
+    @NotNull
+    static Settings load(@NotNull Path file) throws IOException {
+        Settings settings;
+        try {
+            settings = YamlConfigurationLoader.builder().path(file).build().load().get(Settings.class);
+        } catch (ConfigurateException configurateException) {
+            throw new IOException("Failed to load " + file + ": " + configurateException.getMessage(), configurateException);
+        }
+        if(settings == null) throw new IOException("Failed to load " + file + ".");
+
+        return settings;
+    }
+
+    /**
+     * Writes a list as a YAML flow sequence of double-quoted strings.
+     * @param values The values, or null for an empty list.
+     * @return The YAML text.
+     */
+    @NotNull
+    private static String list(@Nullable List<String> values) {
+        if(values == null || values.isEmpty()) return "[]";
+
+        StringBuilder builder = new StringBuilder("[");
+        for(int i = 0; i < values.size(); i++) {
+            if(i > 0) builder.append(", ");
+            builder.append(quote(values.get(i)));
+        }
+
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Writes a value as a YAML double-quoted string.
+     * @param value The value.
+     * @return The quoted value.
+     */
+    @NotNull
+    private static String quote(@NotNull String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
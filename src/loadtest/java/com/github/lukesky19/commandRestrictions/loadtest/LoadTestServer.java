@@ -0,0 +1,147 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.loadtest;
+
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class creates stand-ins for the few server objects the player command listener and its managers use, so the real listener can run without a server.
+ * Each stand-in answers only the methods the load test needs and throws for any other,
+ * so a new use of the server in the listener fails the load test instead of being skipped.
+ */
+final class LoadTestServer {
+    private LoadTestServer() {}
+
+    /**
+     * Creates a stand-in for the plugin. Its scheduler accepts repeating tasks but never runs them.
+     * @param dataFolder The {@link Path} of the data folder.
+     * @return The {@link Plugin}.
+     */
+    @NotNull
+    static Plugin plugin(@NotNull Path dataFolder) {
+        ComponentLogger logger = ComponentLogger.logger("CommandRestrictions");
+        BukkitTask task = standIn(BukkitTask.class, "task", (method, args) -> switch(method.getName()) {
+            case "cancel" -> null;
+            default -> throw unsupported(method);
+        });
+        BukkitScheduler scheduler = standIn(BukkitScheduler.class, "scheduler", (method, args) -> switch(method.getName()) {
+            case "runTaskTimer" -> task;
+            default -> throw unsupported(method);
+        });
+        Server server = standIn(Server.class, "server", (method, args) -> switch(method.getName()) {
+            case "getScheduler" -> scheduler;
+            default -> throw unsupported(method);
+        });
+
+        return standIn(Plugin.class, "CommandRestrictions", (method, args) -> switch(method.getName()) {
+            case "getName" -> "CommandRestrictions";
+            case "getDataFolder" -> dataFolder.toFile();
+            case "getComponentLogger" -> logger;
+            case "getServer" -> server;
+            case "isEnabled" -> true;
+            default -> throw unsupported(method);
+        });
+    }
+
+    /**
+     * Creates a stand-in for a player.
+     * @param name The name of the player.
+     * @param entityId The entity id of the player.
+     * @param permissions The permissions the player has.
+     * @param messages The counter of messages sent to players, including kick messages.
+     * @return The {@link Player}.
+     */
+    @NotNull
+    static Player player(@NotNull String name, int entityId, @NotNull Set<String> permissions, @NotNull LongAdder messages) {
+        UUID uniqueId = UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+        return standIn(Player.class, name, (method, args) -> switch(method.getName()) {
+            case "getName" -> name;
+            case "getUniqueId" -> uniqueId;
+            case "getEntityId" -> entityId;
+            case "locale" -> Locale.US;
+            case "hasPermission" -> {
+                if(!(args[0] instanceof String permission)) throw unsupported(method);
+                yield permissions.contains(permission);
+            }
+            case "sendMessage", "kick" -> {
+                messages.increment();
+                yield null;
+            }
+            default -> throw unsupported(method);
+        });
+    }
+
+    /**
+     * Creates a stand-in for an interface.
+     * @param type The interface.
+     * @param name The name the stand-in is shown with.
+     * @param answer The {@link Answer} for the methods of the interface.
+     * @return The stand-in.
+     * @param <T> The type of the interface.
+     */
+    @NotNull
+    private static <T> T standIn(@NotNull Class<T> type, @NotNull String name, @NotNull Answer answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> switch(method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "toString" -> name;
+            default -> answer.answer(method, args);
+        }));
+    }
+
+    /**
+     * Creates the exception thrown for a method a stand-in doesn't support.
+     * @param method The {@link Method}.
+     * @return The {@link UnsupportedOperationException}.
+     */
+    @NotNull
+    private static UnsupportedOperationException unsupported(@NotNull Method method) {
+        return new UnsupportedOperationException("The load test has no stand-in for " + method.getDeclaringClass().getSimpleName() + "#" + method.getName() + ".");
+    }
+
+    /**
+     * This interface answers the method calls of a stand-in.
+     */
+    @FunctionalInterface
+    private interface Answer {
+        /**
+         * Answers a method call.
+         * @param method The {@link Method} that was called.
+         * @param args The arguments, or null if it has none.
+         * @return The value to return.
+         */
+        @Nullable
+        Object answer(@NotNull Method method, @Nullable Object[] args);
+    }
+}
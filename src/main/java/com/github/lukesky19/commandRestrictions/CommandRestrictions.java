@@ -17,18 +17,41 @@
 */
 package com.github.lukesky19.commandRestrictions;
 
+import com.github.lukesky19.commandRestrictions.api.EngineRestrictionService;
+import com.github.lukesky19.commandRestrictions.api.RestrictionService;
+import com.github.lukesky19.commandRestrictions.audit.AuditLog;
+import com.github.lukesky19.commandRestrictions.audit.BlockedCommandReporter;
+import com.github.lukesky19.commandRestrictions.audit.ConsoleWarningLimiter;
+import com.github.lukesky19.commandRestrictions.bypass.BypassManager;
 import com.github.lukesky19.commandRestrictions.command.CommandRestrictionsCommand;
 import com.github.lukesky19.commandRestrictions.config.locale.LocaleManager;
+import com.github.lukesky19.commandRestrictions.config.settings.RuleDirectoryWatcher;
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
 import com.github.lukesky19.commandRestrictions.config.settings.SettingsManager;
+import com.github.lukesky19.commandRestrictions.engine.RestrictionEngine;
+import com.github.lukesky19.commandRestrictions.engine.RuleSnapshot;
+import com.github.lukesky19.commandRestrictions.listener.CommandRegistrationListener;
+import com.github.lukesky19.commandRestrictions.listener.PlayerConnectionListener;
+import com.github.lukesky19.commandRestrictions.metrics.MetricsDumper;
 import com.github.lukesky19.commandRestrictions.listener.PlayerCommandPreProcessListener;
+import com.github.lukesky19.commandRestrictions.listener.PlayerCommandSendListener;
+import com.github.lukesky19.commandRestrictions.listener.ServerCommandListener;
+import com.github.lukesky19.commandRestrictions.listener.TabCompleteListener;
+import com.github.lukesky19.commandRestrictions.normalization.CommandAliasManager;
+import com.github.lukesky19.commandRestrictions.ordering.RuleOrderManager;
+import com.github.lukesky19.commandRestrictions.throttle.ThrottleManager;
+import com.github.lukesky19.commandRestrictions.trace.TraceManager;
 import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
 import com.rylinaux.plugman.api.PlugManAPI;
 import io.papermc.paper.plugin.lifecycle.event.types.LifecycleEvents;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The main plugin class.
@@ -36,6 +59,15 @@ import java.util.List;
 public class CommandRestrictions extends JavaPlugin {
     private SettingsManager settingsManager;
     private LocaleManager localeManager;
+    private AuditLog auditLog;
+    private ConsoleWarningLimiter consoleWarningLimiter;
+    private MetricsDumper metricsDumper;
+    private CommandAliasManager commandAliasManager;
+    private BypassManager bypassManager;
+    private ThrottleManager throttleManager;
+    private RuleDirectoryWatcher ruleDirectoryWatcher;
+    private TraceManager traceManager;
+    private RuleOrderManager ruleOrderManager;
 
     /**
      * Called when the plugin is enabled and initializes required classes and data.
@@ -49,8 +81,19 @@ public class CommandRestrictions extends JavaPlugin {
 
         // Create class instances
         settingsManager = new SettingsManager(this);
-        localeManager = new LocaleManager(this, settingsManager);
-        CommandRestrictionsCommand commandRestrictionsCommand = new CommandRestrictionsCommand(this, localeManager);
+        localeManager = new LocaleManager(this, settingsManager::getSettings);
+        auditLog = new AuditLog(this);
+        consoleWarningLimiter = new ConsoleWarningLimiter();
+        metricsDumper = new MetricsDumper(this, settingsManager, auditLog);
+        commandAliasManager = new CommandAliasManager(this);
+        bypassManager = new BypassManager(settingsManager::getSnapshot);
+        throttleManager = new ThrottleManager(this, localeManager);
+        traceManager = new TraceManager(this);
+        ruleOrderManager = new RuleOrderManager(this, settingsManager);
+        ruleDirectoryWatcher = new RuleDirectoryWatcher(this, settingsManager.getRulesDirectory(), this::reloadChangedRules);
+        RestrictionEngine restrictionEngine = new RestrictionEngine(settingsManager::getSnapshot, commandAliasManager::getNormalizer);
+        BlockedCommandReporter blockedCommandReporter = new BlockedCommandReporter(this, localeManager, auditLog, consoleWarningLimiter);
+        CommandRestrictionsCommand commandRestrictionsCommand = new CommandRestrictionsCommand(this, settingsManager, localeManager, auditLog, metricsDumper, traceManager);
 
         // Register the plugin's command
         this.getLifecycleManager().registerEventHandler(LifecycleEvents.COMMANDS,
@@ -60,18 +103,87 @@ public class CommandRestrictions extends JavaPlugin {
                                 List.of("security")));
 
         // Register listeners
-        this.getServer().getPluginManager().registerEvents(new PlayerCommandPreProcessListener(this, settingsManager, localeManager), this);
+        this.getServer().getPluginManager().registerEvents(new PlayerCommandPreProcessListener(this, restrictionEngine, localeManager, blockedCommandReporter, bypassManager, throttleManager, traceManager), this);
+        this.getServer().getPluginManager().registerEvents(new ServerCommandListener(this, restrictionEngine, localeManager, blockedCommandReporter, traceManager), this);
+        this.getServer().getPluginManager().registerEvents(new TabCompleteListener(restrictionEngine, bypassManager), this);
+        this.getServer().getPluginManager().registerEvents(new PlayerCommandSendListener(settingsManager, commandAliasManager, bypassManager), this);
+        this.getServer().getPluginManager().registerEvents(new PlayerConnectionListener(bypassManager, throttleManager), this);
+        this.getServer().getPluginManager().registerEvents(new CommandRegistrationListener(commandAliasManager), this);
 
-        // Reload plugin data.
-        reload();
+        // Build the alias table from the commands registered so far. It is refreshed as other plugins register theirs.
+        commandAliasManager.refresh();
+
+        // Let other plugins check the commands they run themselves, which skip the listeners.
+        this.getServer().getServicesManager().register(RestrictionService.class, new EngineRestrictionService(restrictionEngine, bypassManager), this, ServicePriority.Normal);
+
+        // Reload plugin data. Wait for the first load so no command is sent before the rules are ready.
+        reload().join();
+    }
+
+    /**
+     * Called when the plugin is disabled and stops the plugin's background threads.
+     */
+    @Override
+    public void onDisable() {
+        this.getServer().getServicesManager().unregisterAll(this);
+        if(settingsManager != null) settingsManager.shutdown();
+        if(auditLog != null) auditLog.shutdown();
+        if(ruleDirectoryWatcher != null) ruleDirectoryWatcher.shutdown();
     }
 
     /**
      * Reloads plugin data.
+     * The settings are loaded and compiled on a background thread while the previous rules stay in use.
+     * @return A {@link CompletableFuture} that completes with the new {@link RuleSnapshot}, or null if the settings failed to load.
      */
-    public void reload() {
-        settingsManager.reload();
+    public CompletableFuture<RuleSnapshot> reload() {
+        return settingsManager.reload().thenApply(this::applySnapshot);
+    }
+
+    /**
+     * Reloads plugin data after a file in the rules directory changed.
+     * Nothing is applied if no file actually changed.
+     */
+    private void reloadChangedRules() {
+        RuleSnapshot previous = settingsManager.getSnapshot();
+        settingsManager.reloadIfChanged().thenAccept(snapshot -> {
+            if(snapshot == null || snapshot == previous) return;
+
+            this.getComponentLogger().info(AdventureUtil.serialize("<aqua>Reloaded the rules after a change in the rules directory. Compiled</aqua> <white>" + snapshot.ruleCount() + "</white> <aqua>rules.</aqua>"));
+            applySnapshot(snapshot);
+        });
+    }
+
+    /**
+     * Applies newly loaded settings to the rest of the plugin.
+     * @param snapshot The new {@link RuleSnapshot}, or null if the settings failed to load.
+     * @return The same {@link RuleSnapshot}.
+     */
+    private RuleSnapshot applySnapshot(RuleSnapshot snapshot) {
         localeManager.reload();
+
+        // Only apply the audit settings if the new settings loaded, otherwise the previous ones stay in use.
+        if(snapshot != null) {
+            Settings.Audit audit = snapshot.settings().audit();
+            auditLog.reload(audit);
+            consoleWarningLimiter.configure(audit == null || audit.consoleWarnings(), audit != null ? audit.consoleWarningsPerSecond() : 0);
+            metricsDumper.reload(snapshot.settings().metricsDumpIntervalSeconds());
+            ruleDirectoryWatcher.reload(snapshot.settings().ruleDirectory());
+            traceManager.reload(snapshot.settings().traceBufferSize());
+            ruleOrderManager.reload(snapshot.settings().adaptiveOrdering());
+
+            // Apply the throttle settings on the main thread, which owns the throttle state.
+            // Then resend the command trees so hidden commands match the new rules. This also recomputes exemptions for the new groups.
+            if(this.isEnabled()) {
+                Settings.Throttle throttle = snapshot.settings().throttle();
+                this.getServer().getScheduler().runTask(this, () -> {
+                    throttleManager.reload(throttle);
+                    this.getServer().getOnlinePlayers().forEach(Player::updateCommands);
+                });
+            }
+        }
+
+        return snapshot;
     }
 
     /**
@@ -0,0 +1,145 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.api;
+
+import com.github.lukesky19.commandRestrictions.bypass.BypassManager;
+import com.github.lukesky19.commandRestrictions.engine.RestrictionEngine;
+import com.github.lukesky19.commandRestrictions.engine.RuleSnapshot;
+import com.github.lukesky19.commandRestrictions.engine.Verdict;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This class implements the {@link RestrictionService} with the plugin's {@link RestrictionEngine}.
+ * It only reads the atomically published {@link RuleSnapshot} and the exemption masks the {@link BypassManager} last computed on the main thread,
+ * so it needs no locking, never checks permissions off the main thread and never waits for it.
+ */
+public final class EngineRestrictionService implements RestrictionService {
+    private final RestrictionEngine restrictionEngine;
+    private final BypassManager bypassManager;
+
+    /**
+     * Constructor
+     * @param restrictionEngine The {@link RestrictionEngine} to check commands with.
+     * @param bypassManager The {@link BypassManager} to get player exemptions from.
+     */
+    public EngineRestrictionService(@NotNull RestrictionEngine restrictionEngine, @NotNull BypassManager bypassManager) {
+        this.restrictionEngine = restrictionEngine;
+        this.bypassManager = bypassManager;
+    }
+
+    @Override
+    @NotNull
+    public RestrictionResult check(@NotNull Player player, @NotNull String command) {
+        RuleSnapshot snapshot = getSnapshot();
+        return toResult(snapshot, restrictionEngine.check(snapshot, withSlash(command), bypassManager.getExemptGroups(player, snapshot), false, null));
+    }
+
+    @Override
+    @NotNull
+    public RestrictionResult check(@NotNull String command) {
+        RuleSnapshot snapshot = getSnapshot();
+        return toResult(snapshot, restrictionEngine.check(snapshot, withSlash(command), 0L, false, null));
+    }
+
+    @Override
+    @NotNull
+    public List<RestrictionResult> checkAll(@NotNull Player player, @NotNull Collection<String> commands) {
+        RuleSnapshot snapshot = getSnapshot();
+        return checkAll(snapshot, commands, bypassManager.getExemptGroups(player, snapshot));
+    }
+
+    @Override
+    @NotNull
+    public List<RestrictionResult> checkAll(@NotNull Collection<String> commands) {
+        return checkAll(getSnapshot(), commands, 0L);
+    }
+
+    /**
+     * Checks several commands against one rule snapshot.
+     * @param snapshot The {@link RuleSnapshot} to check against.
+     * @param commands The commands to check, with or without the leading slash.
+     * @param exemptGroups The mask of entry groups to skip.
+     * @return The {@link RestrictionResult} for each command.
+     */
+    @NotNull
+    private List<RestrictionResult> checkAll(@NotNull RuleSnapshot snapshot, @NotNull Collection<String> commands, long exemptGroups) {
+        List<String> slashedCommands = new ArrayList<>(commands.size());
+        for(String command : commands) {
+            slashedCommands.add(withSlash(command));
+        }
+
+        List<Verdict> verdicts = restrictionEngine.checkAll(snapshot, slashedCommands, exemptGroups, false);
+        List<RestrictionResult> results = new ArrayList<>(verdicts.size());
+        for(Verdict verdict : verdicts) {
+            results.add(toResult(snapshot, verdict));
+        }
+
+        return results;
+    }
+
+    /**
+     * Gets the current rule snapshot.
+     * @return The current {@link RuleSnapshot}.
+     * @throws IllegalStateException if the plugin's settings have never loaded successfully.
+     */
+    @NotNull
+    private RuleSnapshot getSnapshot() {
+        @Nullable RuleSnapshot snapshot = restrictionEngine.getSnapshot();
+        // Allowing every command without rules would let callers run anything, so fail instead.
+        if(snapshot == null) throw new IllegalStateException("The settings of CommandRestrictions have not been loaded.");
+        return snapshot;
+    }
+
+    /**
+     * Adds the leading slash the entries are written for to a command.
+     * Commands passed to dispatchCommand are usually written without it.
+     * @param command The command.
+     * @return The command starting with a slash.
+     */
+    @NotNull
+    private static String withSlash(@NotNull String command) {
+        return command.startsWith("/") ? command : "/" + command;
+    }
+
+    /**
+     * Converts a {@link Verdict} into a {@link RestrictionResult}.
+     * @param snapshot The {@link RuleSnapshot} the verdict was made with.
+     * @param verdict The {@link Verdict}.
+     * @return The {@link RestrictionResult}.
+     */
+    @NotNull
+    private static RestrictionResult toResult(@NotNull RuleSnapshot snapshot, @NotNull Verdict verdict) {
+        if(!verdict.blocked()) return RestrictionResult.ALLOWED;
+
+        RestrictionResult.Reason reason = switch(verdict.type()) {
+            case ALLOW -> RestrictionResult.Reason.ALLOWED;
+            case BLOCK_ALL -> RestrictionResult.Reason.BLOCK_ALL;
+            case BLOCKED_TEXT -> RestrictionResult.Reason.BLOCKED_TEXT;
+            case MATCH_TIMEOUT -> RestrictionResult.Reason.MATCH_TIMEOUT;
+        };
+
+        String entry = snapshot.compiledRules().entries().get(verdict.entryIndex()).description();
+        return new RestrictionResult(reason, verdict.entryIndex(), entry, verdict.matchedText());
+    }
+}
@@ -0,0 +1,69 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * This class represents the result of checking a command through the {@link RestrictionService}.
+ * @param reason The {@link Reason} explaining why the command is allowed or blocked.
+ * @param entryIndex The index of the entry that blocked the command in the order entries are loaded, or -1 if the command is allowed.
+ * @param entry The regex or tokens of the entry that blocked the command, or null if the command is allowed.
+ * @param matchedText The text that caused the command to be blocked, or null if the command is allowed or the match timed out.
+ */
+public record RestrictionResult(
+        @NotNull Reason reason,
+        int entryIndex,
+        @Nullable String entry,
+        @Nullable String matchedText) {
+    /**
+     * The result for commands that no entry blocks.
+     */
+    public static final RestrictionResult ALLOWED = new RestrictionResult(Reason.ALLOWED, -1, null, null);
+
+    /**
+     * Checks if the command would be blocked.
+     * @return true if blocked, false if not.
+     */
+    public boolean blocked() {
+        return reason != Reason.ALLOWED;
+    }
+
+    /**
+     * The reasons a command can be allowed or blocked for.
+     */
+    public enum Reason {
+        /**
+         * No entry blocked the command.
+         */
+        ALLOWED,
+        /**
+         * An entry with block-all-matches enabled matched the command.
+         */
+        BLOCK_ALL,
+        /**
+         * A group captured by an entry's regex, or the checked token of a token entry, contained blocked text.
+         */
+        BLOCKED_TEXT,
+        /**
+         * An entry took longer than its match budget to check the command, or the entry is quarantined, and timeouts fail closed.
+         */
+        MATCH_TIMEOUT
+    }
+}
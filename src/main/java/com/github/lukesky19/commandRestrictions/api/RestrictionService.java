@@ -0,0 +1,75 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.api;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This interface lets other plugins check commands against the configured entries without running them,
+ * for example to validate commands they are about to run through {@link org.bukkit.Server#dispatchCommand}, which skips the checks of this plugin.
+ * Get it from Bukkit's {@link org.bukkit.plugin.ServicesManager}.
+ * Every method can be called from any thread, and checking a command never records it in the statistics.
+ */
+public interface RestrictionService {
+    /**
+     * Checks a command for a player, skipping the entry groups the player has the bypass permission for.
+     * The bypass permissions are the ones last checked on the main thread, when the player joined, changed worlds or was sent the command tree,
+     * so a permission granted during the current tick may not apply yet.
+     * @param player The {@link Player} the command would be run for.
+     * @param command The command to check, with or without the leading slash.
+     * @return The {@link RestrictionResult} for the command.
+     * @throws IllegalStateException if the plugin's settings have never loaded successfully.
+     */
+    @NotNull
+    RestrictionResult check(@NotNull Player player, @NotNull String command);
+
+    /**
+     * Checks a command against every entry, as if it was sent by a player without any bypass permissions.
+     * @param command The command to check, with or without the leading slash.
+     * @return The {@link RestrictionResult} for the command.
+     * @throws IllegalStateException if the plugin's settings have never loaded successfully.
+     */
+    @NotNull
+    RestrictionResult check(@NotNull String command);
+
+    /**
+     * Checks several commands for a player in one pass, skipping the entry groups the player has the bypass permission for.
+     * The bypass permissions are the ones last checked on the main thread, like {@link #check(Player, String)}.
+     * Every command is checked against the same rules, even if the plugin is reloaded while they are checked.
+     * @param player The {@link Player} the commands would be run for.
+     * @param commands The commands to check, with or without the leading slash.
+     * @return The {@link RestrictionResult} for each command, in the iteration order of the commands.
+     * @throws IllegalStateException if the plugin's settings have never loaded successfully.
+     */
+    @NotNull
+    List<RestrictionResult> checkAll(@NotNull Player player, @NotNull Collection<String> commands);
+
+    /**
+     * Checks several commands against every entry in one pass, as if they were sent by a player without any bypass permissions.
+     * Every command is checked against the same rules, even if the plugin is reloaded while they are checked.
+     * @param commands The commands to check, with or without the leading slash.
+     * @return The {@link RestrictionResult} for each command, in the iteration order of the commands.
+     * @throws IllegalStateException if the plugin's settings have never loaded successfully.
+     */
+    @NotNull
+    List<RestrictionResult> checkAll(@NotNull Collection<String> commands);
+}
@@ -0,0 +1,244 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.audit;
+
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class writes blocked commands to a rotating audit log file.
+ * Records are added to a lock-free queue by the thread that blocked the command and written in batches by a background thread.
+ */
+public class AuditLog {
+    private static final String FILE_NAME = "audit.log";
+
+    private final Plugin commandRestrictions;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile Writer writer;
+
+    /**
+     * Constructor
+     * @param commandRestrictions The plugin's class.
+     */
+    public AuditLog(@NotNull Plugin commandRestrictions) {
+        this.commandRestrictions = commandRestrictions;
+    }
+
+    /**
+     * Restarts the audit log with new settings. Records queued before the reload are written first.
+     * @param audit The {@link Settings.Audit} settings, or null to disable the audit log.
+     */
+    public void reload(@Nullable Settings.Audit audit) {
+        Writer newWriter = null;
+        if(audit != null && audit.enabled()) {
+            newWriter = new Writer(
+                    commandRestrictions.getDataFolder().toPath().resolve("logs"),
+                    audit.flushIntervalMs() > 0 ? audit.flushIntervalMs() : 1000,
+                    audit.queueCapacity() > 0 ? audit.queueCapacity() : 10000,
+                    (audit.maxFileSizeKb() > 0 ? audit.maxFileSizeKb() : 10240) * 1024L,
+                    Math.max(audit.maxFiles(), 1));
+        }
+
+        Writer oldWriter = writer;
+        writer = newWriter;
+        if(oldWriter != null) oldWriter.close();
+    }
+
+    /**
+     * Stops the audit log and writes any queued records.
+     */
+    public void shutdown() {
+        Writer oldWriter = writer;
+        writer = null;
+        if(oldWriter != null) oldWriter.close();
+    }
+
+    /**
+     * Queues a record to be written. This never blocks; if the queue is full the record is dropped and counted.
+     * @param record The {@link AuditRecord} to write.
+     */
+    public void submit(@NotNull AuditRecord record) {
+        Writer current = writer;
+        if(current != null) current.submit(record);
+    }
+
+    /**
+     * Gets the number of records written to the audit log since the plugin was enabled.
+     * @return The number of written records.
+     */
+    public long written() {
+        return written.sum();
+    }
+
+    /**
+     * Gets the number of records dropped because the queue was full since the plugin was enabled.
+     * @return The number of dropped records.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * The queue and background thread of the audit log for a single set of settings.
+     */
+    private final class Writer {
+        private final Path directory;
+        private final int queueCapacity;
+        private final long maxFileSize;
+        private final int maxFiles;
+        private final ConcurrentLinkedQueue<AuditRecord> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final ScheduledExecutorService executor;
+        private final StringBuilder buffer = new StringBuilder();
+        private FileChannel channel;
+
+        private Writer(@NotNull Path directory, int flushIntervalMs, int queueCapacity, long maxFileSize, int maxFiles) {
+            this.directory = directory;
+            this.queueCapacity = queueCapacity;
+            this.maxFileSize = maxFileSize;
+            this.maxFiles = maxFiles;
+            this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "CommandRestrictions-Audit");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            executor.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+
+        private void submit(@NotNull AuditRecord record) {
+            if(queued.incrementAndGet() > queueCapacity) {
+                queued.decrementAndGet();
+                dropped.increment();
+                return;
+            }
+
+            queue.offer(record);
+        }
+
+        /**
+         * Writes every queued record in a single write. Only called from the writer's thread.
+         */
+        private void flush() {
+            int count = 0;
+            AuditRecord record;
+            while((record = queue.poll()) != null) {
+                record.appendJson(buffer);
+                count++;
+            }
+            if(count == 0) return;
+
+            queued.addAndGet(-count);
+
+            try {
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(buffer.toString());
+                FileChannel fileChannel = openChannel(bytes.remaining());
+                while(bytes.hasRemaining()) {
+                    fileChannel.write(bytes);
+                }
+
+                written.add(count);
+            } catch (IOException exception) {
+                ComponentLogger logger = commandRestrictions.getComponentLogger();
+                logger.error(AdventureUtil.serialize("<red>Failed to write to the audit log: " + exception.getMessage() + "</red>"));
+                dropped.add(count);
+            } finally {
+                buffer.setLength(0);
+            }
+        }
+
+        /**
+         * Gets the channel to write to, rotating the file first if the write would make it too large.
+         * @param writeSize The number of bytes about to be written.
+         * @return The {@link FileChannel} of the current audit log file.
+         * @throws IOException If the file can't be opened or rotated.
+         */
+        @NotNull
+        private FileChannel openChannel(int writeSize) throws IOException {
+            if(channel != null && channel.size() > 0 && channel.size() + writeSize > maxFileSize) {
+                channel.close();
+                channel = null;
+                rotate();
+            }
+
+            if(channel == null) {
+                Files.createDirectories(directory);
+                channel = FileChannel.open(directory.resolve(FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+
+            return channel;
+        }
+
+        /**
+         * Renames audit.log to audit.1.log, audit.1.log to audit.2.log and so on, deleting the oldest file.
+         * @throws IOException If a file can't be moved or deleted.
+         */
+        private void rotate() throws IOException {
+            Files.deleteIfExists(directory.resolve("audit." + maxFiles + ".log"));
+            for(int i = maxFiles - 1; i >= 1; i--) {
+                Path source = directory.resolve("audit." + i + ".log");
+                if(Files.exists(source)) {
+                    Files.move(source, directory.resolve("audit." + (i + 1) + ".log"), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+
+            Files.move(directory.resolve(FILE_NAME), directory.resolve("audit.1.log"), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        /**
+         * Stops the background thread, then writes the remaining records and closes the file.
+         */
+        private void close() {
+            executor.shutdown();
+            try {
+                if(!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+
+            flush();
+
+            try {
+                if(channel != null) channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.audit;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * This class represents a single blocked command written to the audit log.
+ * @param timestamp The time the command was blocked.
+ * @param playerId The {@link UUID} of the player that sent the command, or null if it wasn't sent by a player.
+ * @param sender The name of the command sender.
+ * @param command The command that was blocked.
+ * @param entryIndex The index of the entry that blocked the command.
+ * @param reason The reason the command was blocked.
+ * @param matchedText The text that caused the command to be blocked.
+ */
+public record AuditRecord(
+        @NotNull Instant timestamp,
+        @Nullable UUID playerId,
+        @NotNull String sender,
+        @NotNull String command,
+        int entryIndex,
+        @NotNull String reason,
+        @Nullable String matchedText) {
+    /**
+     * Appends this record to a builder as a single line of JSON.
+     * @param builder The {@link StringBuilder} to append to.
+     */
+    public void appendJson(@NotNull StringBuilder builder) {
+        builder.append("{\"timestamp\":\"").append(timestamp).append('"');
+        builder.append(",\"player\":");
+        appendString(builder, playerId != null ? playerId.toString() : null);
+        builder.append(",\"sender\":");
+        appendString(builder, sender);
+        builder.append(",\"command\":");
+        appendString(builder, command);
+        builder.append(",\"entry\":").append(entryIndex);
+        builder.append(",\"reason\":");
+        appendString(builder, reason);
+        builder.append(",\"text\":");
+        appendString(builder, matchedText);
+        builder.append("}\n");
+    }
+
+    private static void appendString(@NotNull StringBuilder builder, @Nullable String value) {
+        if(value == null) {
+            builder.append("null");
+            return;
+        }
+
+        builder.append('"');
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch(c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if(c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+                }
+            }
+        }
+        builder.append('"');
+    }
+}
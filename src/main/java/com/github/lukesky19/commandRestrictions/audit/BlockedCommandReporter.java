@@ -0,0 +1,92 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.audit;
+
+import com.github.lukesky19.commandRestrictions.config.locale.LocaleManager;
+import com.github.lukesky19.commandRestrictions.config.locale.RenderedLocale;
+import com.github.lukesky19.commandRestrictions.engine.Verdict;
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Instant;
+
+/**
+ * This class tells the sender, the audit log and the console about a blocked command, whatever its source.
+ */
+public class BlockedCommandReporter {
+    private final Plugin commandRestrictions;
+    private final LocaleManager localeManager;
+    private final AuditLog auditLog;
+    private final ConsoleWarningLimiter consoleWarningLimiter;
+
+    /**
+     * Constructor
+     * @param commandRestrictions The plugin's class.
+     * @param localeManager A {@link LocaleManager} instance.
+     * @param auditLog The {@link AuditLog} to write blocked commands to.
+     * @param consoleWarningLimiter The {@link ConsoleWarningLimiter} for blocked command warnings.
+     */
+    public BlockedCommandReporter(
+            @NotNull Plugin commandRestrictions,
+            @NotNull LocaleManager localeManager,
+            @NotNull AuditLog auditLog,
+            @NotNull ConsoleWarningLimiter consoleWarningLimiter) {
+        this.commandRestrictions = commandRestrictions;
+        this.localeManager = localeManager;
+        this.auditLog = auditLog;
+        this.consoleWarningLimiter = consoleWarningLimiter;
+    }
+
+    /**
+     * Reports a blocked command.
+     * Players are sent a message in their client's language, the command is written to the audit log,
+     * and a warning is logged to console unless console warnings are disabled or over the rate limit.
+     * @param sender The {@link CommandSender} that sent the command.
+     * @param command The command as it was sent.
+     * @param verdict The {@link Verdict} that blocked the command.
+     */
+    public void report(@NotNull CommandSender sender, @NotNull String command, @NotNull Verdict verdict) {
+        ComponentLogger logger = commandRestrictions.getComponentLogger();
+        RenderedLocale locale = localeManager.getRenderedLocale();
+
+        // Send the player a message in their client's language and record the incident.
+        Player player = sender instanceof Player senderPlayer ? senderPlayer : null;
+        if(player != null) {
+            player.sendMessage(localeManager.getRenderedLocale(player.locale()).blockedCommandPlayerMessage());
+        }
+        auditLog.submit(new AuditRecord(Instant.now(), player != null ? player.getUniqueId() : null, sender.getName(), command, verdict.entryIndex(), verdict.type().name(), verdict.matchedText()));
+
+        // Log the incident to console, unless console warnings are disabled or over the rate limit.
+        if(consoleWarningLimiter.tryAcquire()) {
+            int suppressed = consoleWarningLimiter.takeSuppressed();
+            if(suppressed > 0) {
+                logger.warn(AdventureUtil.serialize("<red>" + suppressed + " blocked command warnings were suppressed by the rate limit.</red>"));
+            }
+
+            if(verdict.type() != Verdict.Type.BLOCKED_TEXT) {
+                logger.warn(locale.blockedCommandConsoleMessage(command));
+            } else {
+                logger.warn(locale.blockedTextConsoleMessage(command));
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.audit;
+
+/**
+ * This class limits how many blocked command warnings are logged to console per second.
+ * Warnings over the limit are counted so they can be reported as a single summary line.
+ */
+public final class ConsoleWarningLimiter {
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private boolean enabled = true;
+    private int warningsPerSecond;
+    private long windowStart;
+    private int warnings;
+    private int suppressed;
+    private int suppressedToReport;
+
+    /**
+     * Updates the limiter's configuration.
+     * @param enabled Whether blocked command warnings should be logged at all.
+     * @param warningsPerSecond The maximum number of warnings per second. 0 or less means no limit.
+     */
+    public synchronized void configure(boolean enabled, int warningsPerSecond) {
+        this.enabled = enabled;
+        this.warningsPerSecond = warningsPerSecond;
+    }
+
+    /**
+     * Checks if a warning may be logged now and counts it.
+     * @return true if the warning should be logged, false if it should be suppressed.
+     */
+    public synchronized boolean tryAcquire() {
+        if(!enabled) return false;
+        if(warningsPerSecond <= 0) return true;
+
+        long now = System.nanoTime();
+        if(now - windowStart >= WINDOW_NANOS) {
+            windowStart = now;
+            warnings = 0;
+            suppressedToReport += suppressed;
+            suppressed = 0;
+        }
+
+        if(warnings < warningsPerSecond) {
+            warnings++;
+            return true;
+        }
+
+        suppressed++;
+        return false;
+    }
+
+    /**
+     * Gets the number of warnings suppressed in previous windows that haven't been reported yet, and resets it.
+     * @return The number of suppressed warnings to report.
+     */
+    public synchronized int takeSuppressed() {
+        int count = suppressedToReport;
+        suppressedToReport = 0;
+        return count;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.bypass;
+
+import com.github.lukesky19.commandRestrictions.engine.RuleCompiler;
+import com.github.lukesky19.commandRestrictions.engine.RuleSnapshot;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * This class manages which entry groups each online player is exempt from.
+ * Each player's exemptions are stored as a mask with one bit per group, so checking a command never calls {@link Player#hasPermission(String)}.
+ * Permissions aren't safe to check off the main thread, so the masks are only computed there: on join, on world change,
+ * and when the command tree is resent, which happens after a permission change and after every reload.
+ * Callers on any thread read the last computed mask.
+ */
+public class BypassManager {
+    /**
+     * The prefix of the permission that exempts a player from an entry group.
+     */
+    public static final String BYPASS_PERMISSION_PREFIX = "commandrestrictions.bypass.";
+
+    private final Supplier<RuleSnapshot> snapshots;
+    private volatile ExemptionTable exemptions = ExemptionTable.EMPTY;
+
+    /**
+     * Constructor
+     * @param snapshots A {@link Supplier} of the current {@link RuleSnapshot}, which may supply null if the settings never loaded.
+     */
+    public BypassManager(@NotNull Supplier<RuleSnapshot> snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Gets the entry groups a player is exempt from in a rule snapshot. Safe to call from any thread.
+     * Snapshots that only reorder entries keep their groups, so the stored mask stays valid.
+     * If the mask was computed before a reload that changed the groups, its bits are moved to the new group indexes until it is recomputed.
+     * @param player The {@link Player}.
+     * @param snapshot The {@link RuleSnapshot} the mask is for.
+     * @return The mask of exempt groups, with one bit per index in {@link com.github.lukesky19.commandRestrictions.engine.CompiledRules#groups()}.
+     */
+    public long getExemptGroups(@NotNull Player player, @NotNull RuleSnapshot snapshot) {
+        ExemptionTable table = exemptions;
+        long mask = table.get(player.getUniqueId());
+
+        List<String> groups = snapshot.compiledRules().groups();
+        if(mask == 0L || table.groups() == groups || table.groups().equals(groups)) return mask;
+
+        return ExemptionTable.remap(mask, table.groups(), groups);
+    }
+
+    /**
+     * Recomputes a player's exemptions for the current rule snapshot. Must be called on the main thread.
+     * @param player The {@link Player}.
+     */
+    public synchronized void update(@NotNull Player player) {
+        @Nullable RuleSnapshot snapshot = snapshots.get();
+        if(snapshot == null) return;
+
+        List<String> groups = snapshot.compiledRules().groups();
+
+        long mask = 0L;
+        int groupCount = Math.min(groups.size(), RuleCompiler.MAX_GROUPS);
+        for(int i = 0; i < groupCount; i++) {
+            if(player.hasPermission(BYPASS_PERMISSION_PREFIX + groups.get(i))) {
+                mask |= 1L << i;
+            }
+        }
+
+        exemptions = exemptions.with(groups, player.getUniqueId(), mask);
+    }
+
+    /**
+     * Forgets a player's exemptions.
+     * @param playerId The {@link UUID} of the player.
+     */
+    public synchronized void remove(@NotNull UUID playerId) {
+        exemptions = exemptions.without(playerId);
+    }
+}
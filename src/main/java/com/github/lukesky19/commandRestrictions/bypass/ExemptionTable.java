@@ -0,0 +1,187 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.bypass;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This class is an immutable open addressing table of player {@link UUID} to exemption mask.
+ * Each UUID is stored as its two halves in a flat long array next to the masks, so a lookup allocates nothing and boxes nothing.
+ * Changes create a new table, so readers on any thread always see a complete table without locking.
+ */
+final class ExemptionTable {
+    /**
+     * The table without any players.
+     */
+    static final ExemptionTable EMPTY = new ExemptionTable(List.of(), new long[0], new long[0], new boolean[0], 0);
+
+    private final List<String> groups;
+    private final long[] keys;
+    private final long[] masks;
+    private final boolean[] used;
+    private int size;
+
+    /**
+     * Constructor
+     * @param groups The entry groups the masks were computed for.
+     * @param keys The most and least significant bits of the UUID in each slot.
+     * @param masks The mask in each slot.
+     * @param used Whether each slot holds a player.
+     * @param size The number of players in the table.
+     */
+    private ExemptionTable(@NotNull List<String> groups, @NotNull long[] keys, @NotNull long[] masks, @NotNull boolean[] used, int size) {
+        this.groups = groups;
+        this.keys = keys;
+        this.masks = masks;
+        this.used = used;
+        this.size = size;
+    }
+
+    /**
+     * Gets the entry groups the masks were computed for. Bit i of a mask is the group at index i.
+     * @return The {@link List} of group names.
+     */
+    @NotNull
+    List<String> groups() {
+        return groups;
+    }
+
+    /**
+     * Gets the number of players in the table.
+     * @return The number of players.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets a player's mask.
+     * @param playerId The {@link UUID} of the player.
+     * @return The mask of exempt groups, or 0 if the player isn't in the table.
+     */
+    long get(@NotNull UUID playerId) {
+        if(size == 0) return 0L;
+
+        int slot = find(playerId.getMostSignificantBits(), playerId.getLeastSignificantBits());
+        return used[slot] ? masks[slot] : 0L;
+    }
+
+    /**
+     * Creates a copy of the table with a player's mask set.
+     * If the mask was computed for other groups, the masks of every other player are moved to the new groups with {@link #remap(long, List, List)}.
+     * @param groups The entry groups the mask was computed for.
+     * @param playerId The {@link UUID} of the player.
+     * @param mask The mask of exempt groups.
+     * @return The new {@link ExemptionTable}.
+     */
+    @NotNull
+    ExemptionTable with(@NotNull List<String> groups, @NotNull UUID playerId, long mask) {
+        boolean sameGroups = groups == this.groups || groups.equals(this.groups);
+
+        // Keep the table at most half full so probe sequences stay short.
+        int capacity = Math.max(8, used.length);
+        while(capacity < (size + 1) * 2) capacity <<= 1;
+
+        ExemptionTable table = new ExemptionTable(groups, new long[capacity * 2], new long[capacity], new boolean[capacity], 0);
+        for(int slot = 0; slot < used.length; slot++) {
+            if(used[slot]) table.put(keys[slot * 2], keys[slot * 2 + 1], sameGroups ? masks[slot] : remap(masks[slot], this.groups, groups));
+        }
+        table.put(playerId.getMostSignificantBits(), playerId.getLeastSignificantBits(), mask);
+
+        return table;
+    }
+
+    /**
+     * Creates a copy of the table without a player.
+     * @param playerId The {@link UUID} of the player.
+     * @return The new {@link ExemptionTable}, or this table if the player isn't in it.
+     */
+    @NotNull
+    ExemptionTable without(@NotNull UUID playerId) {
+        long most = playerId.getMostSignificantBits();
+        long least = playerId.getLeastSignificantBits();
+        if(size == 0 || !used[find(most, least)]) return this;
+
+        // Rebuild instead of deleting in place, so no probe sequence is broken by the removed slot.
+        ExemptionTable table = new ExemptionTable(groups, new long[keys.length], new long[masks.length], new boolean[used.length], 0);
+        for(int slot = 0; slot < used.length; slot++) {
+            if(used[slot] && (keys[slot * 2] != most || keys[slot * 2 + 1] != least)) {
+                table.put(keys[slot * 2], keys[slot * 2 + 1], masks[slot]);
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Moves the bits of a mask computed for one list of groups to the indexes of the same groups in another list.
+     * Groups that are new in the other list are not exempt, since no permission was checked for them.
+     * @param mask The mask of exempt groups.
+     * @param from The entry groups the mask was computed for.
+     * @param to The entry groups to move the bits to.
+     * @return The moved mask.
+     */
+    static long remap(long mask, @NotNull List<String> from, @NotNull List<String> to) {
+        long moved = 0L;
+        for(int i = 0; i < Math.min(from.size(), Long.SIZE); i++) {
+            if((mask & 1L << i) == 0) continue;
+
+            int index = to.indexOf(from.get(i));
+            if(index >= 0 && index < Long.SIZE) moved |= 1L << index;
+        }
+
+        return moved;
+    }
+
+    /**
+     * Stores a mask while the table is being built. Only called on tables that aren't published yet.
+     * @param most The most significant bits of the UUID.
+     * @param least The least significant bits of the UUID.
+     * @param mask The mask of exempt groups.
+     */
+    private void put(long most, long least, long mask) {
+        int slot = find(most, least);
+        if(!used[slot]) {
+            used[slot] = true;
+            keys[slot * 2] = most;
+            keys[slot * 2 + 1] = least;
+            size++;
+        }
+        masks[slot] = mask;
+    }
+
+    /**
+     * Finds the slot of a UUID, or the empty slot it would be stored in.
+     * @param most The most significant bits of the UUID.
+     * @param least The least significant bits of the UUID.
+     * @return The slot index.
+     */
+    private int find(long most, long least) {
+        long hash = most ^ least;
+        // Mix the high bits in, the capacity is a power of two.
+        int slot = (int) (hash ^ (hash >>> 32)) & (used.length - 1);
+        while(used[slot] && (keys[slot * 2] != most || keys[slot * 2 + 1] != least)) {
+            slot = (slot + 1) & (used.length - 1);
+        }
+
+        return slot;
+    }
+}
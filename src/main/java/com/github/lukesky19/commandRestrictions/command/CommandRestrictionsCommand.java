@@ -18,31 +18,75 @@
 package com.github.lukesky19.commandRestrictions.command;
 
 import com.github.lukesky19.commandRestrictions.CommandRestrictions;
+import com.github.lukesky19.commandRestrictions.audit.AuditLog;
 import com.github.lukesky19.commandRestrictions.config.locale.Locale;
 import com.github.lukesky19.commandRestrictions.config.locale.LocaleManager;
+import com.github.lukesky19.commandRestrictions.config.settings.SettingsManager;
+import com.github.lukesky19.commandRestrictions.engine.LatencyHistogram;
+import com.github.lukesky19.commandRestrictions.engine.RuleMetrics;
+import com.github.lukesky19.commandRestrictions.engine.RuleOrder;
+import com.github.lukesky19.commandRestrictions.engine.RuleSnapshot;
+import com.github.lukesky19.commandRestrictions.engine.VerdictCache;
+import com.github.lukesky19.commandRestrictions.metrics.MetricsDumper;
+import com.github.lukesky19.commandRestrictions.trace.TraceManager;
 import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.tree.LiteralCommandNode;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import io.papermc.paper.command.brigadier.Commands;
+import io.papermc.paper.command.brigadier.argument.ArgumentTypes;
+import io.papermc.paper.command.brigadier.argument.resolvers.selector.PlayerSelectorArgumentResolver;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * This class creates the plugin command to be registered using the Lifecycle API.
  */
 public class CommandRestrictionsCommand {
+    private static final int STATS_ENTRIES_SHOWN = 10;
+
     private final CommandRestrictions commandRestrictions;
+    private final SettingsManager settingsManager;
     private final LocaleManager localeManager;
+    private final AuditLog auditLog;
+    private final MetricsDumper metricsDumper;
+    private final TraceManager traceManager;
 
     /**
      * Constructor
      * @param commandRestrictions The plugin's class.
+     * @param settingsManager A {@link SettingsManager} instance.
      * @param localeManager A {@link LocaleManager} instance.
+     * @param auditLog The {@link AuditLog} to report the counters of.
+     * @param metricsDumper The {@link MetricsDumper} to write statistics with.
+     * @param traceManager The {@link TraceManager} to select traced commands and dump their events with.
      */
-    public CommandRestrictionsCommand(CommandRestrictions commandRestrictions, LocaleManager localeManager) {
+    public CommandRestrictionsCommand(
+            CommandRestrictions commandRestrictions,
+            SettingsManager settingsManager,
+            LocaleManager localeManager,
+            AuditLog auditLog,
+            MetricsDumper metricsDumper,
+            TraceManager traceManager) {
         this.commandRestrictions = commandRestrictions;
+        this.settingsManager = settingsManager;
         this.localeManager = localeManager;
+        this.auditLog = auditLog;
+        this.metricsDumper = metricsDumper;
+        this.traceManager = traceManager;
     }
 
     /**
@@ -56,21 +100,265 @@ public class CommandRestrictionsCommand {
         builder.then(Commands.literal("reload")
             .requires(ctx -> ctx.getSender().hasPermission("commandrestrictions.commands.commandrestrictions.reload"))
             .executes(ctx -> {
-                ComponentLogger logger = commandRestrictions.getComponentLogger();
+                CommandSender sender = ctx.getSource().getSender();
+
+                // The reload finishes on a background thread, so the result is sent when it completes.
+                commandRestrictions.reload().whenComplete((snapshot, throwable) -> {
+                    Locale locale = localeManager.getLocale();
+
+                    if(throwable != null || snapshot == null) {
+                        if(throwable != null) {
+                            commandRestrictions.getComponentLogger().error(AdventureUtil.serialize("<red>Failed to reload the plugin.</red>"), throwable);
+                        }
+
+                        sendMessage(sender, locale, locale.reloadFailed(), List.of());
+                        return;
+                    }
+
+                    sendMessage(sender, locale, locale.reload(), List.of(
+                            Placeholder.parsed("rules", String.valueOf(snapshot.ruleCount())),
+                            Placeholder.parsed("time", String.format("%.2f", snapshot.compileMillis()))));
+                });
+
+                return 1;
+            })
+        );
+
+        builder.then(Commands.literal("cache")
+            .requires(ctx -> ctx.getSender().hasPermission("commandrestrictions.commands.commandrestrictions.cache"))
+            .executes(ctx -> {
+                Locale locale = localeManager.getLocale();
+                RuleSnapshot snapshot = settingsManager.getSnapshot();
+                VerdictCache verdictCache = snapshot != null ? snapshot.verdictCache() : null;
+
+                sendMessage(ctx.getSource().getSender(), locale, locale.cacheStats(), List.of(
+                        Placeholder.parsed("size", String.valueOf(verdictCache != null ? verdictCache.size() : 0)),
+                        Placeholder.parsed("capacity", String.valueOf(verdictCache != null ? verdictCache.capacity() : 0)),
+                        Placeholder.parsed("hit_rate", String.format("%.2f", verdictCache != null ? verdictCache.hitRate() * 100 : 0D))));
+
+                return 1;
+            })
+        );
+
+        builder.then(Commands.literal("stats")
+            .requires(ctx -> ctx.getSender().hasPermission("commandrestrictions.commands.commandrestrictions.stats"))
+            .executes(ctx -> {
+                CommandSender sender = ctx.getSource().getSender();
                 Locale locale = localeManager.getLocale();
+                RuleSnapshot snapshot = settingsManager.getSnapshot();
+                if(snapshot == null) {
+                    sendMessage(sender, locale, locale.invalidSettings(), List.of());
+                    return 0;
+                }
+
+                RuleMetrics metrics = snapshot.metrics();
+                LatencyHistogram latency = metrics.latency();
+                sendMessage(sender, locale, locale.statsSummary(), List.of(
+                        Placeholder.parsed("commands", String.valueOf(metrics.commands())),
+                        Placeholder.parsed("p50", formatMicros(latency.percentileNanos(50))),
+                        Placeholder.parsed("p99", formatMicros(latency.percentileNanos(99))),
+                        Placeholder.parsed("max", formatMicros(latency.maxNanos())),
+                        Placeholder.parsed("audit_written", String.valueOf(auditLog.written())),
+                        Placeholder.parsed("audit_dropped", String.valueOf(auditLog.dropped()))));
 
-                commandRestrictions.reload();
+                // Show the entries that blocked or matched the most commands.
+                List<Integer> activeEntries = new ArrayList<>();
+                int unusedEntries = 0;
+                for(int i = 0; i < metrics.entryCount(); i++) {
+                    if(metrics.matches(i) > 0) {
+                        activeEntries.add(i);
+                    } else {
+                        unusedEntries++;
+                    }
+                }
+                activeEntries.sort(Comparator.<Integer>comparingLong(metrics::blocks).thenComparingLong(metrics::matches).reversed());
 
-                if(ctx.getSource().getSender() instanceof Player player) {
-                    player.sendMessage(AdventureUtil.serialize(locale.prefix() + locale.reload()));
-                } else {
-                    logger.info(AdventureUtil.serialize(locale.reload()));
+                for(int i = 0; i < Math.min(STATS_ENTRIES_SHOWN, activeEntries.size()); i++) {
+                    int entryIndex = activeEntries.get(i);
+                    sendMessage(sender, locale, locale.statsEntry(), List.of(
+                            Placeholder.parsed("index", String.valueOf(entryIndex)),
+                            Placeholder.parsed("blocks", String.valueOf(metrics.blocks(entryIndex))),
+                            Placeholder.parsed("matches", String.valueOf(metrics.matches(entryIndex))),
+                            Placeholder.parsed("evaluations", String.valueOf(metrics.evaluations(entryIndex))),
+                            Placeholder.unparsed("regex", snapshot.compiledRules().entries().get(entryIndex).description())));
                 }
 
+                sendMessage(sender, locale, locale.statsUnusedEntries(), List.of(Placeholder.parsed("count", String.valueOf(unusedEntries))));
+
                 return 1;
             })
+            .then(Commands.literal("reset")
+                .executes(ctx -> {
+                    Locale locale = localeManager.getLocale();
+                    RuleSnapshot snapshot = settingsManager.getSnapshot();
+                    if(snapshot != null) snapshot.metrics().reset();
+
+                    sendMessage(ctx.getSource().getSender(), locale, locale.statsReset(), List.of());
+
+                    return 1;
+                })
+            )
+            .then(Commands.literal("dump")
+                .executes(ctx -> {
+                    CommandSender sender = ctx.getSource().getSender();
+
+                    // Writing the file is I/O, so it is done off the main thread.
+                    commandRestrictions.getServer().getScheduler().runTaskAsynchronously(commandRestrictions, () -> {
+                        Locale locale = localeManager.getLocale();
+
+                        Path file = metricsDumper.dump();
+                        if(file != null) {
+                            sendMessage(sender, locale, locale.statsDumped(), List.of(
+                                    Placeholder.unparsed("file", commandRestrictions.getDataFolder().toPath().relativize(file).toString())));
+                        } else {
+                            sendMessage(sender, locale, locale.statsDumpFailed(), List.of());
+                        }
+                    });
+
+                    return 1;
+                })
+            )
+        );
+
+        builder.then(Commands.literal("order")
+            .requires(ctx -> ctx.getSender().hasPermission("commandrestrictions.commands.commandrestrictions.order"))
+            .executes(ctx -> {
+                CommandSender sender = ctx.getSource().getSender();
+                Locale locale = localeManager.getLocale();
+                RuleSnapshot snapshot = settingsManager.getSnapshot();
+                if(snapshot == null) {
+                    sendMessage(sender, locale, locale.invalidSettings(), List.of());
+                    return 0;
+                }
+
+                RuleOrder order = snapshot.compiledRules().order();
+                if(order == null) {
+                    sendMessage(sender, locale, locale.orderFileOrder(), List.of());
+                    return 1;
+                }
+
+                sendMessage(sender, locale, locale.orderSummary(), List.of(
+                        Placeholder.parsed("moved", String.valueOf(order.movedEntries())),
+                        Placeholder.parsed("age", String.valueOf((System.currentTimeMillis() - order.createdMillis()) / 1000))));
+
+                // Show the moved entries at their new positions, with the statistics they were ranked by.
+                int shown = 0;
+                for(int position = 0; position < order.order().length && shown < STATS_ENTRIES_SHOWN; position++) {
+                    int entryIndex = order.order()[position];
+                    if(entryIndex == position) continue;
+
+                    double score = order.scores()[entryIndex];
+                    long evaluations = order.evaluations()[entryIndex];
+                    sendMessage(sender, locale, locale.orderEntry(), List.of(
+                            Placeholder.parsed("position", String.valueOf(position)),
+                            Placeholder.parsed("index", String.valueOf(entryIndex)),
+                            Placeholder.parsed("score", Double.isNaN(score) ? "?" : Double.isInfinite(score) ? "∞" : String.format("%.2f", score)),
+                            Placeholder.parsed("blocks", String.valueOf(order.blocks()[entryIndex])),
+                            Placeholder.parsed("evaluations", String.valueOf(evaluations)),
+                            Placeholder.parsed("cost", formatMicros(evaluations > 0 ? order.costNanos()[entryIndex] / evaluations : 0)),
+                            Placeholder.unparsed("regex", snapshot.compiledRules().entries().get(entryIndex).description())));
+                    shown++;
+                }
+
+                return 1;
+            })
+        );
+
+        builder.then(Commands.literal("trace")
+            .requires(ctx -> ctx.getSender().hasPermission("commandrestrictions.commands.commandrestrictions.trace"))
+            .then(Commands.literal("player")
+                .then(Commands.argument("player", ArgumentTypes.player())
+                    .executes(ctx -> {
+                        Locale locale = localeManager.getLocale();
+                        Player player = ctx.getArgument("player", PlayerSelectorArgumentResolver.class).resolve(ctx.getSource()).getFirst();
+
+                        traceManager.tracePlayer(player);
+                        sendMessage(ctx.getSource().getSender(), locale, locale.tracePlayerStarted(), List.of(Placeholder.unparsed("player", player.getName())));
+
+                        return 1;
+                    })
+                )
+            )
+            .then(Commands.literal("pattern")
+                .then(Commands.argument("pattern", StringArgumentType.greedyString())
+                    .executes(ctx -> {
+                        CommandSender sender = ctx.getSource().getSender();
+                        Locale locale = localeManager.getLocale();
+                        String pattern = StringArgumentType.getString(ctx, "pattern");
+
+                        try {
+                            traceManager.tracePattern(Pattern.compile(pattern));
+                        } catch (PatternSyntaxException patternSyntaxException) {
+                            sendMessage(sender, locale, locale.traceInvalidPattern(), List.of(Placeholder.unparsed("pattern", pattern)));
+                            return 0;
+                        }
+
+                        sendMessage(sender, locale, locale.tracePatternStarted(), List.of(Placeholder.unparsed("pattern", pattern)));
+
+                        return 1;
+                    })
+                )
+            )
+            .then(Commands.literal("off")
+                .executes(ctx -> {
+                    Locale locale = localeManager.getLocale();
+
+                    traceManager.stop();
+                    sendMessage(ctx.getSource().getSender(), locale, locale.traceStopped(), List.of());
+
+                    return 1;
+                })
+            )
+            .then(Commands.literal("dump")
+                .executes(ctx -> {
+                    CommandSender sender = ctx.getSource().getSender();
+
+                    // The events are only formatted now, and writing the file is I/O, so it is done off the main thread.
+                    commandRestrictions.getServer().getScheduler().runTaskAsynchronously(commandRestrictions, () -> {
+                        Locale locale = localeManager.getLocale();
+
+                        try {
+                            TraceManager.TraceDump dump = traceManager.dump();
+                            sendMessage(sender, locale, locale.traceDumped(), List.of(
+                                    Placeholder.parsed("count", String.valueOf(dump.events())),
+                                    Placeholder.unparsed("file", commandRestrictions.getDataFolder().toPath().relativize(dump.file()).toString())));
+                        } catch (IOException ioException) {
+                            commandRestrictions.getComponentLogger().error(AdventureUtil.serialize("<red>Failed to write the trace file: " + ioException.getMessage() + "</red>"));
+                            sendMessage(sender, locale, locale.traceDumpFailed(), List.of());
+                        }
+                    });
+
+                    return 1;
+                })
+            )
         );
 
         return builder.build();
     }
+
+    /**
+     * Formats a latency in nanoseconds as microseconds.
+     * @param nanos The latency in nanoseconds.
+     * @return The formatted latency.
+     */
+    @NotNull
+    private static String formatMicros(long nanos) {
+        return String.format("%.1f", nanos / 1000D);
+    }
+
+    /**
+     * Sends a message to the command sender. Players receive the message with the plugin's prefix, other senders have it logged to console.
+     * @param sender The {@link CommandSender} to send the message to.
+     * @param locale The plugin's {@link Locale}.
+     * @param message The message to send.
+     * @param placeholders A {@link List} of placeholders to use in the message.
+     */
+    private void sendMessage(@NotNull CommandSender sender, @NotNull Locale locale, @NotNull String message, @NotNull List<TagResolver.Single> placeholders) {
+        if(sender instanceof Player player) {
+            player.sendMessage(AdventureUtil.serialize(locale.prefix() + message, placeholders));
+        } else {
+            ComponentLogger logger = commandRestrictions.getComponentLogger();
+            logger.info(AdventureUtil.serialize(message, placeholders));
+        }
+    }
 }
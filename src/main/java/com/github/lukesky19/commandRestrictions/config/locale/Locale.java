@@ -24,20 +24,60 @@ import com.github.lukesky19.skylib.libs.configurate.objectmapping.ConfigSerializ
  * @param configVersion The version of the file.
  * @param prefix The plugin's prefix.
  * @param reload The message sent when the plugin is reloaded.
+ * @param reloadFailed The message sent when the plugin's settings failed to reload and the previous settings are still in use.
  * @param invalidSettings The message sent when the plugin's settings is invalid.
  * @param invalidRegex The message sent when a configured regex is invalid.
  * @param blockedCommandPlayerMessage The message sent to the player when their command was blocked.
  * @param blockedCommandConsoleMessage The message sent to console when a command was blocked due to blocking any match.
  * @param blockedTextConsoleMessage The message sent to console when a command was blocked due to a partial match.
+ * @param cacheStats The message sent when viewing the verdict cache statistics.
+ * @param statsSummary The message sent when viewing the rule statistics, summarizing all commands checked.
+ * @param statsEntry The message sent for each of the most active entries when viewing the rule statistics.
+ * @param statsUnusedEntries The message sent when viewing the rule statistics, with the number of entries that never matched.
+ * @param statsReset The message sent when the rule statistics are reset.
+ * @param statsDumped The message sent when the rule statistics are written to a file.
+ * @param statsDumpFailed The message sent when the rule statistics could not be written to a file.
+ * @param throttledPlayerMessage The message sent to a player when their commands are throttled for sending too many blocked commands.
+ * @param throttledKickMessage The message shown to a player kicked for sending too many commands while throttled.
+ * @param throttledConsoleSummary The message sent to console periodically with the number of commands rejected from a throttled player.
+ * @param tracePlayerStarted The message sent when commands sent by a player start being traced.
+ * @param tracePatternStarted The message sent when commands matching a pattern start being traced.
+ * @param traceInvalidPattern The message sent when the pattern to trace commands with is not valid regex.
+ * @param traceStopped The message sent when tracing is stopped.
+ * @param traceDumped The message sent when the recorded trace events are written to a file.
+ * @param traceDumpFailed The message sent when the recorded trace events could not be written to a file.
+ * @param orderFileOrder The message sent when entries are checked in file order.
+ * @param orderSummary The message sent with the number of entries that were moved and when.
+ * @param orderEntry The message sent for each moved entry, with the statistics it was ranked by.
  */
 @ConfigSerializable
 public record Locale(
         String configVersion,
         String prefix,
         String reload,
+        String reloadFailed,
         String invalidSettings,
         String invalidRegex,
         String blockedCommandPlayerMessage,
         String blockedCommandConsoleMessage,
-        String blockedTextConsoleMessage) {
+        String blockedTextConsoleMessage,
+        String cacheStats,
+        String statsSummary,
+        String statsEntry,
+        String statsUnusedEntries,
+        String statsReset,
+        String statsDumped,
+        String statsDumpFailed,
+        String throttledPlayerMessage,
+        String throttledKickMessage,
+        String throttledConsoleSummary,
+        String tracePlayerStarted,
+        String tracePatternStarted,
+        String traceInvalidPattern,
+        String traceStopped,
+        String traceDumped,
+        String traceDumpFailed,
+        String orderFileOrder,
+        String orderSummary,
+        String orderEntry) {
 }
@@ -17,35 +17,62 @@
 */
 package com.github.lukesky19.commandRestrictions.config.locale;
 
-import com.github.lukesky19.commandRestrictions.CommandRestrictions;
 import com.github.lukesky19.commandRestrictions.config.settings.Settings;
-import com.github.lukesky19.commandRestrictions.config.settings.SettingsManager;
 import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
 import com.github.lukesky19.skylib.api.configurate.ConfigurationUtility;
 import com.github.lukesky19.skylib.libs.configurate.ConfigurateException;
 import com.github.lukesky19.skylib.libs.configurate.yaml.YamlConfigurationLoader;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * This class manages the plugin's locale.
+ * Besides the configured locale, every other locale file is loaded so players can receive messages in their client's language.
  */
 public class LocaleManager {
-    private final CommandRestrictions commandRestrictions;
-    private final SettingsManager settingsManager;
-    private Locale locale;
+    private final Plugin commandRestrictions;
+    private final Supplier<Settings> settings;
+    private volatile LoadedLocales loadedLocales;
     private final Locale DEFAULT_LOCALE = new Locale(
             "1.0.0.0",
             "<dark_red><bold>Security</bold></dark_red> <gray><bold>▪</bold></gray> ",
-            "<aqua>The plugin has been reloaded.</aqua>",
+            "<aqua>The plugin has been reloaded. Compiled</aqua> <white><rules></white> <aqua>rules in</aqua> <white><time> ms</white><aqua>.</aqua>",
+            "<red>Failed to reload the plugin's settings. The previous settings are still in use.</red>",
             "<red>Unable to compare command ran due to invalid plugin settings.</red>",
             "<red>Unable to check command against regex due to a null regex configured.</red>",
             "<red>The command you sent can only be ran through console.</red>",
             "<red>Blocked a command due to regex match:</red> <white><command></white>",
-            "<red>Blocked a command containing blocked text:</red> <white><command></white>");
+            "<red>Blocked a command containing blocked text:</red> <white><command></white>",
+            "<aqua>Verdict cache:</aqua> <white><size>/<capacity></white> <aqua>commands cached,</aqua> <white><hit_rate>%</white> <aqua>hit rate.</aqua>",
+            "<aqua>Checked</aqua> <white><commands></white> <aqua>commands. Latency p50</aqua> <white><p50> µs</white><aqua>, p99</aqua> <white><p99> µs</white><aqua>, max</aqua> <white><max> µs</white><aqua>. Audit log:</aqua> <white><audit_written></white> <aqua>written,</aqua> <white><audit_dropped></white> <aqua>dropped.</aqua>",
+            "<gray>#<index></gray> <white><blocks></white> <aqua>blocks,</aqua> <white><matches></white> <aqua>matches,</aqua> <white><evaluations></white> <aqua>evaluations:</aqua> <gray><regex></gray>",
+            "<aqua>Entries that never matched:</aqua> <white><count></white>",
+            "<aqua>The statistics have been reset.</aqua>",
+            "<aqua>Wrote the statistics to</aqua> <white><file></white><aqua>.</aqua>",
+            "<red>Failed to write the statistics to a file.</red>",
+            "<red>You are sending blocked commands too quickly. Your commands will be ignored for a moment.</red>",
+            "<red>You were kicked for repeatedly sending blocked commands.</red>",
+            "<red>Rejected</red> <white><count></white> <red>commands from</red> <white><player></white> <red>while throttled.</red>",
+            "<aqua>Tracing the commands sent by</aqua> <white><player></white><aqua>.</aqua>",
+            "<aqua>Tracing the commands matching</aqua> <white><pattern></white><aqua>.</aqua>",
+            "<red>The pattern</red> <white><pattern></white> <red>is not valid regex.</red>",
+            "<aqua>Stopped tracing commands. The recorded events are kept until they are dumped or a new trace is started.</aqua>",
+            "<aqua>Wrote</aqua> <white><count></white> <aqua>trace events to</aqua> <white><file></white><aqua>.</aqua>",
+            "<red>Failed to write the trace events to a file.</red>",
+            "<aqua>Entries are checked in file order.</aqua>",
+            "<white><moved></white> <aqua>entries were moved</aqua> <white><age></white> <aqua>seconds ago, ranked by their blocks divided by the average time to check them.</aqua>",
+            "<gray><position>.</gray> <gray>#<index></gray> <white><score></white> <aqua>blocks/ms,</aqua> <white><blocks></white> <aqua>blocks in</aqua> <white><evaluations></white> <aqua>evaluations averaging</aqua> <white><cost> µs</white><aqua>:</aqua> <gray><regex></gray>");
+
+    private final RenderedLocale defaultRenderedLocale = RenderedLocale.render(DEFAULT_LOCALE);
 
     /**
      * Gets the configured locale or the default locale.
@@ -53,21 +80,49 @@ public class LocaleManager {
      */
     @NotNull
     public Locale getLocale() {
-        if(locale == null) return DEFAULT_LOCALE;
+        LoadedLocales loaded = loadedLocales;
+        if(loaded == null) return DEFAULT_LOCALE;
+
+        return loaded.locale();
+    }
+
+    /**
+     * Gets the parsed messages of the configured locale or the default locale.
+     * @return A {@link RenderedLocale}.
+     */
+    @NotNull
+    public RenderedLocale getRenderedLocale() {
+        LoadedLocales loaded = loadedLocales;
+        if(loaded == null) return defaultRenderedLocale;
 
-        return locale;
+        return loaded.renderedLocale();
+    }
+
+    /**
+     * Gets the parsed messages for a client's language.
+     * The locale file named after the exact locale is used first, then any file for the same language, then the configured locale.
+     * The choice is cached per client locale until the next reload.
+     * @param clientLocale The {@link java.util.Locale} of the client.
+     * @return A {@link RenderedLocale}.
+     */
+    @NotNull
+    public RenderedLocale getRenderedLocale(@NotNull java.util.Locale clientLocale) {
+        LoadedLocales loaded = loadedLocales;
+        if(loaded == null) return defaultRenderedLocale;
+
+        return loaded.resolved().computeIfAbsent(clientLocale, key -> resolve(loaded, key));
     }
 
     /**
      * Constructor
      * @param commandRestrictions The plugin's class
-     * @param settingsManager A {@link SettingsManager} instance.
+     * @param settings A {@link Supplier} of the current {@link Settings}, which may supply null if the settings never loaded.
      */
     public LocaleManager(
-            @NotNull CommandRestrictions commandRestrictions,
-            @NotNull SettingsManager settingsManager) {
+            @NotNull Plugin commandRestrictions,
+            @NotNull Supplier<Settings> settings) {
         this.commandRestrictions = commandRestrictions;
-        this.settingsManager = settingsManager;
+        this.settings = settings;
     }
 
     /**
@@ -75,15 +130,15 @@ public class LocaleManager {
      */
     public void reload() {
         ComponentLogger logger = commandRestrictions.getComponentLogger();
-        locale = null;
 
         // Save any default locale files if it doesn't exist on the disk.
         copyDefaultLocales();
 
         // Only load locale if plugin settings is valid.
-        Settings settings = settingsManager.getSettings();
+        Settings settings = this.settings.get();
         if(settings == null || settings.locale() == null) {
             logger.error(AdventureUtil.serialize("<red>Failed to load plugin's locale due to invalid plugin settings.</red>"));
+            loadedLocales = null;
             return;
         }
 
@@ -93,14 +148,89 @@ public class LocaleManager {
 
         // Attempt to load the configured locale.
         YamlConfigurationLoader loader = ConfigurationUtility.getYamlConfigurationLoader(path);
+        Locale loadedLocale;
         try {
-            locale = loader.load().get(Locale.class);
-        } catch (ConfigurateException exception) {
-            throw new RuntimeException(exception);
+            loadedLocale = loader.load().get(Locale.class);
+        } catch (ConfigurateException configurateException) {
+            // Reloads run on the reload thread, so throwing would skip applying the settings that did load.
+            logger.error(AdventureUtil.serialize("<red>Failed to load the locale file " + localeString + ".yml.</red>"));
+            if(configurateException.getMessage() != null) {
+                logger.error(AdventureUtil.serialize(configurateException.getMessage()));
+            }
+            loadedLocales = null;
+            return;
         }
 
         // Validate the configured locale that was loaded.
-        validateLocale();
+        Locale locale = validateLocale(loadedLocale);
+        if(locale == null) {
+            loadedLocales = null;
+            return;
+        }
+
+        // Parse the messages of every locale file once, so no MiniMessage parsing happens when a command is blocked.
+        RenderedLocale renderedLocale = RenderedLocale.render(locale);
+        Map<String, RenderedLocale> renderedLocales = renderOtherLocales(localeString);
+        renderedLocales.put(localeString.toLowerCase(java.util.Locale.ROOT), renderedLocale);
+
+        loadedLocales = new LoadedLocales(locale, renderedLocale, Map.copyOf(renderedLocales), new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Loads and parses every locale file other than the configured one.
+     * Files that fail to load are skipped.
+     * @param configuredLocale The name of the configured locale.
+     * @return A {@link Map} of lower case file name without the extension to {@link RenderedLocale}.
+     */
+    @NotNull
+    private Map<String, RenderedLocale> renderOtherLocales(@NotNull String configuredLocale) {
+        ComponentLogger logger = commandRestrictions.getComponentLogger();
+        Map<String, RenderedLocale> renderedLocales = new HashMap<>();
+
+        File[] files = new File(commandRestrictions.getDataFolder(), "locale").listFiles((dir, name) -> name.endsWith(".yml"));
+        if(files == null) return renderedLocales;
+
+        for(File file : files) {
+            String name = file.getName().substring(0, file.getName().length() - ".yml".length());
+            if(name.equals(configuredLocale)) continue;
+
+            YamlConfigurationLoader loader = ConfigurationUtility.getYamlConfigurationLoader(file.toPath());
+            try {
+                Locale locale = validateLocale(loader.load().get(Locale.class));
+                if(locale != null) {
+                    renderedLocales.put(name.toLowerCase(java.util.Locale.ROOT), RenderedLocale.render(locale));
+                }
+            } catch (ConfigurateException exception) {
+                logger.warn(AdventureUtil.serialize("Failed to load locale file " + file.getName() + "."));
+            }
+        }
+
+        return renderedLocales;
+    }
+
+    /**
+     * Finds the parsed messages that best match a client's language.
+     * @param loaded The {@link LoadedLocales} to pick from.
+     * @param clientLocale The {@link java.util.Locale} of the client.
+     * @return The {@link RenderedLocale} of the exact locale, else of the same language, else of the configured locale.
+     */
+    @NotNull
+    private static RenderedLocale resolve(@NotNull LoadedLocales loaded, @NotNull java.util.Locale clientLocale) {
+        String language = clientLocale.getLanguage().toLowerCase(java.util.Locale.ROOT);
+        if(language.isEmpty()) return loaded.renderedLocale();
+
+        RenderedLocale exact = loaded.renderedLocales().get(clientLocale.toString().toLowerCase(java.util.Locale.ROOT));
+        if(exact != null) return exact;
+
+        // Pick the first file of the language by name, so the choice doesn't depend on the order the files were listed in.
+        String match = null;
+        for(String name : loaded.renderedLocales().keySet()) {
+            if((name.equals(language) || name.startsWith(language + "_")) && (match == null || name.compareTo(match) < 0)) {
+                match = name;
+            }
+        }
+
+        return match != null ? loaded.renderedLocales().get(match) : loaded.renderedLocale();
     }
 
     /**
@@ -115,44 +245,70 @@ public class LocaleManager {
 
     /**
      * Validates the plugin's locale.
+     * Every message that is missing from the file is replaced by the default message, so one missing key doesn't discard the rest of the file.
+     * @param locale The {@link Locale} that was loaded.
+     * @return The loaded {@link Locale} with the default message for every missing message, or null if no locale was loaded.
      */
-    private void validateLocale() {
-        ComponentLogger logger = commandRestrictions.getComponentLogger();
-        if(locale == null) return;
-
-        if(locale.prefix() == null) {
-            logger.warn(AdventureUtil.serialize("No prefix configured in locale file."));
-            locale = DEFAULT_LOCALE;
-            return;
-        }
-
-        if(locale.invalidSettings() == null) {
-            logger.warn(AdventureUtil.serialize("No invalid settings message configured in locale file."));
-            locale = DEFAULT_LOCALE;
-            return;
-        }
+    @Nullable
+    private Locale validateLocale(@Nullable Locale locale) {
+        if(locale == null) return null;
 
-        if(locale.invalidRegex() == null) {
-            logger.warn(AdventureUtil.serialize("No invalid regex message configured in locale file."));
-            locale = DEFAULT_LOCALE;
-            return;
-        }
-
-        if(locale.blockedCommandPlayerMessage() == null) {
-            logger.warn(AdventureUtil.serialize("No blocked player message configured in locale file."));
-            locale = DEFAULT_LOCALE;
-            return;
-        }
+        return new Locale(
+                locale.configVersion(),
+                orDefault(locale.prefix(), DEFAULT_LOCALE.prefix(), "No prefix configured in locale file."),
+                orDefault(locale.reload(), DEFAULT_LOCALE.reload(), "No reload message configured in locale file."),
+                orDefault(locale.reloadFailed(), DEFAULT_LOCALE.reloadFailed(), "No reload failed message configured in locale file."),
+                orDefault(locale.invalidSettings(), DEFAULT_LOCALE.invalidSettings(), "No invalid settings message configured in locale file."),
+                orDefault(locale.invalidRegex(), DEFAULT_LOCALE.invalidRegex(), "No invalid regex message configured in locale file."),
+                orDefault(locale.blockedCommandPlayerMessage(), DEFAULT_LOCALE.blockedCommandPlayerMessage(), "No blocked player message configured in locale file."),
+                orDefault(locale.blockedCommandConsoleMessage(), DEFAULT_LOCALE.blockedCommandConsoleMessage(), "No blocked command console message configured in locale file."),
+                orDefault(locale.blockedTextConsoleMessage(), DEFAULT_LOCALE.blockedTextConsoleMessage(), "No blocked text console message configured in locale file."),
+                orDefault(locale.cacheStats(), DEFAULT_LOCALE.cacheStats(), "No cache stats message configured in locale file."),
+                orDefault(locale.statsSummary(), DEFAULT_LOCALE.statsSummary(), "No stats summary message configured in locale file."),
+                orDefault(locale.statsEntry(), DEFAULT_LOCALE.statsEntry(), "No stats entry message configured in locale file."),
+                orDefault(locale.statsUnusedEntries(), DEFAULT_LOCALE.statsUnusedEntries(), "No stats unused entries message configured in locale file."),
+                orDefault(locale.statsReset(), DEFAULT_LOCALE.statsReset(), "No stats reset message configured in locale file."),
+                orDefault(locale.statsDumped(), DEFAULT_LOCALE.statsDumped(), "No stats dumped message configured in locale file."),
+                orDefault(locale.statsDumpFailed(), DEFAULT_LOCALE.statsDumpFailed(), "No stats dump failed message configured in locale file."),
+                orDefault(locale.throttledPlayerMessage(), DEFAULT_LOCALE.throttledPlayerMessage(), "No throttled player message configured in locale file."),
+                orDefault(locale.throttledKickMessage(), DEFAULT_LOCALE.throttledKickMessage(), "No throttled kick message configured in locale file."),
+                orDefault(locale.throttledConsoleSummary(), DEFAULT_LOCALE.throttledConsoleSummary(), "No throttled console summary message configured in locale file."),
+                orDefault(locale.tracePlayerStarted(), DEFAULT_LOCALE.tracePlayerStarted(), "No trace player started message configured in locale file."),
+                orDefault(locale.tracePatternStarted(), DEFAULT_LOCALE.tracePatternStarted(), "No trace pattern started message configured in locale file."),
+                orDefault(locale.traceInvalidPattern(), DEFAULT_LOCALE.traceInvalidPattern(), "No trace invalid pattern message configured in locale file."),
+                orDefault(locale.traceStopped(), DEFAULT_LOCALE.traceStopped(), "No trace stopped message configured in locale file."),
+                orDefault(locale.traceDumped(), DEFAULT_LOCALE.traceDumped(), "No trace dumped message configured in locale file."),
+                orDefault(locale.traceDumpFailed(), DEFAULT_LOCALE.traceDumpFailed(), "No trace dump failed message configured in locale file."),
+                orDefault(locale.orderFileOrder(), DEFAULT_LOCALE.orderFileOrder(), "No order file order message configured in locale file."),
+                orDefault(locale.orderSummary(), DEFAULT_LOCALE.orderSummary(), "No order summary message configured in locale file."),
+                orDefault(locale.orderEntry(), DEFAULT_LOCALE.orderEntry(), "No order entry message configured in locale file."));
+    }
 
-        if(locale.blockedCommandConsoleMessage() == null) {
-            logger.warn(AdventureUtil.serialize("No blocked command console message configured in locale file."));
-            locale = DEFAULT_LOCALE;
-            return;
-        }
+    /**
+     * Gets a configured message, or the default message if it is missing.
+     * @param message The configured message.
+     * @param defaultMessage The default message.
+     * @param warning The warning to log if the message is missing.
+     * @return The configured message, or the default message if it is missing.
+     */
+    @NotNull
+    private String orDefault(@Nullable String message, @NotNull String defaultMessage, @NotNull String warning) {
+        if(message != null) return message;
 
-        if(locale.blockedTextConsoleMessage() == null) {
-            logger.warn(AdventureUtil.serialize("No blocked text console message configured in locale file."));
-            locale = DEFAULT_LOCALE;
-        }
+        commandRestrictions.getComponentLogger().warn(AdventureUtil.serialize(warning + " Using the default message."));
+        return defaultMessage;
     }
+
+    /**
+     * This class holds every locale loaded by one reload, so they are published together.
+     * @param locale The validated configured {@link Locale}.
+     * @param renderedLocale The parsed messages of the configured locale.
+     * @param renderedLocales The parsed messages of every locale file, by lower case file name without the extension.
+     * @param resolved The {@link RenderedLocale} chosen for each client locale so far.
+     */
+    private record LoadedLocales(
+            @NotNull Locale locale,
+            @NotNull RenderedLocale renderedLocale,
+            @NotNull Map<String, RenderedLocale> renderedLocales,
+            @NotNull ConcurrentHashMap<java.util.Locale, RenderedLocale> resolved) {}
 }
@@ -0,0 +1,95 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.config.locale;
+
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextReplacementConfig;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * This class contains the messages sent when checking commands, parsed into {@link Component}s once when the locale is loaded.
+ * @param invalidSettings The message sent when the plugin's settings is invalid.
+ * @param invalidRegex The message sent when a configured regex is invalid.
+ * @param blockedCommandPlayerMessage The message sent to the player when their command was blocked, including the prefix.
+ * @param blockedCommandConsoleMessage The message sent to console when a command was blocked due to blocking any match, with a marker where the command goes.
+ * @param blockedTextConsoleMessage The message sent to console when a command was blocked due to a partial match, with a marker where the command goes.
+ * @param throttledPlayerMessage The message sent to a player when their commands are throttled, including the prefix.
+ * @param throttledKickMessage The message shown to a player kicked for sending too many commands while throttled.
+ */
+public record RenderedLocale(
+        @NotNull Component invalidSettings,
+        @NotNull Component invalidRegex,
+        @NotNull Component blockedCommandPlayerMessage,
+        @NotNull Component blockedCommandConsoleMessage,
+        @NotNull Component blockedTextConsoleMessage,
+        @NotNull Component throttledPlayerMessage,
+        @NotNull Component throttledKickMessage) {
+    // The command placeholder is parsed into this private-use marker and replaced with the command as plain text when the message is sent.
+    private static final String COMMAND_MARKER = "\uE000command\uE000";
+
+    /**
+     * Parses the messages of a {@link Locale}.
+     * @param locale The validated {@link Locale} to parse.
+     * @return A {@link RenderedLocale}.
+     */
+    @NotNull
+    public static RenderedLocale render(@NotNull Locale locale) {
+        List<TagResolver.Single> placeholders = List.of(Placeholder.unparsed("command", COMMAND_MARKER));
+
+        return new RenderedLocale(
+                AdventureUtil.serialize(locale.invalidSettings()),
+                AdventureUtil.serialize(locale.invalidRegex()),
+                AdventureUtil.serialize(locale.prefix() + locale.blockedCommandPlayerMessage()),
+                AdventureUtil.serialize(locale.blockedCommandConsoleMessage(), placeholders),
+                AdventureUtil.serialize(locale.blockedTextConsoleMessage(), placeholders),
+                AdventureUtil.serialize(locale.prefix() + locale.throttledPlayerMessage()),
+                AdventureUtil.serialize(locale.throttledKickMessage()));
+    }
+
+    /**
+     * Gets the message sent to console when a command was blocked due to blocking any match.
+     * @param command The command that was blocked.
+     * @return The message as a {@link Component}.
+     */
+    @NotNull
+    public Component blockedCommandConsoleMessage(@NotNull String command) {
+        return replaceCommand(blockedCommandConsoleMessage, command);
+    }
+
+    /**
+     * Gets the message sent to console when a command was blocked due to a partial match.
+     * @param command The command that was blocked.
+     * @return The message as a {@link Component}.
+     */
+    @NotNull
+    public Component blockedTextConsoleMessage(@NotNull String command) {
+        return replaceCommand(blockedTextConsoleMessage, command);
+    }
+
+    private static Component replaceCommand(@NotNull Component template, @NotNull String command) {
+        return template.replaceText(TextReplacementConfig.builder()
+                .matchLiteral(COMMAND_MARKER)
+                .replacement(command)
+                .build());
+    }
+}
@@ -0,0 +1,140 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.config.settings;
+
+import com.github.lukesky19.commandRestrictions.CommandRestrictions;
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class watches the rules directory and runs a callback once the files in it stop changing.
+ */
+public class RuleDirectoryWatcher {
+    private final CommandRestrictions commandRestrictions;
+    private final Path directory;
+    private final Runnable onChange;
+    private Settings.RuleDirectory current;
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Constructor
+     * @param commandRestrictions The plugin's class.
+     * @param directory The {@link Path} of the rules directory.
+     * @param onChange The {@link Runnable} to run after the files in the directory changed. It is run on the watcher thread.
+     */
+    public RuleDirectoryWatcher(@NotNull CommandRestrictions commandRestrictions, @NotNull Path directory, @NotNull Runnable onChange) {
+        this.commandRestrictions = commandRestrictions;
+        this.directory = directory;
+        this.onChange = onChange;
+    }
+
+    /**
+     * Starts or stops watching the directory based on the settings. Nothing is restarted if the settings didn't change.
+     * @param ruleDirectory The {@link Settings.RuleDirectory} settings, or null to stop watching.
+     */
+    public synchronized void reload(@Nullable Settings.RuleDirectory ruleDirectory) {
+        boolean shouldWatch = ruleDirectory != null && ruleDirectory.watch();
+        if(Objects.equals(current, ruleDirectory) && (thread != null) == shouldWatch) return;
+
+        shutdown();
+        current = ruleDirectory;
+        if(!shouldWatch) return;
+
+        try {
+            Files.createDirectories(directory);
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException ioException) {
+            commandRestrictions.getComponentLogger().error(AdventureUtil.serialize("<red>Failed to watch the rules directory. Rule files will only be loaded on reload.</red>"));
+            shutdown();
+            return;
+        }
+
+        WatchService service = watchService;
+        long debounceMs = Math.max(0, ruleDirectory.debounceMs());
+        thread = new Thread(() -> watch(service, debounceMs), "CommandRestrictions-RuleWatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching the directory.
+     */
+    public synchronized void shutdown() {
+        if(watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+                // The watcher thread stops either way.
+            }
+            watchService = null;
+        }
+
+        if(thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    /**
+     * Waits for changes in the directory and runs the callback once no change happened for the debounce time.
+     * @param service The {@link WatchService} the directory is registered with.
+     * @param debounceMs The time without changes to wait for in milliseconds.
+     */
+    private void watch(@NotNull WatchService service, long debounceMs) {
+        try {
+            while(!Thread.currentThread().isInterrupted()) {
+                WatchKey key = service.take();
+                drain(key);
+
+                // Editors and generators often write a file in several steps, so wait until the changes stop.
+                while((key = service.poll(debounceMs, TimeUnit.MILLISECONDS)) != null) {
+                    drain(key);
+                }
+
+                onChange.run();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // The watcher was stopped.
+        }
+    }
+
+    /**
+     * Discards the events of a key and resets it so it reports further changes.
+     * @param key The {@link WatchKey}.
+     */
+    private static void drain(@NotNull WatchKey key) {
+        key.pollEvents();
+        key.reset();
+    }
+}
@@ -27,26 +27,169 @@ import java.util.regex.Pattern;
 /**
  * This class represents the plugin settings.
  * @param configVersion The version of the file.
- * @param debug Whether to display debug messages or not.
+ * @param traceBufferSize The number of events kept by /commandrestrictions trace. 0 or less uses the default size.
  * @param locale The name of the locale to use.
+ * @param verdictCacheSize The maximum number of commands to cache verdicts for. 0 or less disables the cache.
+ * @param audit The {@link Audit} settings, or null to only log blocked commands to console.
+ * @param metricsDumpIntervalSeconds How often the rule statistics are written to stats.txt in seconds. 0 or less disables it.
+ * @param regexProtection The {@link RegexProtection} settings, or null to use the defaults.
+ * @param throttle The {@link Throttle} settings, or null to not throttle players.
+ * @param sources The {@link Sources} of commands to check, or null to only check commands sent by players.
+ * @param normalizeCommands Whether commands are resolved to their canonical {@code namespace:command} label and have their whitespace collapsed before they are checked.
+ * @param pruneCommandTree Whether commands that are always blocked are removed from the command tree sent to players.
+ * @param ruleDirectory The {@link RuleDirectory} settings, or null to not watch the rules directory.
+ * @param adaptiveOrdering The {@link AdaptiveOrdering} settings, or null to always check entries in file order.
  * @param entries A list of {@link Entry}.
  */
 @ConfigSerializable
 public record Settings(
         @Nullable String configVersion,
-        boolean debug,
+        int traceBufferSize,
         @Nullable String locale,
+        int verdictCacheSize,
+        @Nullable Audit audit,
+        int metricsDumpIntervalSeconds,
+        @Nullable RegexProtection regexProtection,
+        @Nullable Throttle throttle,
+        @Nullable Sources sources,
+        boolean normalizeCommands,
+        boolean pruneCommandTree,
+        @Nullable RuleDirectory ruleDirectory,
+        @Nullable AdaptiveOrdering adaptiveOrdering,
         @NotNull List<Entry> entries) {
+    /**
+     * This class represents the settings of the audit log of blocked commands.
+     * @param enabled Whether blocked commands should be written to the audit log.
+     * @param flushIntervalMs How often queued records are written to the file in milliseconds.
+     * @param queueCapacity The maximum number of records waiting to be written. Records over the capacity are dropped and counted.
+     * @param maxFileSizeKb The size in kilobytes at which the audit log is rotated.
+     * @param maxFiles The number of rotated audit log files to keep.
+     * @param consoleWarnings Whether blocked commands should also be logged to console.
+     * @param consoleWarningsPerSecond The maximum number of blocked command warnings logged to console per second. 0 or less means no limit.
+     */
+    @ConfigSerializable
+    public record Audit(
+            boolean enabled,
+            int flushIntervalMs,
+            int queueCapacity,
+            int maxFileSizeKb,
+            int maxFiles,
+            boolean consoleWarnings,
+            int consoleWarningsPerSecond) {
+    }
+
+    /**
+     * Creates a copy of these settings with different entries.
+     * @param entries The entries of the copy.
+     * @return A new {@link Settings}.
+     */
+    @NotNull
+    public Settings withEntries(@NotNull List<Entry> entries) {
+        return new Settings(configVersion, traceBufferSize, locale, verdictCacheSize, audit, metricsDumpIntervalSeconds, regexProtection,
+                throttle, sources, normalizeCommands, pruneCommandTree, ruleDirectory, adaptiveOrdering, entries);
+    }
+
+    /**
+     * This class represents the settings for the rules directory, whose YAML files add entries after the ones in this file.
+     * @param watch Whether the directory is watched and the rules reloaded when a file in it changes.
+     * @param debounceMs How long to wait after the last change before reloading in milliseconds, so a burst of changes causes one reload.
+     */
+    @ConfigSerializable
+    public record RuleDirectory(
+            boolean watch,
+            int debounceMs) {
+    }
+
+    /**
+     * This class represents the settings for reordering the entries of order-insensitive groups by how often they block and how long they take.
+     * @param enabled Whether entries are reordered.
+     * @param intervalSeconds How often the order is recomputed from the statistics in seconds. 0 or less uses the default of 60.
+     * @param minEvaluations The number of times an entry must have been evaluated before its statistics are trusted. 0 or less uses the default of 100.
+     * @param orderInsensitiveGroups The groups whose entries may be checked in any order. Only consecutive entries of the same group are reordered.
+     */
+    @ConfigSerializable
+    public record AdaptiveOrdering(
+            boolean enabled,
+            int intervalSeconds,
+            int minEvaluations,
+            @Nullable List<String> orderInsensitiveGroups) {
+    }
+
+    /**
+     * This class represents the settings for throttling players that keep sending blocked commands.
+     * @param enabled Whether players are throttled.
+     * @param maxBlockedAttempts The number of blocked commands a player may send in a window before their commands are ignored.
+     * @param windowSeconds The length of the window in seconds, which is also how long a throttled player's commands are ignored.
+     * @param summaryIntervalSeconds How often the number of commands ignored from each throttled player is logged to console in seconds.
+     * @param kickAfterThrottles The number of times a player can be throttled before they are kicked. 0 or less disables kicking.
+     */
+    @ConfigSerializable
+    public record Throttle(
+            boolean enabled,
+            int maxBlockedAttempts,
+            int windowSeconds,
+            int summaryIntervalSeconds,
+            int kickAfterThrottles) {
+    }
+
+    /**
+     * This class represents which sources of commands are checked against the entries.
+     * @param players Whether commands sent by players are checked.
+     * @param tabComplete Whether tab completion suggestions for players are filtered so they don't reveal blocked commands or blocked text.
+     * @param console Whether commands sent from the console or RCON are checked.
+     * @param commandBlocks Whether commands run by command blocks and command block minecarts are checked.
+     */
+    @ConfigSerializable
+    public record Sources(
+            boolean players,
+            boolean tabComplete,
+            boolean console,
+            boolean commandBlocks) {
+    }
+
+    /**
+     * This class represents the settings that protect the server from regex that take too long to check a command.
+     * @param budgetMicros The maximum time a single entry may take to check a command in microseconds. 0 or less uses the default of 5000.
+     * @param failClosed Whether commands that make an entry take too long to check, or that reach a quarantined entry, are blocked instead of allowed.
+     * @param rejectUnsafePatterns Whether settings with entries that have nested quantifiers fail to load instead of only logging a warning.
+     */
+    @ConfigSerializable
+    public record RegexProtection(
+            int budgetMicros,
+            boolean failClosed,
+            boolean rejectUnsafePatterns) {
+    }
+
     /**
      * This entry represents the configuration required to block a command.
-     * @param regex The regex to check for.
+     * An entry either checks the command with a regex, or if it has no regex, matches the command's space separated tokens by position.
+     * @param regex The regex to check for, or null if the entry matches tokens.
      * @param blockAllMatches If any match should cancel the event.
-     * @param blockedText If blockAllMatches is false, what text in captured groups by the regex should be checked and cancel the event for.
+     * @param blockedText If blockAllMatches is false, what text in captured groups by the regex or in the blocked argument should be checked and cancel the event for.
+     * @param blockedTextGlobs If blockAllMatches is false, globs that captured groups are matched against, where * matches any text and ? any one character. Null if none.
+     * @param group The name of the group the entry belongs to. Players with the permission commandrestrictions.bypass.&lt;group&gt; are exempt from it. Null if the entry can't be bypassed.
+     * @param tokens If regex is null, what each token of the command must be, starting with the label. A token is either * for any token,
+     *               re: followed by a regex the whole token must match, or literal alternatives separated by |. Null if the entry uses a regex.
+     * @param blockedArgument If the entry matches tokens and blockAllMatches is false, the index of the token checked against the blocked text, where 0 is the label.
      */
     @ConfigSerializable
     public record Entry(
             @Nullable Pattern regex,
             boolean blockAllMatches,
-            @NotNull List<String> blockedText) {
+            @NotNull List<String> blockedText,
+            @Nullable List<String> blockedTextGlobs,
+            @Nullable String group,
+            @Nullable List<String> tokens,
+            int blockedArgument) {
+        /**
+         * Gets the text that identifies the entry in messages and statistics.
+         * @return The regex, or the tokens separated by spaces if the entry matches tokens.
+         */
+        @NotNull
+        public String description() {
+            if(regex == null && tokens != null) return String.join(" ", tokens);
+
+            return String.valueOf(regex);
+        }
     }
 }
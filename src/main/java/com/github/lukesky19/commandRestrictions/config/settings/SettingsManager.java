@@ -18,23 +18,60 @@
 package com.github.lukesky19.commandRestrictions.config.settings;
 
 import com.github.lukesky19.commandRestrictions.CommandRestrictions;
+import com.github.lukesky19.commandRestrictions.engine.CompiledRules;
+import com.github.lukesky19.commandRestrictions.engine.RuleCache;
+import com.github.lukesky19.commandRestrictions.engine.RuleCompiler;
+import com.github.lukesky19.commandRestrictions.engine.RuleMetrics;
+import com.github.lukesky19.commandRestrictions.engine.RuleSnapshot;
+import com.github.lukesky19.commandRestrictions.engine.VerdictCache;
 import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
 import com.github.lukesky19.skylib.api.configurate.ConfigurationUtility;
+import com.github.lukesky19.skylib.libs.configurate.CommentedConfigurationNode;
 import com.github.lukesky19.skylib.libs.configurate.ConfigurateException;
-import com.github.lukesky19.skylib.libs.configurate.serialize.SerializationException;
 import com.github.lukesky19.skylib.libs.configurate.yaml.YamlConfigurationLoader;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
 
 /**
- * This class manages the plugin's settings.
+ * This class manages the plugin's settings and the rule files in the rules directory.
+ * Settings are loaded and compiled on a background thread and published as a {@link RuleSnapshot} in a single atomic swap.
+ * Each file is only parsed again when its checksum changes.
  */
 public class SettingsManager {
+    /**
+     * The config version of the settings.yml this version of the plugin ships.
+     */
+    public static final String CONFIG_VERSION = "1.1.0.0";
+    // The settings added since config version 1.0.0.0. Older files without them fall back to the defaults described in the shipped settings.yml.
+    private static final List<String> ADDED_SETTINGS = List.of(
+            "trace-buffer-size", "verdict-cache-size", "audit", "metrics-dump-interval-seconds", "regex-protection", "throttle",
+            "sources", "normalize-commands", "prune-command-tree", "rule-directory", "adaptive-ordering");
+
     private final CommandRestrictions commandRestrictions;
-    private Settings settings;
+    private final ExecutorService reloadExecutor;
+    private final AtomicReference<RuleSnapshot> snapshot = new AtomicReference<>();
+    private final RuleCache ruleCache;
+    // The parsed files are only used on the reload thread.
+    private ParsedFile<Settings> parsedSettings;
+    private final Map<Path, ParsedFile<List<Settings.Entry>>> parsedRuleFiles = new HashMap<>();
 
     /**
      * Constructor
@@ -42,6 +79,31 @@ public class SettingsManager {
      */
     public SettingsManager(CommandRestrictions commandRestrictions) {
         this.commandRestrictions = commandRestrictions;
+        this.ruleCache = new RuleCache(commandRestrictions.getDataFolder().toPath().resolve("cache").resolve("rules.bin"), commandRestrictions.getPluginMeta().getVersion());
+        this.reloadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CommandRestrictions-Reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * A getter to get the current rule snapshot.
+     * @return A {@link RuleSnapshot}, or null if the plugin's settings have never been loaded successfully.
+     */
+    @Nullable
+    public RuleSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Replaces the current rule snapshot with one derived from it, unless a reload published another snapshot in the meantime.
+     * @param expected The {@link RuleSnapshot} the replacement was derived from.
+     * @param replacement The new {@link RuleSnapshot}.
+     * @return true if the snapshot was replaced, false if the current snapshot is no longer the expected one.
+     */
+    public boolean replaceSnapshot(@NotNull RuleSnapshot expected, @NotNull RuleSnapshot replacement) {
+        return snapshot.compareAndSet(expected, replacement);
     }
 
     /**
@@ -50,15 +112,57 @@ public class SettingsManager {
      */
     @Nullable
     public Settings getSettings() {
-        return settings;
+        RuleSnapshot current = snapshot.get();
+        return current != null ? current.settings() : null;
     }
 
     /**
      * A method to reload the plugin's settings config.
+     * The settings are loaded and compiled on a background thread. The current snapshot stays in use until the new one is ready.
+     * If loading fails, the current snapshot is kept.
+     * @return A {@link CompletableFuture} that completes with the new {@link RuleSnapshot}, or null if the settings failed to load.
+     */
+    @NotNull
+    public CompletableFuture<RuleSnapshot> reload() {
+        return CompletableFuture.supplyAsync(() -> loadSnapshot(false), reloadExecutor);
+    }
+
+    /**
+     * A method to reload the plugin's settings config only if it or a rule file changed.
+     * @return A {@link CompletableFuture} that completes with the new {@link RuleSnapshot}, the current one if nothing changed,
+     * or null if the settings failed to load.
+     */
+    @NotNull
+    public CompletableFuture<RuleSnapshot> reloadIfChanged() {
+        return CompletableFuture.supplyAsync(() -> loadSnapshot(true), reloadExecutor);
+    }
+
+    /**
+     * Gets the directory that rule files are loaded from.
+     * @return The {@link Path} of the rules directory.
+     */
+    @NotNull
+    public Path getRulesDirectory() {
+        return commandRestrictions.getDataFolder().toPath().resolve("rules");
+    }
+
+    /**
+     * Stops the background reload thread.
+     */
+    public void shutdown() {
+        reloadExecutor.shutdownNow();
+    }
+
+    /**
+     * Loads and compiles the plugin's settings and rule files and publishes the result.
+     * Files whose checksum didn't change since the last load are not parsed again.
+     * @param onlyIfChanged Whether to keep the current snapshot if no file changed.
+     * @return The new {@link RuleSnapshot}, the current one if nothing changed, or null if the settings failed to load.
      */
-    public void reload() {
+    @Nullable
+    private RuleSnapshot loadSnapshot(boolean onlyIfChanged) {
         ComponentLogger logger = commandRestrictions.getComponentLogger();
-        settings = null;
+        long start = System.nanoTime();
 
         Path path = Path.of(commandRestrictions.getDataFolder() + File.separator + "settings.yml");
         // Save default settings if it doesn't exist on the disk.
@@ -66,17 +170,197 @@ public class SettingsManager {
             commandRestrictions.saveResource("settings.yml", false);
         }
 
-        // Attempt to load the configured plugin settings.
-        YamlConfigurationLoader loader = ConfigurationUtility.getYamlConfigurationLoader(path);
+        long settingsChecksum;
         try {
-            settings = loader.load().get(Settings.class);
-        } catch (SerializationException e) {
-            throw new RuntimeException(e);
-        } catch (ConfigurateException configurateException) {
+            settingsChecksum = checksum(path);
+        } catch (IOException ioException) {
             logger.error(AdventureUtil.serialize("<red>Failed to load plugin settings.</red>"));
-            if(configurateException.getMessage() != null) {
-                logger.error(AdventureUtil.serialize(configurateException.getMessage()));
+            return null;
+        }
+
+        // Attempt to load the configured plugin settings, unless the file didn't change.
+        boolean changed = false;
+        Settings settings;
+        if(parsedSettings != null && parsedSettings.checksum() == settingsChecksum) {
+            settings = parsedSettings.value();
+        } else {
+            YamlConfigurationLoader loader = ConfigurationUtility.getYamlConfigurationLoader(path);
+            CommentedConfigurationNode node;
+            try {
+                node = loader.load();
+                settings = node.get(Settings.class);
+            } catch (ConfigurateException configurateException) {
+                logger.error(AdventureUtil.serialize("<red>Failed to load plugin settings.</red>"));
+                if(configurateException.getMessage() != null) {
+                    logger.error(AdventureUtil.serialize(configurateException.getMessage()));
+                }
+                return null;
+            }
+
+            if(settings == null) {
+                logger.error(AdventureUtil.serialize("<red>Failed to load plugin settings.</red>"));
+                return null;
             }
+
+            warnOutdatedSettings(node, settings);
+
+            parsedSettings = new ParsedFile<>(settingsChecksum, settings);
+            changed = true;
+        }
+
+        // Add the entries of the rule files after the entries of the settings.
+        List<Settings.Entry> ruleEntries = new ArrayList<>();
+        changed |= loadRuleFiles(ruleEntries);
+
+        RuleSnapshot current = snapshot.get();
+        if(onlyIfChanged && !changed && current != null) return current;
+
+        if(!ruleEntries.isEmpty()) {
+            // Configurate leaves the list null if the entries key is missing.
+            //noinspection ConstantValue
+            List<Settings.Entry> entries = settings.entries() == null ? new ArrayList<>() : new ArrayList<>(settings.entries());
+            entries.addAll(ruleEntries);
+            settings = settings.withEntries(entries);
+        }
+
+        // Compile the configured entries for matching, reusing the index from the last start if the entries are the same.
+        CompiledRules compiledRules = RuleCompiler.compile(settings, entryIndex ->
+                logger.warn(AdventureUtil.serialize("<red>Entry " + entryIndex + " kept taking too long to check commands and is quarantined until the next reload.</red>")), ruleCache);
+
+        // Warn about groups that have no bit left and so can't be bypassed.
+        if(compiledRules.groups().size() > RuleCompiler.MAX_GROUPS) {
+            logger.warn(AdventureUtil.serialize("<yellow>Only the first " + RuleCompiler.MAX_GROUPS + " entry groups can be bypassed. Entries in the other " + (compiledRules.groups().size() - RuleCompiler.MAX_GROUPS) + " groups apply to every player.</yellow>"));
+        }
+
+        // Warn about entries that may backtrack for an exponential time, or refuse the settings if they reject such entries.
+        int[] unsafeEntries = compiledRules.unsafeEntries();
+        Settings.RegexProtection protection = settings.regexProtection();
+        if(unsafeEntries.length > 0 && protection != null && protection.rejectUnsafePatterns()) {
+            logger.error(AdventureUtil.serialize("<red>Failed to load plugin settings. Unsafe patterns are rejected, but these entries have nested quantifiers: " + Arrays.toString(unsafeEntries) + "</red>"));
+            return null;
+        }
+        for(int entryIndex : unsafeEntries) {
+            logger.warn(AdventureUtil.serialize("<yellow>Entry " + entryIndex + " has nested quantifiers and may be very slow on some commands. It is quarantined if it keeps taking too long to check commands.</yellow>"));
+        }
+
+        // Cached verdicts are only valid for the entries that produced them, so the cache is replaced with the entries.
+        VerdictCache verdictCache = settings.verdictCacheSize() > 0 ? new VerdictCache(settings.verdictCacheSize()) : null;
+
+        RuleMetrics metrics = new RuleMetrics(compiledRules.entries().size());
+
+        RuleSnapshot newSnapshot = new RuleSnapshot(settings, compiledRules, verdictCache, metrics, System.nanoTime() - start);
+        snapshot.set(newSnapshot);
+
+        return newSnapshot;
+    }
+
+    /**
+     * Warns about a settings file written for an older version of the plugin.
+     * The file isn't changed, since rewriting it would drop the comments and formatting the server owner added.
+     * @param node The loaded settings file.
+     * @param settings The {@link Settings} parsed from it.
+     */
+    private void warnOutdatedSettings(@NotNull CommentedConfigurationNode node, @NotNull Settings settings) {
+        ComponentLogger logger = commandRestrictions.getComponentLogger();
+
+        if(!CONFIG_VERSION.equals(settings.configVersion())) {
+            logger.warn(AdventureUtil.serialize("<yellow>settings.yml has config version " + settings.configVersion() + ", but the current version is " + CONFIG_VERSION + ". Compare it with the default settings.yml and update config-version afterwards.</yellow>"));
+        }
+
+        if(!node.node("debug").virtual()) {
+            logger.warn(AdventureUtil.serialize("<yellow>The debug setting in settings.yml is no longer used. Use /commandrestrictions trace and trace-buffer-size instead.</yellow>"));
+        }
+
+        List<String> missing = ADDED_SETTINGS.stream().filter(key -> node.node(key).virtual()).toList();
+        if(!missing.isEmpty()) {
+            logger.warn(AdventureUtil.serialize("<yellow>settings.yml is missing these settings, which use their defaults: " + String.join(", ", missing) + "</yellow>"));
         }
     }
+
+    /**
+     * Loads the entries of every rule file in the rules directory, in the alphabetical order of the file names.
+     * Files that didn't change since the last load reuse their parsed entries. If a file fails to parse, its previous entries are kept.
+     * @param entries The list to add the entries to.
+     * @return true if any rule file was added, changed or removed, false if not.
+     */
+    private boolean loadRuleFiles(@NotNull List<Settings.Entry> entries) {
+        ComponentLogger logger = commandRestrictions.getComponentLogger();
+        Path directory = getRulesDirectory();
+
+        List<Path> files;
+        try {
+            Files.createDirectories(directory);
+            try(Stream<Path> stream = Files.list(directory)) {
+                files = stream.filter(file -> {
+                    String name = file.getFileName().toString();
+                    return Files.isRegularFile(file) && (name.endsWith(".yml") || name.endsWith(".yaml"));
+                }).sorted().toList();
+            }
+        } catch (IOException ioException) {
+            logger.error(AdventureUtil.serialize("<red>Failed to list the rules directory. The previously loaded rule files are still in use.</red>"));
+            parsedRuleFiles.keySet().stream().sorted().forEach(file -> entries.addAll(parsedRuleFiles.get(file).value()));
+            return false;
+        }
+
+        // Forget the files that were removed.
+        boolean changed = parsedRuleFiles.keySet().retainAll(new HashSet<>(files));
+
+        for(Path file : files) {
+            ParsedFile<List<Settings.Entry>> parsed = parsedRuleFiles.get(file);
+
+            long fileChecksum;
+            try {
+                fileChecksum = checksum(file);
+            } catch (IOException ioException) {
+                logger.error(AdventureUtil.serialize("<red>Failed to read the rule file " + file.getFileName() + ".</red>"));
+                if(parsed != null) entries.addAll(parsed.value());
+                continue;
+            }
+
+            if(parsed != null && parsed.checksum() == fileChecksum) {
+                entries.addAll(parsed.value());
+                continue;
+            }
+
+            // Parse the new or changed file.
+            RuleFile ruleFile;
+            try {
+                ruleFile = ConfigurationUtility.getYamlConfigurationLoader(file).load().get(RuleFile.class);
+            } catch (ConfigurateException configurateException) {
+                logger.error(AdventureUtil.serialize("<red>Failed to load the rule file " + file.getFileName() + ".</red>"));
+                if(configurateException.getMessage() != null) {
+                    logger.error(AdventureUtil.serialize(configurateException.getMessage()));
+                }
+                if(parsed != null) entries.addAll(parsed.value());
+                continue;
+            }
+
+            List<Settings.Entry> fileEntries = ruleFile == null || ruleFile.entries() == null ? List.of() : List.copyOf(ruleFile.entries());
+            parsedRuleFiles.put(file, new ParsedFile<>(fileChecksum, fileEntries));
+            entries.addAll(fileEntries);
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    /**
+     * Calculates the checksum of a file's contents.
+     * @param file The {@link Path} of the file.
+     * @return The CRC32C checksum of the file.
+     * @throws IOException If the file can't be read.
+     */
+    private static long checksum(@NotNull Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(Files.readAllBytes(file));
+        return crc.getValue();
+    }
+
+    /**
+     * This class represents a parsed file and the checksum of the contents it was parsed from.
+     * @param checksum The CRC32C checksum of the file.
+     * @param value The parsed contents.
+     * @param <T> The type of the parsed contents.
+     */
+    private record ParsedFile<T>(long checksum, @NotNull T value) {}
 }
@@ -0,0 +1,320 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An Aho-Corasick automaton that finds every occurrence of a set of literal strings in a single pass over the text.
+ * The automaton is immutable once built and is safe to share between threads.
+ */
+public final class AhoCorasick {
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final char[][] transitionChars;
+    private final int[][] transitionTargets;
+    private final int[] failure;
+    private final int[][] outputs;
+    private final int[] patternLengths;
+
+    /**
+     * Receives the matches found by {@link #search(CharSequence, MatchListener)}.
+     */
+    @FunctionalInterface
+    public interface MatchListener {
+        /**
+         * Called for every occurrence of a pattern in the text.
+         * @param patternId The index of the pattern in the list the automaton was built from.
+         * @param start The index of the first character of the match.
+         * @param end The index after the last character of the match.
+         * @return true to continue searching, false to stop.
+         */
+        boolean onMatch(int patternId, int start, int end);
+    }
+
+    /**
+     * Builds an automaton for the given patterns.
+     * @param patterns The literal strings to search for. Empty strings are not allowed.
+     * @return An {@link AhoCorasick} automaton.
+     */
+    @NotNull
+    public static AhoCorasick build(@NotNull List<String> patterns) {
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> terminal = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        terminal.add(new ArrayList<>());
+
+        int[] lengths = new int[patterns.size()];
+        for(int id = 0; id < patterns.size(); id++) {
+            String pattern = patterns.get(id);
+            if(pattern.isEmpty()) throw new IllegalArgumentException("Aho-Corasick patterns cannot be empty.");
+            lengths[id] = pattern.length();
+
+            int state = 0;
+            for(int i = 0; i < pattern.length(); i++) {
+                Integer next = trie.get(state).get(pattern.charAt(i));
+                if(next == null) {
+                    next = trie.size();
+                    trie.get(state).put(pattern.charAt(i), next);
+                    trie.add(new TreeMap<>());
+                    terminal.add(new ArrayList<>());
+                }
+
+                state = next;
+            }
+
+            terminal.get(state).add(id);
+        }
+
+        int stateCount = trie.size();
+        char[][] chars = new char[stateCount][];
+        int[][] targets = new int[stateCount][];
+        for(int state = 0; state < stateCount; state++) {
+            TreeMap<Character, Integer> edges = trie.get(state);
+            chars[state] = new char[edges.size()];
+            targets[state] = new int[edges.size()];
+
+            int i = 0;
+            for(Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                chars[state][i] = edge.getKey();
+                targets[state][i] = edge.getValue();
+                i++;
+            }
+        }
+
+        // Breadth-first traversal so every failure link points to an already finished state.
+        int[] failure = new int[stateCount];
+        int[][] outputs = new int[stateCount][];
+        outputs[0] = toArray(terminal.get(0), NO_OUTPUT);
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for(int child : targets[0]) {
+            failure[child] = 0;
+            outputs[child] = toArray(terminal.get(child), NO_OUTPUT);
+            queue.add(child);
+        }
+
+        while(!queue.isEmpty()) {
+            int state = queue.poll();
+
+            for(int i = 0; i < chars[state].length; i++) {
+                char c = chars[state][i];
+                int child = targets[state][i];
+
+                int fallback = failure[state];
+                int next = step(chars, targets, fallback, c);
+                while(next < 0 && fallback != 0) {
+                    fallback = failure[fallback];
+                    next = step(chars, targets, fallback, c);
+                }
+
+                failure[child] = next < 0 ? 0 : next;
+                outputs[child] = toArray(terminal.get(child), outputs[failure[child]]);
+                queue.add(child);
+            }
+        }
+
+        return new AhoCorasick(chars, targets, failure, outputs, lengths);
+    }
+
+    private AhoCorasick(char[][] transitionChars, int[][] transitionTargets, int[] failure, int[][] outputs, int[] patternLengths) {
+        this.transitionChars = transitionChars;
+        this.transitionTargets = transitionTargets;
+        this.failure = failure;
+        this.outputs = outputs;
+        this.patternLengths = patternLengths;
+    }
+
+    /**
+     * Gets the number of patterns the automaton was built from.
+     * @return The number of patterns.
+     */
+    public int patternCount() {
+        return patternLengths.length;
+    }
+
+    /**
+     * Scans the text once and reports every occurrence of every pattern, including overlapping ones.
+     * @param text The text to search.
+     * @param listener The {@link MatchListener} to report matches to.
+     */
+    public void search(@NotNull CharSequence text, @NotNull MatchListener listener) {
+        int state = 0;
+
+        for(int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            int next = step(transitionChars, transitionTargets, state, c);
+            while(next < 0 && state != 0) {
+                state = failure[state];
+                next = step(transitionChars, transitionTargets, state, c);
+            }
+            state = next < 0 ? 0 : next;
+
+            for(int patternId : outputs[state]) {
+                if(!listener.onMatch(patternId, i + 1 - patternLengths[patternId], i + 1)) return;
+            }
+        }
+    }
+
+    /**
+     * Writes the automaton's tables so {@link #read(ByteBuffer)} can restore it without building it again.
+     * @param out The {@link DataOutputStream} to write to.
+     * @throws IOException If writing fails.
+     */
+    void write(@NotNull DataOutputStream out) throws IOException {
+        out.writeInt(transitionChars.length);
+        for(int state = 0; state < transitionChars.length; state++) {
+            out.writeInt(transitionChars[state].length);
+            for(int i = 0; i < transitionChars[state].length; i++) {
+                out.writeChar(transitionChars[state][i]);
+                out.writeInt(transitionTargets[state][i]);
+            }
+            out.writeInt(failure[state]);
+            out.writeInt(outputs[state].length);
+            for(int patternId : outputs[state]) {
+                out.writeInt(patternId);
+            }
+        }
+
+        out.writeInt(patternLengths.length);
+        for(int length : patternLengths) {
+            out.writeInt(length);
+        }
+    }
+
+    /**
+     * Restores an automaton written by {@link #write(DataOutputStream)}.
+     * Every state and pattern reference is checked, the transitions must form a tree, every failure link must lead to a shallower state
+     * and every output must fit in the text read to reach its state, so a damaged buffer can't produce an automaton that loops or fails while searching.
+     * @param buffer The {@link ByteBuffer} to read from.
+     * @return The {@link AhoCorasick} automaton.
+     * @throws IllegalArgumentException If the buffer doesn't contain a valid automaton.
+     * @throws java.nio.BufferUnderflowException If the buffer ends early.
+     */
+    @NotNull
+    static AhoCorasick read(@NotNull ByteBuffer buffer) {
+        int stateCount = readCount(buffer);
+        if(stateCount == 0) throw new IllegalArgumentException("The automaton has no root state.");
+        char[][] chars = new char[stateCount][];
+        int[][] targets = new int[stateCount][];
+        int[] failure = new int[stateCount];
+        int[][] outputs = new int[stateCount][];
+
+        for(int state = 0; state < stateCount; state++) {
+            int edgeCount = readCount(buffer);
+            chars[state] = new char[edgeCount];
+            targets[state] = new int[edgeCount];
+            for(int i = 0; i < edgeCount; i++) {
+                chars[state][i] = buffer.getChar();
+                targets[state][i] = readIndex(buffer, stateCount);
+                if(i > 0 && chars[state][i] <= chars[state][i - 1]) throw new IllegalArgumentException("Transitions are not sorted.");
+            }
+            failure[state] = readIndex(buffer, stateCount);
+
+            int outputCount = readCount(buffer);
+            outputs[state] = outputCount == 0 ? NO_OUTPUT : new int[outputCount];
+            for(int i = 0; i < outputCount; i++) {
+                outputs[state][i] = buffer.getInt();
+            }
+        }
+
+        int patternCount = readCount(buffer);
+        int[] lengths = new int[patternCount];
+        for(int i = 0; i < patternCount; i++) {
+            lengths[i] = buffer.getInt();
+            if(lengths[i] <= 0) throw new IllegalArgumentException("Pattern lengths must be positive.");
+        }
+
+        // Walk the transitions from the root to get the depth of each state. Every other state must be reached exactly once.
+        int[] depths = new int[stateCount];
+        Arrays.fill(depths, -1);
+        depths[0] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(0);
+        int reached = 1;
+        while(!queue.isEmpty()) {
+            int state = queue.poll();
+            for(int target : targets[state]) {
+                if(depths[target] >= 0) throw new IllegalArgumentException("Transitions don't form a tree.");
+                depths[target] = depths[state] + 1;
+                reached++;
+                queue.add(target);
+            }
+        }
+        if(reached != stateCount) throw new IllegalArgumentException("Some states can't be reached.");
+
+        // Searching follows failure links until it reaches the root, which only ends if every link leads to a shallower state.
+        for(int state = 1; state < stateCount; state++) {
+            if(depths[failure[state]] >= depths[state]) throw new IllegalArgumentException("Failure link doesn't lead to a shallower state.");
+        }
+
+        for(int state = 0; state < stateCount; state++) {
+            for(int patternId : outputs[state]) {
+                if(patternId < 0 || patternId >= patternCount) throw new IllegalArgumentException("Pattern id out of range.");
+                if(lengths[patternId] > depths[state]) throw new IllegalArgumentException("Pattern is longer than the text that reaches its state.");
+            }
+        }
+
+        return new AhoCorasick(chars, targets, failure, outputs, lengths);
+    }
+
+    private static int readCount(@NotNull ByteBuffer buffer) {
+        int count = buffer.getInt();
+        // A count can't be larger than the bytes left to read it from.
+        if(count < 0 || count > buffer.remaining()) throw new IllegalArgumentException("Invalid count " + count + ".");
+        return count;
+    }
+
+    private static int readIndex(@NotNull ByteBuffer buffer, int size) {
+        int index = buffer.getInt();
+        if(index < 0 || index >= size) throw new IllegalArgumentException("Index " + index + " out of range.");
+        return index;
+    }
+
+    /**
+     * Follows the goto edge for a character.
+     * @return The next state, or -1 if the state has no edge for the character.
+     */
+    private static int step(char[][] chars, int[][] targets, int state, char c) {
+        int index = Arrays.binarySearch(chars[state], c);
+        return index < 0 ? -1 : targets[state][index];
+    }
+
+    private static int[] toArray(List<Integer> own, int[] inherited) {
+        if(own.isEmpty()) return inherited;
+
+        int[] array = new int[own.size() + inherited.length];
+        for(int i = 0; i < own.size(); i++) {
+            array[i] = own.get(i);
+        }
+        System.arraycopy(inherited, 0, array, own.size(), inherited.length);
+
+        return array;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * This class checks if a captured group is one of an entry's blocked texts.
+ * Exact blocked texts are kept in an open addressing hash table that is probed with the hash of the group's span,
+ * and globs are kept in a trie of the literal text before their first wildcard.
+ * A group is checked in time proportional to its length instead of the number of blocked texts, and without copying it.
+ */
+final class BlockedTextMatcher {
+    private final String[] exactTable;
+    private final int[] exactHashes;
+    private final int exactMask;
+    private final Node root;
+
+    private BlockedTextMatcher(@NotNull String[] exactTable, @NotNull int[] exactHashes, @NotNull Node root) {
+        this.exactTable = exactTable;
+        this.exactHashes = exactHashes;
+        this.exactMask = exactTable.length - 1;
+        this.root = root;
+    }
+
+    /**
+     * Compiles an entry's blocked text.
+     * @param blockedText The texts a group must equal exactly, or null if none. A * in these is matched literally.
+     * @param globs The globs a group must match, or null if none. * matches any run of characters and ? matches any one character.
+     * @return A {@link BlockedTextMatcher}, or null if there is no blocked text to match.
+     */
+    @Nullable
+    static BlockedTextMatcher compile(@Nullable List<String> blockedText, @Nullable List<String> globs) {
+        Set<String> exact = new LinkedHashSet<>();
+        if(blockedText != null) {
+            for(String text : blockedText) {
+                if(text != null) exact.add(text);
+            }
+        }
+
+        // Globs without a wildcard are just exact text.
+        List<String> wildcardGlobs = new ArrayList<>();
+        if(globs != null) {
+            for(String glob : globs) {
+                if(glob == null) continue;
+
+                if(glob.indexOf('*') < 0 && glob.indexOf('?') < 0) {
+                    exact.add(glob);
+                } else {
+                    wildcardGlobs.add(glob);
+                }
+            }
+        }
+
+        if(exact.isEmpty() && wildcardGlobs.isEmpty()) return null;
+
+        // Size the table for a load factor of at most one half.
+        int capacity = Integer.highestOneBit(Math.max(1, exact.size()) * 2 - 1) << 1;
+        String[] exactTable = new String[capacity];
+        int[] exactHashes = new int[capacity];
+        for(String text : exact) {
+            int hash = text.hashCode();
+            int slot = spread(hash) & (capacity - 1);
+            while(exactTable[slot] != null) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            exactTable[slot] = text;
+            exactHashes[slot] = hash;
+        }
+
+        BuildNode buildRoot = new BuildNode();
+        for(String glob : wildcardGlobs) {
+            int wildcard = firstWildcard(glob);
+            BuildNode node = buildRoot;
+            for(int i = 0; i < wildcard; i++) {
+                node = node.children.computeIfAbsent(glob.charAt(i), character -> new BuildNode());
+            }
+
+            String rest = glob.substring(wildcard);
+            if(rest.equals("*")) {
+                node.anySuffix = true;
+            } else {
+                node.suffixGlobs.add(rest);
+            }
+        }
+
+        return new BlockedTextMatcher(exactTable, exactHashes, buildRoot.freeze());
+    }
+
+    /**
+     * Checks if a span of a text is blocked.
+     * @param text The text, usually the command.
+     * @param start The start of the span, inclusive.
+     * @param end The end of the span, exclusive.
+     * @return true if the span equals an exact blocked text or matches a glob, false if not.
+     */
+    boolean matches(@NotNull String text, int start, int end) {
+        int length = end - start;
+
+        // Probe the hash table with the hash the span would have as a String.
+        int hash = 0;
+        for(int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        for(int slot = spread(hash) & exactMask; exactTable[slot] != null; slot = (slot + 1) & exactMask) {
+            String candidate = exactTable[slot];
+            if(exactHashes[slot] == hash && candidate.length() == length && text.regionMatches(start, candidate, 0, length)) return true;
+        }
+
+        // Walk the trie along the span. Every node passed holds the globs whose literal prefix the span starts with.
+        Node node = root;
+        int position = start;
+        while(node != null) {
+            if(node.anySuffix) return true;
+
+            for(String suffixGlob : node.suffixGlobs) {
+                if(matchesGlob(suffixGlob, text, position, end)) return true;
+            }
+
+            if(position == end) break;
+            node = node.child(text.charAt(position++));
+        }
+
+        return false;
+    }
+
+    /**
+     * Matches a glob against a span of a text. * matches any run of characters, including none, and ? matches any one character.
+     * @param glob The glob.
+     * @param text The text.
+     * @param start The start of the span, inclusive.
+     * @param end The end of the span, exclusive.
+     * @return true if the whole span matches the glob, false if not.
+     */
+    static boolean matchesGlob(@NotNull String glob, @NotNull String text, int start, int end) {
+        int globIndex = 0;
+        int textIndex = start;
+        int starIndex = -1;
+        int starTextIndex = 0;
+
+        while(textIndex < end) {
+            if(globIndex < glob.length() && (glob.charAt(globIndex) == '?' || glob.charAt(globIndex) == text.charAt(textIndex))) {
+                globIndex++;
+                textIndex++;
+            } else if(globIndex < glob.length() && glob.charAt(globIndex) == '*') {
+                // Remember the star and first try matching no characters with it.
+                starIndex = globIndex++;
+                starTextIndex = textIndex;
+            } else if(starIndex >= 0) {
+                // Let the last star match one more character and retry from there.
+                globIndex = starIndex + 1;
+                textIndex = ++starTextIndex;
+            } else {
+                return false;
+            }
+        }
+
+        while(globIndex < glob.length() && glob.charAt(globIndex) == '*') {
+            globIndex++;
+        }
+
+        return globIndex == glob.length();
+    }
+
+    private static int firstWildcard(@NotNull String glob) {
+        for(int i = 0; i < glob.length(); i++) {
+            char character = glob.charAt(i);
+            if(character == '*' || character == '?') return i;
+        }
+
+        return glob.length();
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * A node of the glob trie. The children are sorted by character so they can be binary searched.
+     */
+    private static final class Node {
+        private static final String[] NO_GLOBS = new String[0];
+
+        private final char[] characters;
+        private final Node[] children;
+        private final boolean anySuffix;
+        private final String[] suffixGlobs;
+
+        private Node(@NotNull char[] characters, @NotNull Node[] children, boolean anySuffix, @NotNull String[] suffixGlobs) {
+            this.characters = characters;
+            this.children = children;
+            this.anySuffix = anySuffix;
+            this.suffixGlobs = suffixGlobs;
+        }
+
+        @Nullable
+        private Node child(char character) {
+            int index = Arrays.binarySearch(characters, character);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    /**
+     * A mutable node of the glob trie used while compiling.
+     */
+    private static final class BuildNode {
+        private final Map<Character, BuildNode> children = new TreeMap<>();
+        private final List<String> suffixGlobs = new ArrayList<>();
+        private boolean anySuffix;
+
+        @NotNull
+        private Node freeze() {
+            char[] characters = new char[children.size()];
+            Node[] frozenChildren = new Node[children.size()];
+            int i = 0;
+            for(Map.Entry<Character, BuildNode> child : children.entrySet()) {
+                characters[i] = child.getKey();
+                frozenChildren[i] = child.getValue().freeze();
+                i++;
+            }
+
+            String[] globs = suffixGlobs.isEmpty() ? Node.NO_GLOBS : suffixGlobs.toArray(new String[0]);
+            return new Node(characters, frozenChildren, anySuffix, globs);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This class rewrites commands into a canonical form before they are checked against the entries.
+ * The label is lowercased and resolved through an alias table to its {@code namespace:command} form,
+ * and runs of whitespace are collapsed into a single space. Arguments keep their case.
+ * Commands that are already canonical are returned as they are without allocating, and other commands are built in a buffer of the current thread.
+ * It is immutable and is safe to share between threads.
+ */
+public final class CommandNormalizer {
+    /**
+     * A {@link CommandNormalizer} without any aliases. It only collapses whitespace and lowercases the label.
+     */
+    public static final CommandNormalizer EMPTY = new CommandNormalizer(Map.of());
+
+    // Buffers that grew past this length for an unusually long command are dropped instead of kept by the thread.
+    private static final int MAX_RETAINED_BUFFER = 1024;
+    private static final ThreadLocal<StringBuilder> BUFFERS = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    // The alias table is open addressed, so a label can be looked up in place inside the command without copying it.
+    private final String[] labels;
+    private final String[] canonicalLabels;
+    private final int mask;
+    private final int aliasCount;
+
+    /**
+     * Constructor
+     * @param aliases A map of lowercase labels, without the leading slash, to their canonical label. The map is copied.
+     */
+    public CommandNormalizer(@NotNull Map<String, String> aliases) {
+        int capacity = Integer.highestOneBit(Math.max(aliases.size(), 1) * 2 - 1) << 1;
+        this.labels = new String[capacity];
+        this.canonicalLabels = new String[capacity];
+        this.mask = capacity - 1;
+        this.aliasCount = aliases.size();
+
+        for(Map.Entry<String, String> alias : aliases.entrySet()) {
+            String label = alias.getKey();
+            int slot = spread(label.hashCode()) & mask;
+            while(labels[slot] != null) slot = (slot + 1) & mask;
+            labels[slot] = label;
+            canonicalLabels[slot] = alias.getValue();
+        }
+    }
+
+    /**
+     * Gets the number of labels in the alias table.
+     * @return The number of labels.
+     */
+    public int aliasCount() {
+        return aliasCount;
+    }
+
+    /**
+     * Gets the canonical label for a label.
+     * @param label The label without the leading slash.
+     * @return The canonical label, or the lowercased label if it is not in the alias table.
+     */
+    @NotNull
+    public String canonicalLabel(@NotNull String label) {
+        String lowercaseLabel = label.toLowerCase(Locale.ROOT);
+        String canonicalLabel = lookup(lowercaseLabel, 0, lowercaseLabel.length());
+        return canonicalLabel != null ? canonicalLabel : lowercaseLabel;
+    }
+
+    /**
+     * Normalizes a command.
+     * @param command The command as sent, with or without the leading slash.
+     * @return The normalized command, starting with a slash. This is the same {@link String} if the command is already normalized.
+     */
+    @NotNull
+    public String normalize(@NotNull String command) {
+        int length = command.length();
+        int index = 0;
+
+        // Skip leading whitespace and the slash.
+        while(index < length && Character.isWhitespace(command.charAt(index))) index++;
+        if(index < length && command.charAt(index) == '/') index++;
+
+        // Resolve the label. Labels that are already lowercase are looked up in place.
+        int labelEnd = index;
+        boolean lowercase = true;
+        while(labelEnd < length && !Character.isWhitespace(command.charAt(labelEnd))) {
+            lowercase &= isLowercase(command.charAt(labelEnd));
+            labelEnd++;
+        }
+        String canonicalLabel = lowercase ? lookup(command, index, labelEnd) : canonicalLabel(command.substring(index, labelEnd));
+
+        // Return the command itself if normalizing wouldn't change it.
+        boolean canonical = index == 1 && command.charAt(0) == '/' && lowercase && (canonicalLabel == null || canonicalLabel.length() == labelEnd - 1 && command.startsWith(canonicalLabel, 1));
+        if(canonical && hasCanonicalArguments(command, labelEnd)) return command;
+
+        StringBuilder builder = BUFFERS.get();
+        builder.setLength(0);
+        builder.append('/');
+        if(canonicalLabel != null) {
+            builder.append(canonicalLabel);
+        } else {
+            builder.append(command, index, labelEnd);
+        }
+
+        // Copy the arguments, collapsing each run of whitespace into one space and dropping trailing whitespace.
+        boolean pendingSpace = false;
+        for(int i = labelEnd; i < length; i++) {
+            char character = command.charAt(i);
+            if(Character.isWhitespace(character)) {
+                pendingSpace = true;
+                continue;
+            }
+
+            if(pendingSpace) {
+                builder.append(' ');
+                pendingSpace = false;
+            }
+            builder.append(character);
+        }
+
+        String normalized = builder.toString();
+        if(builder.capacity() > MAX_RETAINED_BUFFER) BUFFERS.remove();
+
+        return normalized;
+    }
+
+    /**
+     * Checks if the arguments of a command are already separated by single spaces, without any other or trailing whitespace.
+     * @param command The command.
+     * @param labelEnd The index after the last character of the label.
+     * @return true if the arguments are canonical, false if not.
+     */
+    private static boolean hasCanonicalArguments(@NotNull String command, int labelEnd) {
+        boolean afterSpace = false;
+        for(int i = labelEnd; i < command.length(); i++) {
+            char character = command.charAt(i);
+            if(character == ' ') {
+                if(afterSpace) return false;
+                afterSpace = true;
+            } else if(Character.isWhitespace(character)) {
+                return false;
+            } else {
+                afterSpace = false;
+            }
+        }
+
+        return !afterSpace;
+    }
+
+    /**
+     * Checks if a label character is unchanged by lowercasing the label.
+     * Surrogates are treated as not lowercase, so labels with them are lowercased as a whole.
+     * @param character The character.
+     * @return true if lowercasing keeps the character, false if not.
+     */
+    private static boolean isLowercase(char character) {
+        if(character < 0x80) return character < 'A' || character > 'Z';
+
+        return !Character.isSurrogate(character) && Character.toLowerCase(character) == character;
+    }
+
+    /**
+     * Looks up a lowercase label in the alias table.
+     * @param text The text containing the label.
+     * @param start The index of the first character of the label.
+     * @param end The index after the last character of the label.
+     * @return The canonical label, or null if the label is not in the alias table.
+     */
+    private String lookup(@NotNull String text, int start, int end) {
+        // The same hash as String#hashCode, so the labels in the table can be found without copying the label out of the text.
+        int hash = 0;
+        for(int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+
+        int length = end - start;
+        for(int slot = spread(hash) & mask; labels[slot] != null; slot = (slot + 1) & mask) {
+            String label = labels[slot];
+            if(label.length() == length && text.regionMatches(start, label, 0, length)) return canonicalLabels[slot];
+        }
+
+        return null;
+    }
+
+    /**
+     * Mixes the high bits of a hash into the low bits used to pick a slot.
+     * @param hash The hash.
+     * @return The mixed hash.
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
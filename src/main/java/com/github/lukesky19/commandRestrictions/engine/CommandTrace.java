@@ -0,0 +1,62 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.regex.Pattern;
+
+/**
+ * This class records the {@link TraceEvent}s of checking a single command into a {@link TraceBuffer}.
+ * It is only created for commands that are selected for tracing, so untraced commands pass null and only pay a null check per step.
+ */
+public final class CommandTrace {
+    private final TraceBuffer buffer;
+    private final long commandId;
+
+    /**
+     * Constructor
+     * @param buffer The {@link TraceBuffer} to record into.
+     * @param commandId The id of the traced command.
+     */
+    CommandTrace(@NotNull TraceBuffer buffer, long commandId) {
+        this.buffer = buffer;
+        this.commandId = commandId;
+    }
+
+    /**
+     * Gets the id of the traced command.
+     * @return The command id.
+     */
+    public long commandId() {
+        return commandId;
+    }
+
+    /**
+     * Records an event of checking the command.
+     * @param type The {@link TraceEvent.Type} of the event.
+     * @param entryIndex The index of the entry involved, or -1 if none.
+     * @param group The number of the regex group involved, or -1 if none.
+     * @param regex The regex of the entry involved, or null if none.
+     * @param text The text involved, or null if none.
+     */
+    public void record(@NotNull TraceEvent.Type type, int entryIndex, int group, @Nullable Pattern regex, @Nullable String text) {
+        buffer.record(commandId, type, entryIndex, group, regex, text);
+    }
+}
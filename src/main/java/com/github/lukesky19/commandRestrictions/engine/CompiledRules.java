@@ -0,0 +1,819 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class contains the configured entries compiled for matching and checks commands against them.
+ * It is immutable apart from the timeout counts and quarantine flags of entries that exceeded their match budget, and is safe to share between threads.
+ * Entries are checked in file order, unless a copy with a different {@link RuleOrder} was created with {@link #withOrder(RuleOrder)}.
+ */
+public final class CompiledRules {
+    // An entry is only quarantined once it times out this often within the window, so a single garbage collection pause or a busy server doesn't disable it.
+    static final int QUARANTINE_TIMEOUTS = 3;
+    static final long QUARANTINE_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    // Each thread keeps the scratch state of the last two rules it checked a command with, so comparing two rule sets like the replay does
+    // doesn't recreate it for every command. The state doesn't reference the rules, so replaced rules can be collected.
+    private static final ThreadLocal<Scratch[]> SCRATCHES = ThreadLocal.withInitial(() -> new Scratch[2]);
+
+    private final List<Settings.Entry> entries;
+    private final AhoCorasick automaton;
+    private final int[] patternEntries;
+    private final int[] patternClauses;
+    private final int[] clauseEntries;
+    private final int[] entryClauseCounts;
+    private final int[] unindexedEntries;
+    private final int indexedEntries;
+    private final BitSet literalEntries;
+    private final int invalidEntries;
+    private final List<String> groups;
+    private final long[] groupMasks;
+    private final int[] unsafeEntries;
+    private final BlockedTextMatcher[] blockedTexts;
+    private final TokenTree tokenTree;
+    private final long matchBudgetNanos;
+    private final boolean failClosed;
+    private final boolean quarantineTimeouts;
+    private final IntConsumer quarantineHandler;
+    private final AtomicIntegerArray quarantined;
+    private final AtomicIntegerArray timeoutCounts;
+    private final AtomicLongArray timeoutWindows;
+    private final int[] reorderableRuns;
+    private final RuleOrder order;
+    private final int[] evaluationOrder;
+    private final int[] positions;
+    private final int[] unindexedOrder;
+
+    /**
+     * Constructor
+     * @param entries The configured entries.
+     * @param index The {@link RuleIndex} derived from the entries.
+     * @param orderInsensitiveGroups The groups whose consecutive entries may be checked in any order.
+     * @param matchBudgetNanos The maximum time a single entry may take to check a command in nanoseconds.
+     * @param failClosed Whether commands that make an entry time out, or that reach a quarantined entry, are blocked instead of allowed.
+     * @param quarantineTimeouts Whether entries that repeatedly take longer than the match budget are quarantined.
+     * @param quarantineHandler An {@link IntConsumer} called with the entry index when an entry is quarantined at runtime,
+     *                          or every time an entry times out if timeouts aren't quarantined, or null.
+     */
+    CompiledRules(
+            @NotNull List<Settings.Entry> entries,
+            @NotNull RuleIndex index,
+            @NotNull Set<String> orderInsensitiveGroups,
+            long matchBudgetNanos,
+            boolean failClosed,
+            boolean quarantineTimeouts,
+            @Nullable IntConsumer quarantineHandler) {
+        this.entries = entries;
+        this.automaton = index.automaton();
+        this.patternEntries = index.patternEntries();
+        this.patternClauses = index.patternClauses();
+        this.clauseEntries = index.clauseEntries();
+        this.unindexedEntries = index.unindexedEntries();
+        this.invalidEntries = index.invalidEntries();
+        this.groups = List.copyOf(index.groups());
+        this.groupMasks = index.groupMasks();
+        this.unsafeEntries = index.unsafeEntries();
+        this.matchBudgetNanos = matchBudgetNanos;
+        this.failClosed = failClosed;
+        this.quarantineTimeouts = quarantineTimeouts;
+        this.quarantineHandler = quarantineHandler;
+
+        // Compile the blocked text of each entry for lookups that don't depend on how much blocked text there is.
+        this.blockedTexts = new BlockedTextMatcher[entries.size()];
+        for(int i = 0; i < entries.size(); i++) {
+            Settings.Entry entry = entries.get(i);
+            if(!entry.blockAllMatches()) blockedTexts[i] = BlockedTextMatcher.compile(entry.blockedText(), entry.blockedTextGlobs());
+        }
+
+        this.tokenTree = TokenTree.compile(entries);
+
+        this.quarantined = new AtomicIntegerArray(entries.size());
+        this.timeoutCounts = new AtomicIntegerArray(entries.size());
+        this.timeoutWindows = new AtomicLongArray(entries.size());
+
+        this.entryClauseCounts = new int[entries.size()];
+        BitSet indexed = new BitSet();
+        for(int entryIndex : clauseEntries) {
+            entryClauseCounts[entryIndex]++;
+            indexed.set(entryIndex);
+        }
+        this.indexedEntries = indexed.cardinality();
+
+        this.literalEntries = new BitSet();
+        for(int i = 0; i < patternEntries.length; i++) {
+            if(patternClauses[i] < 0) literalEntries.set(patternEntries[i]);
+        }
+
+        // Give every run of at least two consecutive entries in the same order-insensitive group an id.
+        this.reorderableRuns = new int[entries.size()];
+        int runs = 0;
+        for(int i = 0; i < entries.size(); i++) {
+            reorderableRuns[i] = -1;
+
+            String group = entries.get(i).group();
+            if(group == null || !orderInsensitiveGroups.contains(group)) continue;
+
+            if(i > 0 && reorderableRuns[i - 1] >= 0 && group.equals(entries.get(i - 1).group())) {
+                reorderableRuns[i] = reorderableRuns[i - 1];
+            } else if(i + 1 < entries.size() && group.equals(entries.get(i + 1).group())) {
+                reorderableRuns[i] = runs++;
+            }
+        }
+
+        this.order = null;
+        this.evaluationOrder = new int[entries.size()];
+        for(int i = 0; i < entries.size(); i++) {
+            evaluationOrder[i] = i;
+        }
+        this.positions = evaluationOrder;
+        this.unindexedOrder = unindexedEntries;
+    }
+
+    /**
+     * Creates a copy of compiled rules that checks entries in a different order. Everything else, including quarantined entries, is shared.
+     * @param source The {@link CompiledRules} to copy.
+     * @param order The {@link RuleOrder} to check entries in.
+     */
+    private CompiledRules(@NotNull CompiledRules source, @NotNull RuleOrder order) {
+        this.entries = source.entries;
+        this.automaton = source.automaton;
+        this.patternEntries = source.patternEntries;
+        this.patternClauses = source.patternClauses;
+        this.clauseEntries = source.clauseEntries;
+        this.entryClauseCounts = source.entryClauseCounts;
+        this.unindexedEntries = source.unindexedEntries;
+        this.indexedEntries = source.indexedEntries;
+        this.literalEntries = source.literalEntries;
+        this.invalidEntries = source.invalidEntries;
+        this.groups = source.groups;
+        this.groupMasks = source.groupMasks;
+        this.unsafeEntries = source.unsafeEntries;
+        this.blockedTexts = source.blockedTexts;
+        this.tokenTree = source.tokenTree;
+        this.matchBudgetNanos = source.matchBudgetNanos;
+        this.failClosed = source.failClosed;
+        this.quarantineTimeouts = source.quarantineTimeouts;
+        this.quarantineHandler = source.quarantineHandler;
+        this.quarantined = source.quarantined;
+        this.timeoutCounts = source.timeoutCounts;
+        this.timeoutWindows = source.timeoutWindows;
+        this.reorderableRuns = source.reorderableRuns;
+
+        this.order = order;
+        this.evaluationOrder = order.order().clone();
+        this.positions = new int[entries.size()];
+        for(int position = 0; position < evaluationOrder.length; position++) {
+            positions[evaluationOrder[position]] = position;
+        }
+
+        // The unindexed entries are merged with the candidates by position, so they are sorted the same way.
+        this.unindexedOrder = Arrays.stream(unindexedEntries).boxed()
+                .sorted(Comparator.comparingInt(entryIndex -> positions[entryIndex]))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Creates a copy of these rules that checks entries in a different order.
+     * @param order The {@link RuleOrder} to check entries in. It may only move entries within their order-insensitive run.
+     * @return A new {@link CompiledRules}.
+     * @throws IllegalArgumentException If the order is not a permutation of the entries, or moves an entry out of its run.
+     */
+    @NotNull
+    public CompiledRules withOrder(@NotNull RuleOrder order) {
+        int[] newOrder = order.order();
+        if(newOrder.length != entries.size()) throw new IllegalArgumentException("The order has " + newOrder.length + " entries instead of " + entries.size() + ".");
+
+        BitSet seen = new BitSet(newOrder.length);
+        for(int position = 0; position < newOrder.length; position++) {
+            int entryIndex = newOrder[position];
+            if(entryIndex < 0 || entryIndex >= newOrder.length || seen.get(entryIndex)) throw new IllegalArgumentException("The order is not a permutation of the entries.");
+            seen.set(entryIndex);
+
+            if(entryIndex != position && (reorderableRuns[entryIndex] < 0 || reorderableRuns[entryIndex] != reorderableRuns[position])) {
+                throw new IllegalArgumentException("Entry " + entryIndex + " can't be moved to position " + position + ".");
+            }
+        }
+
+        return new CompiledRules(this, order);
+    }
+
+    /**
+     * Gets the order entries are checked in, if it differs from file order.
+     * @return The {@link RuleOrder}, or null if entries are checked in file order.
+     */
+    @Nullable
+    public RuleOrder order() {
+        return order;
+    }
+
+    /**
+     * Checks if an entry belongs to a run of consecutive entries in the same order-insensitive group, and so may be reordered.
+     * @param entryIndex The index of the entry.
+     * @return true if the entry may be reordered, false if not.
+     */
+    public boolean isReorderable(int entryIndex) {
+        return reorderableRuns[entryIndex] >= 0;
+    }
+
+    /**
+     * Gets the id of the order-insensitive run an entry belongs to.
+     * @param entryIndex The index of the entry.
+     * @return The id of the run, or -1 if the entry may not be reordered.
+     */
+    int reorderableRun(int entryIndex) {
+        return reorderableRuns[entryIndex];
+    }
+
+    /**
+     * Checks if an entry is decided by the literal automaton instead of {@link java.util.regex}.
+     * @param entryIndex The index of the entry.
+     * @return true if the entry is a literal entry, false if not.
+     */
+    public boolean isLiteralEntry(int entryIndex) {
+        return literalEntries.get(entryIndex);
+    }
+
+    /**
+     * Gets the compiled entries.
+     * @return A {@link List} of {@link Settings.Entry}.
+     */
+    @NotNull
+    public List<Settings.Entry> entries() {
+        return entries;
+    }
+
+    /**
+     * Gets the number of entries that are checked by the literal automaton instead of {@link java.util.regex}.
+     * @return The number of literal entries.
+     */
+    public int literalEntryCount() {
+        return literalEntries.cardinality();
+    }
+
+    /**
+     * Gets the number of regex entries that are only checked when the literal text they require is in the command.
+     * @return The number of indexed entries.
+     */
+    public int indexedEntryCount() {
+        return indexedEntries;
+    }
+
+    /**
+     * Gets the number of regex entries that are checked against every command.
+     * @return The number of unindexed entries.
+     */
+    public int unindexedEntryCount() {
+        return unindexedEntries.length;
+    }
+
+    /**
+     * Gets the number of entries that have no regex configured.
+     * @return The number of invalid entries.
+     */
+    public int invalidEntries() {
+        return invalidEntries;
+    }
+
+    /**
+     * Gets the names of the entry groups. The group at index i is bypassed by bit i of an exemption mask.
+     * Groups past {@link RuleCompiler#MAX_GROUPS} have no bit and can't be bypassed.
+     * @return An unmodifiable list of group names.
+     */
+    @NotNull
+    public List<String> groups() {
+        return groups;
+    }
+
+    /**
+     * Gets the indexes of the entries whose regex has nested quantifiers and may backtrack for an exponential time.
+     * @return An array of entry indexes.
+     */
+    public int[] unsafeEntries() {
+        return unsafeEntries.clone();
+    }
+
+    /**
+     * Checks if an entry is quarantined. An entry is quarantined until the next reload once it took longer than the match budget
+     * {@value #QUARANTINE_TIMEOUTS} times within a minute. Commands that reach a quarantined entry are blocked if timeouts fail closed, and skip it if not.
+     * @param entryIndex The index of the entry.
+     * @return true if quarantined, false if not.
+     */
+    public boolean isQuarantined(int entryIndex) {
+        return quarantined.get(entryIndex) != 0;
+    }
+
+    /**
+     * Checks if a text contains the literal of any entry that blocks all matches.
+     * Literal entries match anywhere in a command, so every command that starts with such a text is blocked, whatever follows it.
+     * @param text The text to search.
+     * @param exemptGroups The mask of entry groups to ignore.
+     * @return true if a literal entry matches the text, false if not.
+     */
+    public boolean containsBlockedLiteral(@NotNull String text, long exemptGroups) {
+        if(automaton == null || literalEntries.isEmpty()) return false;
+
+        Scratch scratch = scratch();
+        scratch.begin(exemptGroups, true);
+        automaton.search(text, scratch);
+
+        return scratch.literalPosition != Integer.MAX_VALUE;
+    }
+
+    /**
+     * Checks a command against every compiled entry.
+     * When several entries would block the command, the first one in configured order is reported.
+     * @param command The command to check.
+     * @param metrics The {@link RuleMetrics} to record evaluations and matches in, or null to not record them.
+     * @param trace The {@link CommandTrace} to record the steps of the check in, or null if the command isn't traced.
+     * @return The {@link Verdict} for the command.
+     */
+    @NotNull
+    public Verdict evaluate(@NotNull String command, @Nullable RuleMetrics metrics, @Nullable CommandTrace trace) {
+        return evaluate(command, 0L, metrics, trace);
+    }
+
+    /**
+     * Checks a command against the compiled entries, skipping the entries in exempt groups.
+     * When several entries would block the command, the first one in configured order is reported.
+     * @param command The command to check.
+     * @param exemptGroups The mask of entry groups the sender is exempt from, with one bit per index in {@link #groups()}.
+     * @param metrics The {@link RuleMetrics} to record evaluations and matches in, or null to not record them.
+     * @param trace The {@link CommandTrace} to record the steps of the check in, or null if the command isn't traced.
+     * @return The {@link Verdict} for the command.
+     */
+    @NotNull
+    public Verdict evaluate(@NotNull String command, long exemptGroups, @Nullable RuleMetrics metrics, @Nullable CommandTrace trace) {
+        // The per-thread scratch state keeps commands that match nothing from allocating anything.
+        Scratch scratch = scratch();
+        scratch.begin(exemptGroups, false);
+
+        try {
+            // Scan the command once for every literal entry and every literal that a regex entry requires.
+            // Remember the earliest matching literal entry and which indexed entries had all of their required literals present.
+            if(automaton != null) automaton.search(command, scratch);
+
+            // Walk the tokens of the command down the tree of token entries, which marks the entries whose tokens all match.
+            if(tokenTree != null) scratch.walkTokens(command);
+
+            // Check the unindexed entries, the indexed entries whose literals were found and the matching token entries in order.
+            // Only entries checked before the matching literal entry can change the verdict.
+            int unindexedNext = 0;
+            int candidatePosition = scratch.nextCandidate(0);
+            while(true) {
+                int unindexedEntry = unindexedNext < unindexedOrder.length ? unindexedOrder[unindexedNext] : -1;
+
+                int entryIndex;
+                if(unindexedEntry >= 0 && (candidatePosition < 0 || positions[unindexedEntry] < candidatePosition)) {
+                    entryIndex = unindexedEntry;
+                    unindexedNext++;
+                } else if(candidatePosition >= 0) {
+                    entryIndex = evaluationOrder[candidatePosition];
+                    candidatePosition = scratch.nextCandidate(candidatePosition + 1);
+                } else {
+                    break;
+                }
+
+                if(positions[entryIndex] > scratch.literalPosition) break;
+                if((groupMasks[entryIndex] & exemptGroups) != 0) continue;
+
+                // Only entries that may be reordered are timed, since their cost decides their position.
+                boolean timed = metrics != null && reorderableRuns[entryIndex] >= 0;
+                long startNanos = timed ? System.nanoTime() : 0L;
+
+                Verdict verdict = tokenTree != null && tokenTree.positions(entryIndex) > 0
+                        ? evaluateTokens(entryIndex, command, scratch, metrics, trace)
+                        : evaluateRegex(entryIndex, command, scratch, metrics, trace);
+
+                if(timed) metrics.recordCost(entryIndex, System.nanoTime() - startNanos);
+                if(verdict.blocked()) return verdict;
+            }
+
+            int literalEntry = scratch.literalEntry;
+            if(scratch.literalPosition != Integer.MAX_VALUE) {
+                if(metrics != null) metrics.recordMatch(literalEntry);
+
+                String matchedText = command.substring(scratch.literalStart, scratch.literalEnd);
+                if(trace != null) trace.record(TraceEvent.Type.BLOCK_ALL, literalEntry, -1, entries.get(literalEntry).regex(), matchedText);
+
+                return new Verdict(Verdict.Type.BLOCK_ALL, literalEntry, matchedText);
+            }
+
+            return Verdict.ALLOW;
+        } finally {
+            scratch.clearCandidates();
+        }
+    }
+
+    /**
+     * Gets the scratch state of the current thread for these rules, replacing the state of the least recently used other rules.
+     * @return The {@link Scratch}.
+     */
+    @NotNull
+    private Scratch scratch() {
+        Scratch[] scratches = SCRATCHES.get();
+        Scratch first = scratches[0];
+        if(first != null && first.positions == positions) return first;
+
+        // Each rules have their own positions array, so it identifies the rules the state is for.
+        Scratch scratch = scratches[1];
+        if(scratch == null || scratch.positions != positions) scratch = new Scratch(this);
+        scratches[1] = first;
+        scratches[0] = scratch;
+
+        return scratch;
+    }
+
+    /**
+     * Processes a token entry whose tokens all matched the command, based on the configuration.
+     * @param entryIndex The index of the entry.
+     * @param command The command to check.
+     * @param scratch The {@link Scratch} state of the current thread, holding the command's tokens.
+     * @param metrics The {@link RuleMetrics} to record the evaluation and match in, or null to not record them.
+     * @param trace The {@link CommandTrace} to record the steps of the check in, or null if the command isn't traced.
+     * @return The {@link Verdict} for the entry.
+     */
+    @NotNull
+    private Verdict evaluateTokens(
+            int entryIndex,
+            @NotNull String command,
+            @NotNull Scratch scratch,
+            @Nullable RuleMetrics metrics,
+            @Nullable CommandTrace trace) {
+        Settings.Entry entry = entries.get(entryIndex);
+        TokenTree.Tokens tokens = scratch.tokens;
+
+        if(metrics != null) {
+            metrics.recordEvaluation(entryIndex);
+            metrics.recordMatch(entryIndex);
+        }
+
+        int matchedEnd = tokens.end(tokenTree.positions(entryIndex) - 1);
+        if(trace != null) trace.record(TraceEvent.Type.MATCH, entryIndex, -1, null, command.substring(0, matchedEnd));
+
+        if(entry.blockAllMatches()) {
+            String matchedText = command.substring(0, matchedEnd);
+            if(trace != null) trace.record(TraceEvent.Type.BLOCK_ALL, entryIndex, -1, null, matchedText);
+
+            return new Verdict(Verdict.Type.BLOCK_ALL, entryIndex, matchedText);
+        }
+
+        // Check the blocked argument in place, if the command has one.
+        int argument = entry.blockedArgument();
+        BlockedTextMatcher blockedText = blockedTexts[entryIndex];
+        if(blockedText == null || argument >= tokens.count()) return Verdict.ALLOW;
+
+        int start = tokens.start(argument);
+        int end = tokens.end(argument);
+        if(trace != null) trace.record(TraceEvent.Type.GROUP, entryIndex, argument, null, command.substring(start, end));
+
+        if(blockedText.matches(command, start, end)) {
+            String text = command.substring(start, end);
+            if(trace != null) trace.record(TraceEvent.Type.BLOCKED_TEXT, entryIndex, argument, null, text);
+
+            return new Verdict(Verdict.Type.BLOCKED_TEXT, entryIndex, text);
+        }
+
+        return Verdict.ALLOW;
+    }
+
+    /**
+     * Checks a command against a single entry using {@link java.util.regex}.
+     * @param entryIndex The index of the entry.
+     * @param command The command to check.
+     * @param scratch The {@link Scratch} state of the current thread.
+     * @param metrics The {@link RuleMetrics} to record the evaluation and match in, or null to not record them.
+     * @param trace The {@link CommandTrace} to record the steps of the check in, or null if the command isn't traced.
+     * @return The {@link Verdict} for the entry.
+     */
+    @NotNull
+    private Verdict evaluateRegex(
+            int entryIndex,
+            @NotNull String command,
+            @NotNull Scratch scratch,
+            @Nullable RuleMetrics metrics,
+            @Nullable CommandTrace trace) {
+        Settings.Entry entry = entries.get(entryIndex);
+        Pattern regex = entry.regex();
+        if(regex == null) return Verdict.ALLOW;
+
+        if(isQuarantined(entryIndex)) {
+            if(trace != null) trace.record(TraceEvent.Type.QUARANTINED, entryIndex, -1, regex, null);
+
+            return failClosed ? new Verdict(Verdict.Type.MATCH_TIMEOUT, entryIndex, null) : Verdict.ALLOW;
+        }
+
+        if(metrics != null) metrics.recordEvaluation(entryIndex);
+
+        try {
+            return matchRegex(entryIndex, entry, regex, command, scratch.matcher(entryIndex, regex, command, matchBudgetNanos), metrics, trace);
+        } catch (MatchTimeoutException | StackOverflowError exception) {
+            if(trace != null) trace.record(TraceEvent.Type.TIMEOUT, entryIndex, -1, regex, null);
+
+            if(!quarantineTimeouts) {
+                if(quarantineHandler != null) quarantineHandler.accept(entryIndex);
+                return Verdict.ALLOW;
+            }
+
+            // A single timeout may have been caused by load rather than by the entry, so the entry is only quarantined once it keeps timing out.
+            if(countTimeout(entryIndex) && quarantined.compareAndSet(entryIndex, 0, 1) && quarantineHandler != null) {
+                quarantineHandler.accept(entryIndex);
+            }
+
+            return failClosed ? new Verdict(Verdict.Type.MATCH_TIMEOUT, entryIndex, null) : Verdict.ALLOW;
+        }
+    }
+
+    /**
+     * Counts a timeout of an entry. The count restarts when the last window is over.
+     * Concurrent timeouts may be counted in the wrong window, which only shifts when the entry is quarantined.
+     * @param entryIndex The index of the entry.
+     * @return true if the entry timed out often enough within the window to be quarantined, false if not.
+     */
+    private boolean countTimeout(int entryIndex) {
+        long now = System.nanoTime();
+        if(timeoutCounts.get(entryIndex) == 0 || now - timeoutWindows.get(entryIndex) > QUARANTINE_WINDOW_NANOS) {
+            // Start a new window with this timeout.
+            timeoutWindows.set(entryIndex, now);
+            timeoutCounts.set(entryIndex, 1);
+            return QUARANTINE_TIMEOUTS <= 1;
+        }
+
+        return timeoutCounts.incrementAndGet(entryIndex) >= QUARANTINE_TIMEOUTS;
+    }
+
+    /**
+     * Runs an entry's regex against a command and processes the matches based on the configuration.
+     * Groups are compared with the entry's {@link BlockedTextMatcher} in place, so no text is copied unless the command is blocked or traced.
+     * @param entryIndex The index of the entry.
+     * @param entry The {@link Settings.Entry}.
+     * @param regex The entry's regex.
+     * @param command The command to check.
+     * @param matcher The entry's {@link Matcher}, reset to the command wrapped in a {@link DeadlineCharSequence}.
+     * @param metrics The {@link RuleMetrics} to record the match in, or null to not record it.
+     * @param trace The {@link CommandTrace} to record the steps of the check in, or null if the command isn't traced.
+     * @return The {@link Verdict} for the entry.
+     * @throws MatchTimeoutException If the regex takes longer than the match budget.
+     */
+    @NotNull
+    private Verdict matchRegex(
+            int entryIndex,
+            @NotNull Settings.Entry entry,
+            @NotNull Pattern regex,
+            @NotNull String command,
+            @NotNull Matcher matcher,
+            @Nullable RuleMetrics metrics,
+            @Nullable CommandTrace trace) {
+        boolean matched = false;
+
+        // While the matcher has a match, process the match based on the configuration.
+        while(matcher.find()) {
+            if(metrics != null && !matched) metrics.recordMatch(entryIndex);
+            matched = true;
+
+            if(trace != null) trace.record(TraceEvent.Type.MATCH, entryIndex, -1, regex, matcher.group());
+
+            if(entry.blockAllMatches()) {
+                if(trace != null) trace.record(TraceEvent.Type.BLOCK_ALL, entryIndex, -1, regex, matcher.group());
+
+                return new Verdict(Verdict.Type.BLOCK_ALL, entryIndex, command.substring(matcher.start(), matcher.end()));
+            }
+
+            // Loop through the groups and check if the group contains any blocked text.
+            BlockedTextMatcher blockedText = blockedTexts[entryIndex];
+            if(blockedText == null) break;
+
+            for(int i = 0; i <= matcher.groupCount(); i++) {
+                int start = matcher.start(i);
+                if(start < 0) continue;
+                int end = matcher.end(i);
+
+                if(trace != null) trace.record(TraceEvent.Type.GROUP, entryIndex, i, regex, command.substring(start, end));
+
+                if(blockedText.matches(command, start, end)) {
+                    String group = command.substring(start, end);
+                    if(trace != null) trace.record(TraceEvent.Type.BLOCKED_TEXT, entryIndex, i, regex, group);
+
+                    return new Verdict(Verdict.Type.BLOCKED_TEXT, entryIndex, group);
+                }
+            }
+        }
+
+        return Verdict.ALLOW;
+    }
+
+    /**
+     * This class holds the state of checking a command that is reused by every command checked on the same thread.
+     * It receives the matches of the automaton itself, so searching doesn't allocate a listener either.
+     * It only keeps the arrays it needs and not the rules themselves, so it never keeps replaced rules in memory.
+     */
+    private static final class Scratch implements AhoCorasick.MatchListener, TokenTree.MatchListener {
+        private final int[] patternEntries;
+        private final int[] patternClauses;
+        private final int[] clauseEntries;
+        private final int[] entryClauseCounts;
+        private final long[] groupMasks;
+        private final int[] positions;
+        private final TokenTree tokenTree;
+        private final DeadlineCharSequence input = new DeadlineCharSequence();
+        private final Matcher[] matchers;
+        private final long[] candidates;
+        private final long[] satisfiedClauses;
+        private final int[] satisfiedList;
+        private final int[] satisfiedCounts;
+        private final TokenTree.Tokens tokens;
+        private int satisfiedSize;
+        private int firstWord = Integer.MAX_VALUE;
+        private int lastWord = -1;
+        private long exemptGroups;
+        private boolean literalsOnly;
+        private int literalEntry;
+        private int literalPosition;
+        private int literalStart;
+        private int literalEnd;
+
+        /**
+         * Constructor
+         * @param rules The {@link CompiledRules} the state is for.
+         */
+        private Scratch(@NotNull CompiledRules rules) {
+            int entryCount = rules.entries.size();
+            this.patternEntries = rules.patternEntries;
+            this.patternClauses = rules.patternClauses;
+            this.clauseEntries = rules.clauseEntries;
+            this.entryClauseCounts = rules.entryClauseCounts;
+            this.groupMasks = rules.groupMasks;
+            this.positions = rules.positions;
+            this.tokenTree = rules.tokenTree;
+            this.matchers = new Matcher[entryCount];
+            this.candidates = new long[(entryCount + 63) >>> 6];
+            this.satisfiedClauses = new long[(clauseEntries.length + 63) >>> 6];
+            this.satisfiedList = new int[clauseEntries.length];
+            this.satisfiedCounts = new int[entryCount];
+            this.tokens = tokenTree != null ? new TokenTree.Tokens(tokenTree) : null;
+        }
+
+        /**
+         * Prepares the state for a new command.
+         * @param exemptGroups The mask of entry groups to ignore.
+         * @param literalsOnly Whether only the first literal entry found matters, so the search stops there and required literals are ignored.
+         */
+        void begin(long exemptGroups, boolean literalsOnly) {
+            this.exemptGroups = exemptGroups;
+            this.literalsOnly = literalsOnly;
+            this.literalEntry = -1;
+            this.literalPosition = Integer.MAX_VALUE;
+        }
+
+        @Override
+        public boolean onMatch(int patternId, int start, int end) {
+            int entryIndex = patternEntries[patternId];
+            if((groupMasks[entryIndex] & exemptGroups) != 0) return true;
+
+            int clause = patternClauses[patternId];
+            if(clause >= 0) {
+                if(!literalsOnly) satisfy(clause, entryIndex);
+            } else if(positions[entryIndex] < literalPosition) {
+                literalEntry = entryIndex;
+                literalPosition = positions[entryIndex];
+                literalStart = start;
+                literalEnd = end;
+                return !literalsOnly;
+            }
+
+            return true;
+        }
+
+        /**
+         * Marks a clause as found in the command, and the entry as a candidate once all of its clauses are.
+         * @param clause The index of the clause.
+         * @param entryIndex The index of the clause's entry.
+         */
+        private void satisfy(int clause, int entryIndex) {
+            long bit = 1L << clause;
+            int clauseWord = clause >>> 6;
+            if((satisfiedClauses[clauseWord] & bit) != 0) return;
+
+            satisfiedClauses[clauseWord] |= bit;
+            satisfiedList[satisfiedSize++] = clause;
+            if(++satisfiedCounts[entryIndex] < entryClauseCounts[entryIndex]) return;
+
+            markCandidate(entryIndex);
+        }
+
+        /**
+         * Splits a command into tokens and walks them down the token tree.
+         * @param command The command.
+         */
+        void walkTokens(@NotNull String command) {
+            tokens.split(command);
+            tokenTree.walk(tokens, this);
+        }
+
+        @Override
+        public void onMatch(int entryIndex) {
+            if((groupMasks[entryIndex] & exemptGroups) == 0) markCandidate(entryIndex);
+        }
+
+        /**
+         * Marks an entry to be checked at its position.
+         * @param entryIndex The index of the entry.
+         */
+        private void markCandidate(int entryIndex) {
+            int position = positions[entryIndex];
+            int word = position >>> 6;
+            candidates[word] |= 1L << position;
+            if(word < firstWord) firstWord = word;
+            if(word > lastWord) lastWord = word;
+        }
+
+        /**
+         * Finds the position of the next entry that was marked for the command, either because its required literals were all found or its tokens matched.
+         * @param from The position to start from, inclusive.
+         * @return The position, or -1 if there is none.
+         */
+        int nextCandidate(int from) {
+            int word = Math.max(from >>> 6, firstWord);
+            if(word > lastWord) return -1;
+
+            long bits = word == from >>> 6 ? candidates[word] & (-1L << from) : candidates[word];
+            while(true) {
+                if(bits != 0) return (word << 6) + Long.numberOfTrailingZeros(bits);
+                if(++word > lastWord) return -1;
+                bits = candidates[word];
+            }
+        }
+
+        /**
+         * Clears the indexed entries and clauses found in the last command.
+         */
+        void clearCandidates() {
+            for(int i = 0; i < satisfiedSize; i++) {
+                int clause = satisfiedList[i];
+                satisfiedClauses[clause >>> 6] = 0;
+                satisfiedCounts[clauseEntries[clause]] = 0;
+            }
+            satisfiedSize = 0;
+
+
+            for(int word = firstWord; word <= lastWord; word++) {
+                candidates[word] = 0;
+            }
+            firstWord = Integer.MAX_VALUE;
+            lastWord = -1;
+        }
+
+        /**
+         * Gets an entry's reusable matcher, reset to a command with a fresh deadline.
+         * @param entryIndex The index of the entry.
+         * @param regex The entry's regex.
+         * @param command The command.
+         * @param budgetNanos The time the regex may take in nanoseconds.
+         * @return The {@link Matcher}.
+         */
+        @NotNull
+        Matcher matcher(int entryIndex, @NotNull Pattern regex, @NotNull String command, long budgetNanos) {
+            input.reset(command, budgetNanos);
+
+            Matcher matcher = matchers[entryIndex];
+            if(matcher == null) {
+                matcher = regex.matcher(input);
+                matchers[entryIndex] = matcher;
+            } else {
+                matcher.reset(input);
+            }
+
+            return matcher;
+        }
+    }
+}
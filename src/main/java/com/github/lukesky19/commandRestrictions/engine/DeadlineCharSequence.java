@@ -0,0 +1,75 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link CharSequence} that throws a {@link MatchTimeoutException} once a deadline has passed.
+ * {@link java.util.regex.Matcher} reads the input through {@link #charAt(int)} for every step it takes,
+ * so wrapping the command in this class bounds the time a regex can spend on it, even while backtracking.
+ */
+public final class DeadlineCharSequence implements CharSequence {
+    // Reading the clock is far more expensive than reading a character, so it is only checked every few reads.
+    private static final int CHECK_INTERVAL = 1024;
+
+    private CharSequence text = "";
+    private long deadline;
+    private int reads;
+
+    /**
+     * Sets the text to wrap and the deadline for reading it.
+     * @param text The text to wrap.
+     * @param budgetNanos The time from now until the deadline in nanoseconds.
+     * @return This {@link DeadlineCharSequence}.
+     */
+    @NotNull
+    public DeadlineCharSequence reset(@NotNull CharSequence text, long budgetNanos) {
+        this.text = text;
+        this.deadline = System.nanoTime() + budgetNanos;
+        this.reads = 0;
+        return this;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if(++reads >= CHECK_INTERVAL) {
+            reads = 0;
+            if(System.nanoTime() - deadline > 0) throw new MatchTimeoutException();
+        }
+
+        return text.charAt(index);
+    }
+
+    @Override
+    public int length() {
+        return text.length();
+    }
+
+    @NotNull
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return text.subSequence(start, end);
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+}
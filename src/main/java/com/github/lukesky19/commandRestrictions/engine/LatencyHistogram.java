@@ -0,0 +1,125 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of nanosecond latencies with one bucket per power of two.
+ * Recording is a single striped counter increment, so it is cheap enough to leave on permanently.
+ */
+public final class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Constructor
+     */
+    public LatencyHistogram() {
+        for(int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a latency.
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        if(nanos < 0) nanos = 0;
+
+        // Bucket i holds latencies in [2^(i-1), 2^i), bucket 0 holds 0.
+        buckets[BUCKETS - Long.numberOfLeadingZeros(nanos)].increment();
+        count.increment();
+        totalNanos.add(nanos);
+    }
+
+    /**
+     * Gets the number of recorded latencies.
+     * @return The number of recorded latencies.
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the mean of the recorded latencies.
+     * @return The mean latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    public double meanNanos() {
+        long count = count();
+        return count == 0 ? 0 : (double) totalNanos.sum() / count;
+    }
+
+    /**
+     * Gets an upper bound of a percentile of the recorded latencies.
+     * @param percentile The percentile between 0 and 100.
+     * @return The upper bound of the bucket containing the percentile in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long percentileNanos(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if(total == 0) return 0;
+
+        long target = (long) Math.ceil(total * percentile / 100D);
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if(seen >= target && counts[i] > 0) return upperBound(i);
+        }
+
+        return upperBound(BUCKETS - 1);
+    }
+
+    /**
+     * Gets an upper bound of the largest recorded latency.
+     * @return The upper bound of the highest non-empty bucket in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long maxNanos() {
+        for(int i = BUCKETS - 1; i >= 0; i--) {
+            if(buckets[i].sum() > 0) return upperBound(i);
+        }
+
+        return 0;
+    }
+
+    /**
+     * Clears the histogram.
+     */
+    public void reset() {
+        for(LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        totalNanos.reset();
+    }
+
+    private static long upperBound(int bucket) {
+        if(bucket == 0) return 0;
+        if(bucket >= 63) return Long.MAX_VALUE;
+
+        return (1L << bucket) - 1;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+/**
+ * Thrown by {@link DeadlineCharSequence} when a regex takes longer than its budget to check a command.
+ */
+public final class MatchTimeoutException extends RuntimeException {
+    /**
+     * Constructor
+     */
+    public MatchTimeoutException() {
+        // The stack trace is never used and filling it in would slow down the timeout path.
+        super("The regex exceeded its match budget.", null, false, false);
+    }
+}
@@ -0,0 +1,343 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * This class inspects the source of configured regex to find the parts that can be handled without {@link java.util.regex}.
+ */
+public final class RegexAnalyzer {
+    private static final String META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    private RegexAnalyzer() {}
+
+    /**
+     * Gets the literal alternatives of a regex that only consists of plain text separated by {@code |}.
+     * A single non-capturing group wrapping the whole regex is allowed.
+     * @param pattern The {@link Pattern} to analyze.
+     * @return A {@link List} of literal alternatives, or null if the regex uses any other construct.
+     */
+    @Nullable
+    public static List<String> literalAlternatives(@NotNull Pattern pattern) {
+        if(pattern.flags() != 0) return null;
+
+        String source = unwrapGroup(pattern.pattern());
+        List<String> alternatives = new ArrayList<>();
+
+        for(String alternative : splitTopLevel(source)) {
+            String literal = unescapeLiteral(alternative);
+            if(literal == null || literal.isEmpty()) return null;
+
+            alternatives.add(literal);
+        }
+
+        return alternatives.isEmpty() ? null : alternatives;
+    }
+
+    /**
+     * Gets the command labels that every match of a regex has to start with.
+     * A label is the literal text at the start of a top-level alternative, or each alternative of a leading non-capturing group.
+     * @param pattern The {@link Pattern} to analyze.
+     * @return A {@link List} of labels that all start with {@code /}, or null if any alternative can start with something else.
+     */
+    @Nullable
+    public static List<String> leadingLabels(@NotNull Pattern pattern) {
+        if(pattern.flags() != 0) return null;
+
+        List<String> labels = new ArrayList<>();
+        for(String alternative : splitTopLevel(unwrapGroup(pattern.pattern()))) {
+            if(alternative.startsWith("^")) alternative = alternative.substring(1);
+
+            List<String> alternativeLabels = leadingLiterals(alternative);
+            if(alternativeLabels == null) return null;
+
+            for(String label : alternativeLabels) {
+                if(!label.startsWith("/")) return null;
+                labels.add(label);
+            }
+        }
+
+        return labels.isEmpty() ? null : labels;
+    }
+
+    /**
+     * Gets the literal text that every match of a regex has to contain, as clauses of alternatives.
+     * A command can only match if it contains at least one literal of every clause, so the regex doesn't need to run otherwise.
+     * Literals too short to be selective are left out, which only makes the clauses less strict.
+     * @param pattern The {@link Pattern} to analyze.
+     * @return A {@link List} of clauses, or null if no literal text is required or the regex uses flags.
+     */
+    @Nullable
+    public static List<List<String>> requiredLiterals(@NotNull Pattern pattern) {
+        if(pattern.flags() != 0) return null;
+
+        try {
+            List<List<String>> clauses = RequiredLiterals.extract(pattern.pattern());
+            return clauses.isEmpty() ? null : clauses;
+        } catch (UnsupportedOperationException | IndexOutOfBoundsException exception) {
+            // The regex uses something the parser can't account for, such as inline flags.
+            return null;
+        }
+    }
+
+    /**
+     * Checks if a regex repeats a group that itself contains a repetition, such as {@code (a+)+} or {@code (?:[^ ]*,)*}.
+     * Nested quantifiers can make {@link java.util.regex} backtrack for a time exponential in the length of the command.
+     * @param pattern The {@link Pattern} to analyze.
+     * @return true if the regex contains nested quantifiers, false if not.
+     */
+    public static boolean hasNestedQuantifier(@NotNull Pattern pattern) {
+        String source = pattern.pattern();
+        ArrayDeque<Boolean> enclosingGroups = new ArrayDeque<>();
+        // Whether the group currently being read contains a repetition.
+        boolean repeats = false;
+        boolean inClass = false;
+
+        for(int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+
+            if(c == '\\') {
+                i++;
+            } else if(inClass) {
+                if(c == ']') inClass = false;
+            } else if(c == '[') {
+                inClass = true;
+            } else if(c == '(') {
+                enclosingGroups.push(repeats);
+                repeats = false;
+            } else if(c == ')') {
+                boolean innerRepeats = repeats;
+                repeats = enclosingGroups.isEmpty() ? false : enclosingGroups.pop();
+
+                if(innerRepeats) {
+                    if(isRepetition(source, i + 1)) return true;
+                    repeats = true;
+                }
+            } else if(isRepetition(source, i)) {
+                repeats = true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if the character at the given index is a quantifier that allows more than one repetition.
+     * @param source The regex source.
+     * @param index The index to check.
+     * @return true if the character starts an unbounded or multiple repetition, false if not.
+     */
+    private static boolean isRepetition(@NotNull String source, int index) {
+        if(index >= source.length()) return false;
+
+        char c = source.charAt(index);
+        if(c == '*' || c == '+') return true;
+        if(c != '{') return false;
+
+        int close = source.indexOf('}', index);
+        if(close < 0) return false;
+
+        String bounds = source.substring(index + 1, close);
+        int comma = bounds.indexOf(',');
+        if(comma < 0) return false;
+
+        String upper = bounds.substring(comma + 1).trim();
+        if(upper.isEmpty()) return true;
+
+        try {
+            return Integer.parseInt(upper) > 1;
+        } catch (NumberFormatException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the literal text that a regex always starts with.
+     * @param source The regex source of a single alternative.
+     * @return A {@link List} of possible leading literals, or null if the regex doesn't start with literal text.
+     */
+    @Nullable
+    private static List<String> leadingLiterals(@NotNull String source) {
+        if(source.startsWith("(?:")) {
+            int close = findGroupEnd(source, 0);
+            if(close < 0 || isQuantifier(source, close + 1)) return null;
+
+            List<String> literals = new ArrayList<>();
+            for(String alternative : splitTopLevel(source.substring(3, close))) {
+                String literal = unescapeLiteral(alternative);
+                if(literal == null || literal.isEmpty()) return null;
+
+                literals.add(literal);
+            }
+
+            return literals;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            int next = i + 1;
+
+            if(c == '\\') {
+                if(next >= source.length() || Character.isLetterOrDigit(source.charAt(next))) break;
+                c = source.charAt(next++);
+            } else if(META_CHARACTERS.indexOf(c) >= 0) {
+                break;
+            }
+
+            // A quantified character is optional or repeated, so the literal ends before it.
+            if(isQuantifier(source, next)) break;
+
+            builder.append(c);
+            i = next - 1;
+        }
+
+        return builder.isEmpty() ? null : List.of(builder.toString());
+    }
+
+    /**
+     * Checks if the character at the given index is a quantifier.
+     * @param source The regex source.
+     * @param index The index to check.
+     * @return true if the character is a quantifier, false if not or if the index is out of bounds.
+     */
+    private static boolean isQuantifier(@NotNull String source, int index) {
+        if(index >= source.length()) return false;
+
+        char c = source.charAt(index);
+        return c == '?' || c == '*' || c == '+' || c == '{';
+    }
+
+    /**
+     * Removes a single non-capturing group that wraps the whole regex.
+     * @param source The regex source.
+     * @return The regex source without the wrapping group.
+     */
+    @NotNull
+    static String unwrapGroup(@NotNull String source) {
+        if(!source.startsWith("(?:") || !source.endsWith(")")) return source;
+
+        int close = findGroupEnd(source, 0);
+        if(close != source.length() - 1) return source;
+
+        // A quantifier after the group would have made close != length - 1, so the group can be safely removed.
+        return source.substring(3, source.length() - 1);
+    }
+
+    /**
+     * Finds the index of the parenthesis that closes the group opened at the given index.
+     * @param source The regex source.
+     * @param open The index of the opening parenthesis.
+     * @return The index of the closing parenthesis, or -1 if the group is never closed.
+     */
+    static int findGroupEnd(@NotNull String source, int open) {
+        int depth = 0;
+        boolean inClass = false;
+
+        for(int i = open; i < source.length(); i++) {
+            char c = source.charAt(i);
+
+            if(c == '\\') {
+                i++;
+            } else if(inClass) {
+                if(c == ']') inClass = false;
+            } else if(c == '[') {
+                inClass = true;
+            } else if(c == '(') {
+                depth++;
+            } else if(c == ')') {
+                depth--;
+                if(depth == 0) return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Splits a regex on every {@code |} that is not inside a group, a character class or an escape.
+     * @param source The regex source.
+     * @return A {@link List} of the top-level alternatives.
+     */
+    @NotNull
+    static List<String> splitTopLevel(@NotNull String source) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        boolean inClass = false;
+        int start = 0;
+
+        for(int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+
+            if(c == '\\') {
+                i++;
+            } else if(inClass) {
+                if(c == ']') inClass = false;
+            } else if(c == '[') {
+                inClass = true;
+            } else if(c == '(') {
+                depth++;
+            } else if(c == ')') {
+                depth--;
+            } else if(c == '|' && depth == 0) {
+                parts.add(source.substring(start, i));
+                start = i + 1;
+            }
+        }
+
+        parts.add(source.substring(start));
+        return parts;
+    }
+
+    /**
+     * Converts a regex that only matches a fixed string into that string.
+     * @param source The regex source.
+     * @return The literal text, or null if the regex contains anything other than plain or escaped characters.
+     */
+    @Nullable
+    static String unescapeLiteral(@NotNull String source) {
+        StringBuilder builder = new StringBuilder(source.length());
+
+        for(int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+
+            if(c == '\\') {
+                if(i + 1 >= source.length()) return null;
+
+                char escaped = source.charAt(++i);
+                // Escaped letters and digits are character classes, back-references or special characters.
+                if(Character.isLetterOrDigit(escaped)) return null;
+
+                builder.append(escaped);
+            } else if(META_CHARACTERS.indexOf(c) >= 0) {
+                return null;
+            } else {
+                builder.append(c);
+            }
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,455 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class extracts the literal text a regex requires, in the style of the prefilters used by RE2 and Hyperscan.
+ * The regex source is parsed into the set of exact strings each part can match where that set is small,
+ * and otherwise into clauses of literals where at least one literal of every clause must appear in any match.
+ * Anything the parser doesn't understand matches any text, so the result can only be less selective, never wrong.
+ */
+final class RequiredLiterals {
+    // Literals shorter than this appear in too many commands to be worth searching for.
+    private static final int MIN_LITERAL_LENGTH = 3;
+    private static final int MAX_EXACT_STRINGS = 16;
+    private static final int MAX_CLAUSE_SIZE = 64;
+
+    private final String source;
+    private int position;
+
+    private RequiredLiterals(@NotNull String source) {
+        this.source = source;
+    }
+
+    /**
+     * Extracts the literal text a regex source requires.
+     * @param source The regex source. It must compile without flags.
+     * @return A {@link List} of clauses, where every match contains at least one literal of each clause, or an empty list if nothing is required.
+     * @throws UnsupportedOperationException If the regex changes its flags inline, which could make the literals case insensitive.
+     */
+    @NotNull
+    static List<List<String>> extract(@NotNull String source) {
+        RequiredLiterals parser = new RequiredLiterals(source);
+        Info info = parser.parseAlternation();
+        if(parser.position < source.length()) return List.of();
+
+        List<List<String>> clauses = new ArrayList<>();
+        for(Set<String> clause : info.requiredClauses()) {
+            List<String> literals = List.copyOf(clause);
+            if(!clauses.contains(literals)) clauses.add(literals);
+        }
+        return clauses;
+    }
+
+    /**
+     * Parses alternatives separated by {@code |} up to the end of the source or the enclosing group.
+     * @return The {@link Info} of the alternation.
+     */
+    @NotNull
+    private Info parseAlternation() {
+        List<Info> alternatives = new ArrayList<>();
+        alternatives.add(parseConcatenation());
+        while(position < source.length() && source.charAt(position) == '|') {
+            position++;
+            alternatives.add(parseConcatenation());
+        }
+
+        return alternatives.size() == 1 ? alternatives.getFirst() : Info.alternation(alternatives);
+    }
+
+    /**
+     * Parses a sequence of quantified atoms up to the next {@code |}, the end of the enclosing group or the end of the source.
+     * @return The {@link Info} of the sequence.
+     */
+    @NotNull
+    private Info parseConcatenation() {
+        Concatenation concatenation = new Concatenation();
+        while(position < source.length()) {
+            char c = source.charAt(position);
+            if(c == '|' || c == ')') break;
+
+            concatenation.add(parseQuantifier(parseAtom()));
+        }
+
+        return concatenation.finish();
+    }
+
+    /**
+     * Parses a single character, escape, character class or group.
+     * @return The {@link Info} of the atom.
+     */
+    @NotNull
+    private Info parseAtom() {
+        char c = source.charAt(position++);
+        switch(c) {
+            case '(' -> {
+                return parseGroup();
+            }
+            case '[' -> {
+                return parseClass();
+            }
+            case '.' -> {
+                return Info.ANY;
+            }
+            case '^', '$' -> {
+                return Info.EMPTY;
+            }
+            case '\\' -> {
+                return parseEscape();
+            }
+            default -> {
+                return Info.literal(String.valueOf(c));
+            }
+        }
+    }
+
+    /**
+     * Parses a group after its opening parenthesis, including the closing parenthesis.
+     * @return The {@link Info} of the group.
+     */
+    @NotNull
+    private Info parseGroup() {
+        boolean lookaround = false;
+        if(source.startsWith("?", position)) {
+            if(source.startsWith("?:", position) || source.startsWith("?>", position)) {
+                position += 2;
+            } else if(source.startsWith("?=", position) || source.startsWith("?!", position)) {
+                position += 2;
+                lookaround = true;
+            } else if(source.startsWith("?<=", position) || source.startsWith("?<!", position)) {
+                position += 3;
+                lookaround = true;
+            } else if(source.startsWith("?<", position)) {
+                position = source.indexOf('>', position) + 1;
+                if(position == 0) throw new UnsupportedOperationException("Unclosed group name.");
+            } else {
+                throw new UnsupportedOperationException("Inline flags are not supported.");
+            }
+        }
+
+        Info inner = parseAlternation();
+        if(position >= source.length() || source.charAt(position) != ')') throw new UnsupportedOperationException("Unclosed group.");
+        position++;
+
+        // A lookaround doesn't consume any text, and what it requires isn't tracked.
+        return lookaround ? Info.EMPTY : inner;
+    }
+
+    /**
+     * Parses a character class after its opening bracket, including the closing bracket.
+     * @return The {@link Info} of the class, which is only a literal if the class contains a single plain character.
+     */
+    @NotNull
+    private Info parseClass() {
+        int start = position;
+        int depth = 1;
+        while(position < source.length()) {
+            char c = source.charAt(position++);
+            if(c == '\\') {
+                position++;
+            } else if(c == '[') {
+                depth++;
+            } else if(c == ']' && position - 1 > start && --depth == 0) {
+                break;
+            }
+        }
+        if(depth != 0) throw new UnsupportedOperationException("Unclosed character class.");
+
+        String body = source.substring(start, position - 1);
+        if(body.length() == 1 && body.charAt(0) != '^') return Info.literal(body);
+        if(body.length() == 2 && body.charAt(0) == '\\' && !Character.isLetterOrDigit(body.charAt(1))) return Info.literal(body.substring(1));
+
+        return Info.ANY;
+    }
+
+    /**
+     * Parses an escape after its backslash.
+     * @return The {@link Info} of the escape.
+     */
+    @NotNull
+    private Info parseEscape() {
+        if(position >= source.length()) throw new UnsupportedOperationException("Trailing backslash.");
+
+        char c = source.charAt(position++);
+        if(!Character.isLetterOrDigit(c)) return Info.literal(String.valueOf(c));
+
+        switch(c) {
+            case 'b', 'B', 'A', 'G', 'Z', 'z' -> {
+                return Info.EMPTY;
+            }
+            case 'Q' -> {
+                int end = source.indexOf("\\E", position);
+                String quoted = source.substring(position, end < 0 ? source.length() : end);
+                position = end < 0 ? source.length() : end + 2;
+
+                Concatenation concatenation = new Concatenation();
+                for(int i = 0; i < quoted.length(); i++) {
+                    concatenation.add(Info.literal(String.valueOf(quoted.charAt(i))));
+                }
+                return concatenation.finish();
+            }
+            case 'p', 'P', 'N', 'x', 'k' -> {
+                // Skip the braced or named argument. Two digit hex escapes are skipped as the atom after them, which is still safe.
+                char open = c == 'k' ? '<' : '{';
+                char close = c == 'k' ? '>' : '}';
+                if(position < source.length() && source.charAt(position) == open) {
+                    position = source.indexOf(close, position) + 1;
+                    if(position == 0) throw new UnsupportedOperationException("Unclosed escape.");
+                } else if(c == 'x') {
+                    position = Math.min(position + 2, source.length());
+                } else if(c != 'N') {
+                    position = Math.min(position + 1, source.length());
+                }
+                return Info.ANY;
+            }
+            case 'u' -> {
+                position = Math.min(position + 4, source.length());
+                return Info.ANY;
+            }
+            case 'c' -> {
+                position = Math.min(position + 1, source.length());
+                return Info.ANY;
+            }
+            default -> {
+                // Octal escapes and back-references are followed by more digits.
+                if(Character.isDigit(c)) {
+                    while(position < source.length() && Character.isDigit(source.charAt(position))) position++;
+                }
+                return Info.ANY;
+            }
+        }
+    }
+
+    /**
+     * Applies the quantifier after an atom, if there is one.
+     * @param atom The {@link Info} of the atom.
+     * @return The {@link Info} of the quantified atom.
+     */
+    @NotNull
+    private Info parseQuantifier(@NotNull Info atom) {
+        if(position >= source.length()) return atom;
+
+        int min;
+        int max;
+        char c = source.charAt(position);
+        if(c == '?') {
+            min = 0;
+            max = 1;
+            position++;
+        } else if(c == '*') {
+            min = 0;
+            max = Integer.MAX_VALUE;
+            position++;
+        } else if(c == '+') {
+            min = 1;
+            max = Integer.MAX_VALUE;
+            position++;
+        } else if(c == '{') {
+            int close = source.indexOf('}', position);
+            if(close < 0) return atom;
+
+            String bounds = source.substring(position + 1, close);
+            int comma = bounds.indexOf(',');
+            try {
+                min = Integer.parseInt((comma < 0 ? bounds : bounds.substring(0, comma)).trim());
+                String upper = comma < 0 ? bounds : bounds.substring(comma + 1).trim();
+                max = upper.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(upper);
+            } catch (NumberFormatException exception) {
+                return atom;
+            }
+            position = close + 1;
+        } else {
+            return atom;
+        }
+
+        // Skip the lazy or possessive modifier, which doesn't change what can match.
+        if(position < source.length() && (source.charAt(position) == '?' || source.charAt(position) == '+')) position++;
+
+        if(min == 1 && max == 1) return atom;
+        if(min == 0) return max == 1 ? atom.optional() : Info.ANY;
+        return atom.repeated();
+    }
+
+    /**
+     * This class joins the {@link Info} of consecutive atoms.
+     * Exact strings are combined for as long as the number of combinations stays small, and turned into a clause after that.
+     */
+    private static final class Concatenation {
+        private final List<Set<String>> clauses = new ArrayList<>();
+        private Set<String> run = Set.of("");
+        private boolean exact = true;
+
+        /**
+         * Appends an atom to the sequence.
+         * @param info The {@link Info} of the atom.
+         */
+        void add(@NotNull Info info) {
+            clauses.addAll(info.clauses());
+
+            if(info.exact() == null) {
+                exact = false;
+                flush();
+                run = Set.of("");
+                return;
+            }
+
+            if(run.size() * info.exact().size() > MAX_EXACT_STRINGS) {
+                exact = false;
+                flush();
+                run = info.exact();
+                return;
+            }
+
+            Set<String> combined = new LinkedHashSet<>();
+            for(String prefix : run) {
+                for(String suffix : info.exact()) {
+                    combined.add(prefix + suffix);
+                }
+            }
+            run = combined;
+        }
+
+        /**
+         * Gets the {@link Info} of the whole sequence.
+         * @return The {@link Info}.
+         */
+        @NotNull
+        Info finish() {
+            if(exact) return new Info(run, clauses);
+
+            flush();
+            return new Info(null, clauses);
+        }
+
+        private void flush() {
+            Set<String> clause = Info.clause(run);
+            if(clause != null) clauses.add(clause);
+        }
+    }
+
+    /**
+     * This record describes what a part of a regex can match.
+     * @param exact The exact strings the part matches, or null if there are too many to list.
+     * @param clauses The clauses of literals the part requires, in addition to what its exact strings describe.
+     */
+    private record Info(@Nullable Set<String> exact, @NotNull List<Set<String>> clauses) {
+        static final Info ANY = new Info(null, List.of());
+        static final Info EMPTY = new Info(Set.of(""), List.of());
+
+        static Info literal(@NotNull String text) {
+            return new Info(Set.of(text), List.of());
+        }
+
+        /**
+         * Gets the info of the part repeated at least once.
+         * @return The {@link Info}.
+         */
+        @NotNull
+        Info repeated() {
+            return new Info(null, requiredClauses());
+        }
+
+        /**
+         * Gets the info of the part matched zero or one time.
+         * @return The {@link Info}.
+         */
+        @NotNull
+        Info optional() {
+            if(exact == null) return ANY;
+
+            Set<String> strings = new LinkedHashSet<>(exact);
+            strings.add("");
+            return new Info(strings, List.of());
+        }
+
+        /**
+         * Gets every clause the part requires, including its exact strings as a clause.
+         * @return A {@link List} of clauses.
+         */
+        @NotNull
+        List<Set<String>> requiredClauses() {
+            if(exact == null) return clauses;
+
+            Set<String> clause = clause(exact);
+            if(clause == null) return clauses;
+
+            List<Set<String>> required = new ArrayList<>(clauses);
+            required.add(clause);
+            return required;
+        }
+
+        /**
+         * Gets the info of alternatives. If every alternative has exact strings they are combined,
+         * otherwise the best clause of each alternative is joined into one clause.
+         * @param alternatives The {@link Info} of each alternative.
+         * @return The {@link Info}.
+         */
+        @NotNull
+        static Info alternation(@NotNull List<Info> alternatives) {
+            Set<String> strings = new LinkedHashSet<>();
+            for(Info alternative : alternatives) {
+                if(alternative.exact() == null || !alternative.clauses().isEmpty()) {
+                    strings = null;
+                    break;
+                }
+                strings.addAll(alternative.exact());
+            }
+            if(strings != null && strings.size() <= MAX_EXACT_STRINGS) return new Info(strings, List.of());
+
+            Set<String> clause = new LinkedHashSet<>();
+            for(Info alternative : alternatives) {
+                Set<String> best = null;
+                for(Set<String> candidate : alternative.requiredClauses()) {
+                    if(best == null || shortest(candidate) > shortest(best)) best = candidate;
+                }
+                if(best == null) return ANY;
+
+                clause.addAll(best);
+            }
+
+            return clause.size() > MAX_CLAUSE_SIZE ? ANY : new Info(null, List.of(clause));
+        }
+
+        /**
+         * Turns exact strings into a clause.
+         * @param strings The exact strings.
+         * @return The clause, or null if any string is too short to be worth searching for.
+         */
+        @Nullable
+        static Set<String> clause(@NotNull Set<String> strings) {
+            if(strings.isEmpty() || strings.size() > MAX_CLAUSE_SIZE) return null;
+            return shortest(strings) < MIN_LITERAL_LENGTH ? null : strings;
+        }
+
+        private static int shortest(@NotNull Set<String> strings) {
+            int shortest = Integer.MAX_VALUE;
+            for(String string : strings) {
+                shortest = Math.min(shortest, string.length());
+            }
+            return shortest;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * This class checks commands from any source against the current {@link RuleSnapshot}.
+ * Everything it reads is either immutable or published atomically, so it can be called from the main thread
+ * and from async threads at the same time without any locking of its own.
+ */
+public final class RestrictionEngine {
+    private final Supplier<RuleSnapshot> snapshots;
+    private final Supplier<CommandNormalizer> normalizers;
+
+    /**
+     * Constructor
+     * @param snapshots A {@link Supplier} of the current {@link RuleSnapshot}, which may supply null if the settings never loaded.
+     * @param normalizers A {@link Supplier} of the current {@link CommandNormalizer}.
+     */
+    public RestrictionEngine(@NotNull Supplier<RuleSnapshot> snapshots, @NotNull Supplier<CommandNormalizer> normalizers) {
+        this.snapshots = snapshots;
+        this.normalizers = normalizers;
+    }
+
+    /**
+     * Gets the current rule snapshot.
+     * Callers should read the snapshot once and pass it to {@link #check(RuleSnapshot, String, long, boolean, CommandTrace)}
+     * so a reload in the middle of handling an event can't mix rules.
+     * @return The current {@link RuleSnapshot}, or null if the settings have never loaded successfully.
+     */
+    @Nullable
+    public RuleSnapshot getSnapshot() {
+        return snapshots.get();
+    }
+
+    /**
+     * Checks a command against a rule snapshot.
+     * The command is normalized first if the settings enable it.
+     * The verdict cache is only used for senders without exemptions and for commands that aren't traced,
+     * so cached verdicts always reflect every entry. Verdicts of matches that timed out are never cached.
+     * @param snapshot The {@link RuleSnapshot} to check against.
+     * @param command The command to check, starting with a slash.
+     * @param exemptGroups The mask of entry groups the sender is exempt from, or 0 if the sender has no exemptions.
+     * @param record Whether to record the check in the snapshot's {@link RuleMetrics}. Checks that don't run a command, like tab completion, shouldn't be recorded.
+     * @param trace The {@link CommandTrace} to record the steps of the check in, or null if the command isn't traced.
+     * @return The {@link Verdict} for the command.
+     */
+    @NotNull
+    public Verdict check(@NotNull RuleSnapshot snapshot, @NotNull String command, long exemptGroups, boolean record, @Nullable CommandTrace trace) {
+        @Nullable CommandNormalizer normalizer = snapshot.settings().normalizeCommands() ? normalizers.get() : null;
+        return check(snapshot, normalizer, command, exemptGroups, record ? snapshot.metrics() : null, trace);
+    }
+
+    /**
+     * Checks several commands against the same rule snapshot.
+     * The normalizer, cache and metrics are resolved once for the whole batch instead of once per command,
+     * and every command is checked against the same entries even if the settings are reloaded in the meantime.
+     * @param snapshot The {@link RuleSnapshot} to check against.
+     * @param commands The commands to check, each starting with a slash.
+     * @param exemptGroups The mask of entry groups the sender is exempt from, or 0 if the sender has no exemptions.
+     * @param record Whether to record the checks in the snapshot's {@link RuleMetrics}.
+     * @return The {@link Verdict} for each command, in the same order as the commands.
+     */
+    @NotNull
+    public List<Verdict> checkAll(@NotNull RuleSnapshot snapshot, @NotNull List<String> commands, long exemptGroups, boolean record) {
+        @Nullable CommandNormalizer normalizer = snapshot.settings().normalizeCommands() ? normalizers.get() : null;
+        @Nullable RuleMetrics metrics = record ? snapshot.metrics() : null;
+
+        Verdict[] verdicts = new Verdict[commands.size()];
+        for(int i = 0; i < verdicts.length; i++) {
+            verdicts[i] = check(snapshot, normalizer, commands.get(i), exemptGroups, metrics, null);
+        }
+
+        return Arrays.asList(verdicts);
+    }
+
+    /**
+     * Checks a command against a rule snapshot with an already resolved normalizer.
+     * @param snapshot The {@link RuleSnapshot} to check against.
+     * @param normalizer The {@link CommandNormalizer} to normalize the command with, or null if commands aren't normalized.
+     * @param command The command to check, starting with a slash.
+     * @param exemptGroups The mask of entry groups the sender is exempt from, or 0 if the sender has no exemptions.
+     * @param metrics The {@link RuleMetrics} to record the check in, or null to not record it.
+     * @param trace The {@link CommandTrace} to record the steps of the check in, or null if the command isn't traced.
+     * @return The {@link Verdict} for the command.
+     */
+    @NotNull
+    private Verdict check(
+            @NotNull RuleSnapshot snapshot,
+            @Nullable CommandNormalizer normalizer,
+            @NotNull String command,
+            long exemptGroups,
+            @Nullable RuleMetrics metrics,
+            @Nullable CommandTrace trace) {
+        // Resolve the label to its canonical form so entries don't need to list every alias.
+        String checkedCommand = normalizer != null ? normalizer.normalize(command) : command;
+        if(trace != null && !checkedCommand.equals(command)) trace.record(TraceEvent.Type.NORMALIZED, -1, -1, null, checkedCommand);
+
+        CompiledRules compiledRules = snapshot.compiledRules();
+        @Nullable VerdictCache verdictCache = snapshot.verdictCache();
+
+        // Check the command against the compiled entries, unless the verdict is already cached.
+        // The cache is skipped when tracing so every traced command records its steps.
+        long start = System.nanoTime();
+        Verdict verdict;
+        if(verdictCache != null && exemptGroups == 0 && trace == null) {
+            verdict = verdictCache.get(checkedCommand);
+            if(verdict == null) {
+                verdict = compiledRules.evaluate(checkedCommand, metrics, null);
+                // A timeout depends on how busy the server was, not on the command, so it must be checked again next time.
+                if(verdict.type() != Verdict.Type.MATCH_TIMEOUT) verdictCache.put(checkedCommand, verdict);
+            } else if(metrics != null && verdict.blocked()) {
+                // Count the match the skipped evaluation would have recorded, so the statistics include cached commands.
+                metrics.recordMatch(verdict.entryIndex());
+            }
+        } else {
+            verdict = compiledRules.evaluate(checkedCommand, exemptGroups, metrics, trace);
+        }
+
+        if(metrics != null) metrics.recordCommand(verdict, System.nanoTime() - start);
+        if(trace != null) trace.record(TraceEvent.Type.VERDICT, verdict.entryIndex(), -1, null, verdict.type().name());
+        return verdict;
+    }
+}
@@ -0,0 +1,268 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+
+/**
+ * This class stores the {@link RuleIndex} of the entries in a binary file, so the next start can skip analyzing every regex
+ * and building the automaton. The file is keyed by a SHA-256 hash of the entries and the plugin version, and ends with a
+ * CRC32C checksum. It is read in one call onto the heap. A file that is stale, from another format version or damaged is ignored.
+ * The entries' {@link Pattern}s are still compiled when the settings are loaded, since they can't be stored.
+ */
+public final class RuleCache {
+    private static final int MAGIC = 0x43525243; // "CRRC"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HASH_LENGTH = 32;
+
+    private final Path file;
+    private final String pluginVersion;
+
+    /**
+     * Constructor
+     * @param file The {@link Path} of the cache file.
+     * @param pluginVersion The plugin's version, so a new version never reuses an index built by an older one.
+     */
+    public RuleCache(@NotNull Path file, @NotNull String pluginVersion) {
+        this.file = file;
+        this.pluginVersion = pluginVersion;
+    }
+
+    /**
+     * Loads the stored index if it was built from the same entries.
+     * @param entries The configured entries.
+     * @return The stored {@link RuleIndex}, or null if there is no usable index for the entries.
+     */
+    @Nullable
+    RuleIndex load(@NotNull List<Settings.Entry> entries) {
+        if(!Files.isRegularFile(file)) return null;
+
+        try {
+            // The file is read onto the heap instead of being memory-mapped, since Windows refuses to replace a mapped file in store.
+            byte[] bytes = Files.readAllBytes(file);
+            int size = bytes.length;
+            if(size < 16 + HASH_LENGTH) return null;
+
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+            // Check the trailing checksum before trusting anything else in the file.
+            ByteBuffer body = buffer.slice(0, size - Long.BYTES);
+            CRC32C crc = new CRC32C();
+            crc.update(body.duplicate());
+            if(crc.getValue() != buffer.getLong(size - Long.BYTES)) return null;
+
+            if(body.getInt() != MAGIC || body.getInt() != FORMAT_VERSION) return null;
+
+            byte[] hash = new byte[HASH_LENGTH];
+            body.get(hash);
+            if(!Arrays.equals(hash, hash(entries))) return null;
+
+            RuleIndex index = read(body, entries.size());
+            return body.hasRemaining() ? null : index;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException exception) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores an index for the entries it was built from, replacing the file atomically.
+     * Failing to write the cache only costs a full compile on the next start, so errors are ignored.
+     * @param entries The configured entries.
+     * @param index The {@link RuleIndex} built from the entries.
+     */
+    void store(@NotNull List<Settings.Entry> entries, @NotNull RuleIndex index) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.write(hash(entries));
+            write(out, index);
+            out.flush();
+
+            CRC32C crc = new CRC32C();
+            crc.update(bytes.toByteArray());
+            out.writeLong(crc.getValue());
+            out.flush();
+
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ignored) {
+            // The index is rebuilt on the next start instead.
+        }
+    }
+
+    private static void write(@NotNull DataOutputStream out, @NotNull RuleIndex index) throws IOException {
+        out.writeInt(index.invalidEntries());
+        writeInts(out, index.patternEntries());
+        writeInts(out, index.patternClauses());
+        writeInts(out, index.clauseEntries());
+        writeInts(out, index.unindexedEntries());
+        writeInts(out, index.unsafeEntries());
+
+        out.writeInt(index.groups().size());
+        for(String group : index.groups()) {
+            byte[] utf = group.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf.length);
+            out.write(utf);
+        }
+
+        out.writeInt(index.groupMasks().length);
+        for(long mask : index.groupMasks()) {
+            out.writeLong(mask);
+        }
+
+        out.writeBoolean(index.automaton() != null);
+        if(index.automaton() != null) index.automaton().write(out);
+    }
+
+    @NotNull
+    private static RuleIndex read(@NotNull ByteBuffer buffer, int entryCount) {
+        int invalidEntries = buffer.getInt();
+        int[] patternEntries = readEntryIndexes(buffer, entryCount);
+        int[] patternClauses = new int[readCount(buffer)];
+        if(patternClauses.length != patternEntries.length) throw new IllegalArgumentException("Pattern count mismatch.");
+        for(int i = 0; i < patternClauses.length; i++) {
+            patternClauses[i] = buffer.getInt();
+        }
+        int[] clauseEntries = readEntryIndexes(buffer, entryCount);
+        for(int i = 0; i < patternClauses.length; i++) {
+            int clause = patternClauses[i];
+            if(clause < -1 || clause >= clauseEntries.length || (clause >= 0 && clauseEntries[clause] != patternEntries[i])) {
+                throw new IllegalArgumentException("Pattern clause out of range.");
+            }
+        }
+
+        int[] unindexedEntries = readEntryIndexes(buffer, entryCount);
+        int[] unsafeEntries = readEntryIndexes(buffer, entryCount);
+
+        int groupCount = readCount(buffer);
+        List<String> groups = new ArrayList<>(groupCount);
+        for(int i = 0; i < groupCount; i++) {
+            byte[] utf = new byte[readCount(buffer)];
+            buffer.get(utf);
+            groups.add(new String(utf, StandardCharsets.UTF_8));
+        }
+
+        int maskCount = buffer.getInt();
+        if(maskCount != entryCount) throw new IllegalArgumentException("Group mask count mismatch.");
+        long[] groupMasks = new long[maskCount];
+        for(int i = 0; i < maskCount; i++) {
+            groupMasks[i] = buffer.getLong();
+        }
+
+        AhoCorasick automaton = buffer.get() != 0 ? AhoCorasick.read(buffer) : null;
+        if((automaton == null ? 0 : automaton.patternCount()) != patternEntries.length) throw new IllegalArgumentException("Automaton pattern count mismatch.");
+
+        return new RuleIndex(automaton, patternEntries, patternClauses, clauseEntries, unindexedEntries, invalidEntries, List.copyOf(groups), groupMasks, unsafeEntries);
+    }
+
+    private static void writeInts(@NotNull DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for(int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readEntryIndexes(@NotNull ByteBuffer buffer, int entryCount) {
+        int[] values = new int[readCount(buffer)];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = buffer.getInt();
+            if(values[i] < 0 || values[i] >= entryCount) throw new IllegalArgumentException("Entry index out of range.");
+        }
+        return values;
+    }
+
+    private static int readCount(@NotNull ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if(count < 0 || count > buffer.remaining()) throw new IllegalArgumentException("Invalid count " + count + ".");
+        return count;
+    }
+
+    /**
+     * Hashes everything about the entries that the index depends on, along with the plugin version.
+     * @param entries The configured entries.
+     * @return The SHA-256 hash.
+     */
+    private byte[] hash(@NotNull List<Settings.Entry> entries) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+
+        ByteBuffer number = ByteBuffer.allocate(Integer.BYTES);
+        digest.update(pluginVersion.getBytes(StandardCharsets.UTF_8));
+        digest.update(number.putInt(0, entries.size()));
+        for(Settings.Entry entry : entries) {
+            Pattern regex = entry.regex();
+            updateString(digest, regex != null ? regex.pattern() : null);
+            digest.update(number.clear().putInt(0, regex != null ? regex.flags() : 0));
+            digest.update((byte) (entry.blockAllMatches() ? 1 : 0));
+            updateString(digest, entry.group());
+
+            // Whether a token entry is valid decides if it is counted as invalid.
+            List<String> tokens = entry.tokens();
+            digest.update(number.clear().putInt(0, tokens != null ? tokens.size() : -1));
+            if(tokens != null) {
+                for(String token : tokens) {
+                    updateString(digest, token);
+                }
+            }
+            digest.update(number.clear().putInt(0, entry.blockedArgument()));
+        }
+
+        return digest.digest();
+    }
+
+    private static void updateString(@NotNull MessageDigest digest, @Nullable String value) {
+        // Prefix each string with its length, or -1 for null, so different entries can't hash the same.
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        if(value == null) {
+            digest.update(length.putInt(0, -1));
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(length.putInt(0, bytes.length));
+        digest.update(bytes);
+    }
+}
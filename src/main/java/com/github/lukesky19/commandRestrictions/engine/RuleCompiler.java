@@ -0,0 +1,232 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * This class compiles the configured entries into {@link CompiledRules} when the plugin's settings are reloaded.
+ */
+public final class RuleCompiler {
+    private static final long DEFAULT_BUDGET_MICROS = 5000;
+    /**
+     * The maximum number of groups that can be bypassed, one for each bit of a long.
+     */
+    public static final int MAX_GROUPS = Long.SIZE;
+    // Further clauses rarely rule out more commands, but every literal in them is searched for.
+    private static final int MAX_CLAUSES = 8;
+
+    private RuleCompiler() {}
+
+    /**
+     * Compiles the entries of the plugin's settings without a handler for quarantined entries.
+     * @param settings The plugin's {@link Settings}.
+     * @return The {@link CompiledRules}.
+     */
+    @NotNull
+    public static CompiledRules compile(@NotNull Settings settings) {
+        return compile(settings, null);
+    }
+
+    /**
+     * Compiles the entries of the plugin's settings.
+     * Entries with block-all-matches enabled whose regex is a list of plain text alternatives are merged into a single {@link AhoCorasick} automaton.
+     * All other entries with a regex fall back to {@link java.util.regex}, and are indexed by the command labels their regex starts with
+     * and the other literal text their regex requires when possible, so they only run when that text is in the command.
+     * Entries with tokens instead of a regex are merged into a {@link TokenTree}.
+     * Entries with nested quantifiers are flagged as unsafe. Rejecting them is up to the caller.
+     * Timeouts fail open unless the regex protection settings enable failing closed.
+     * Each distinct group is given a bit in order of first use. Entries in groups past {@link #MAX_GROUPS} can't be bypassed.
+     * @param settings The plugin's {@link Settings}.
+     * @param quarantineHandler An {@link IntConsumer} called with the entry index when an entry is quarantined at runtime, or null.
+     * @return The {@link CompiledRules}.
+     */
+    @NotNull
+    public static CompiledRules compile(@NotNull Settings settings, @Nullable IntConsumer quarantineHandler) {
+        return compile(settings, quarantineHandler, null);
+    }
+
+    /**
+     * Compiles the entries of the plugin's settings, reusing the index stored in a {@link RuleCache} if it was built from the same entries.
+     * If the cache is missing, stale or corrupt, the index is built from scratch and stored in the cache for the next load.
+     * @param settings The plugin's {@link Settings}.
+     * @param quarantineHandler An {@link IntConsumer} called with the entry index when an entry is quarantined at runtime, or null.
+     * @param ruleCache The {@link RuleCache} to load the index from and store it in, or null to always build it.
+     * @return The {@link CompiledRules}.
+     */
+    @NotNull
+    public static CompiledRules compile(@NotNull Settings settings, @Nullable IntConsumer quarantineHandler, @Nullable RuleCache ruleCache) {
+        return compile(settings, quarantineHandler, ruleCache, true);
+    }
+
+    /**
+     * Compiles the entries of the plugin's settings for tools that check commands offline, like the replay.
+     * Entries that time out are never quarantined and timeouts always fail open, so every command is checked against the same entries
+     * however busy the machine is, and the verdicts can be compared between runs.
+     * @param settings The plugin's {@link Settings}.
+     * @param timeoutHandler An {@link IntConsumer} called with the entry index every time an entry takes too long to check a command, or null.
+     * @return The {@link CompiledRules}.
+     */
+    @NotNull
+    public static CompiledRules compileWithoutQuarantine(@NotNull Settings settings, @Nullable IntConsumer timeoutHandler) {
+        return compile(settings, timeoutHandler, null, false);
+    }
+
+    /**
+     * Compiles the entries of the plugin's settings.
+     * @param settings The plugin's {@link Settings}.
+     * @param timeoutHandler An {@link IntConsumer} called with the entry index when an entry is quarantined at runtime,
+     *                       or every time an entry times out if timeouts aren't quarantined, or null.
+     * @param ruleCache The {@link RuleCache} to load the index from and store it in, or null to always build it.
+     * @param quarantineTimeouts Whether entries that time out are quarantined.
+     * @return The {@link CompiledRules}.
+     */
+    @NotNull
+    private static CompiledRules compile(
+            @NotNull Settings settings,
+            @Nullable IntConsumer timeoutHandler,
+            @Nullable RuleCache ruleCache,
+            boolean quarantineTimeouts) {
+        Settings.RegexProtection protection = settings.regexProtection();
+        long budgetMicros = protection != null && protection.budgetMicros() > 0 ? protection.budgetMicros() : DEFAULT_BUDGET_MICROS;
+        boolean failClosed = quarantineTimeouts && protection != null && protection.failClosed();
+
+        // Configurate leaves the list null if the entries key is missing.
+        //noinspection ConstantValue
+        List<Settings.Entry> entries = settings.entries() == null ? List.of() : List.copyOf(settings.entries());
+
+        RuleIndex index = ruleCache != null ? ruleCache.load(entries) : null;
+        if(index == null) {
+            index = index(entries);
+            if(ruleCache != null) ruleCache.store(entries, index);
+        }
+
+        // Configurate leaves the list null if the key is missing.
+        Settings.AdaptiveOrdering adaptiveOrdering = settings.adaptiveOrdering();
+        Set<String> orderInsensitiveGroups = adaptiveOrdering != null && adaptiveOrdering.enabled() && adaptiveOrdering.orderInsensitiveGroups() != null
+                ? Set.copyOf(adaptiveOrdering.orderInsensitiveGroups()) : Set.of();
+
+        return new CompiledRules(entries, index, orderInsensitiveGroups, budgetMicros * 1000, failClosed, quarantineTimeouts, timeoutHandler);
+    }
+
+    /**
+     * Analyzes the entries' regex and builds the index used to match them.
+     * @param entries The configured entries.
+     * @return The {@link RuleIndex}.
+     */
+    @NotNull
+    static RuleIndex index(@NotNull List<Settings.Entry> entries) {
+        List<String> patterns = new ArrayList<>();
+        List<Integer> patternEntries = new ArrayList<>();
+        List<Integer> patternClauses = new ArrayList<>();
+        List<Integer> clauseEntries = new ArrayList<>();
+        List<Integer> unindexedEntries = new ArrayList<>();
+        List<Integer> unsafeEntries = new ArrayList<>();
+        List<String> groups = new ArrayList<>();
+        long[] groupMasks = new long[entries.size()];
+        int invalidEntries = 0;
+
+        for(int i = 0; i < entries.size(); i++) {
+            Settings.Entry entry = entries.get(i);
+            Pattern regex = entry.regex();
+
+            // Give the entry the bit of its group.
+            String group = entry.group();
+            if(group != null) {
+                int groupIndex = groups.indexOf(group);
+                if(groupIndex < 0) {
+                    groupIndex = groups.size();
+                    groups.add(group);
+                }
+                if(groupIndex < MAX_GROUPS) groupMasks[i] = 1L << groupIndex;
+            }
+
+            // Token entries are matched by the TokenTree instead.
+            if(regex == null) {
+                if(!TokenTree.isTokenEntry(entry) || !TokenTree.isValid(entry)) invalidEntries++;
+                continue;
+            }
+
+            if(RegexAnalyzer.hasNestedQuantifier(regex)) {
+                unsafeEntries.add(i);
+            }
+
+            // Literal entries are fully decided by the automaton.
+            List<String> alternatives = entry.blockAllMatches() ? RegexAnalyzer.literalAlternatives(regex) : null;
+            if(alternatives != null) {
+                for(String alternative : alternatives) {
+                    patterns.add(alternative);
+                    patternEntries.add(i);
+                    patternClauses.add(-1);
+                }
+                continue;
+            }
+
+            // Other entries are indexed by the command labels their matches start with and the literals their matches contain.
+            // Each is a clause, and the entry only runs when every clause has one of its literals in the command.
+            List<List<String>> clauses = new ArrayList<>();
+            List<String> labels = RegexAnalyzer.leadingLabels(regex);
+            if(labels != null) clauses.add(labels);
+
+            List<List<String>> requiredLiterals = RegexAnalyzer.requiredLiterals(regex);
+            if(requiredLiterals != null) {
+                for(List<String> clause : requiredLiterals) {
+                    if(clauses.size() >= MAX_CLAUSES) break;
+                    if(!clauses.contains(clause)) clauses.add(clause);
+                }
+            }
+
+            if(clauses.isEmpty()) {
+                unindexedEntries.add(i);
+                continue;
+            }
+
+            for(List<String> clause : clauses) {
+                int clauseIndex = clauseEntries.size();
+                clauseEntries.add(i);
+
+                for(String literal : clause) {
+                    patterns.add(literal);
+                    patternEntries.add(i);
+                    patternClauses.add(clauseIndex);
+                }
+            }
+        }
+
+        AhoCorasick automaton = patterns.isEmpty() ? null : AhoCorasick.build(patterns);
+
+        return new RuleIndex(
+                automaton,
+                patternEntries.stream().mapToInt(Integer::intValue).toArray(),
+                patternClauses.stream().mapToInt(Integer::intValue).toArray(),
+                clauseEntries.stream().mapToInt(Integer::intValue).toArray(),
+                unindexedEntries.stream().mapToInt(Integer::intValue).toArray(),
+                invalidEntries,
+                List.copyOf(groups),
+                groupMasks,
+                unsafeEntries.stream().mapToInt(Integer::intValue).toArray());
+    }
+}
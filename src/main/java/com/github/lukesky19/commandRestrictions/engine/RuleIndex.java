@@ -0,0 +1,48 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * This class contains everything {@link RuleCompiler} derives from the entries' regex, before the runtime settings are applied.
+ * It only depends on the entries, so it can be stored by {@link RuleCache} and reused while the entries stay the same.
+ * @param automaton The {@link AhoCorasick} automaton of the literal entries and the literals regex entries require, or null if there are none.
+ * @param patternEntries The entry index of each pattern in the automaton.
+ * @param patternClauses The clause each pattern in the automaton satisfies, or -1 if the pattern is a literal entry.
+ * @param clauseEntries The entry index of each clause. An entry's regex only runs once every one of its clauses has a literal in the command.
+ * @param unindexedEntries The indexes of the regex entries without required literals, in configured order.
+ * @param invalidEntries The number of entries without a regex.
+ * @param groups The names of the entry groups, in the order of their bits.
+ * @param groupMasks The bit of each entry's group, or 0 if the entry can't be bypassed.
+ * @param unsafeEntries The indexes of the entries whose regex has nested quantifiers.
+ */
+record RuleIndex(
+        @Nullable AhoCorasick automaton,
+        int[] patternEntries,
+        int[] patternClauses,
+        int[] clauseEntries,
+        int[] unindexedEntries,
+        int invalidEntries,
+        @NotNull List<String> groups,
+        long[] groupMasks,
+        int[] unsafeEntries) {
+}
@@ -0,0 +1,167 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class counts how often each entry is evaluated, matches and blocks a command, and how long checking a command takes.
+ * The counters are striped, so recording is cheap and safe from any thread.
+ * A new instance is created for every reload, so entry indexes always refer to the current entries.
+ * Snapshots that only change the order entries are checked in share the instance of the snapshot they replace.
+ * Matches and blocks include commands answered from the verdict cache, while evaluations and costs only count the work that was actually done.
+ */
+public final class RuleMetrics {
+    private final LongAdder[] evaluations;
+    private final LongAdder[] matches;
+    private final LongAdder[] blocks;
+    private final LongAdder[] costNanos;
+    private final LongAdder commands = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * Constructor
+     * @param entryCount The number of entries to count for.
+     */
+    public RuleMetrics(int entryCount) {
+        evaluations = createCounters(entryCount);
+        matches = createCounters(entryCount);
+        blocks = createCounters(entryCount);
+        costNanos = createCounters(entryCount);
+    }
+
+    /**
+     * Records that an entry's regex was run against a command.
+     * Entries that are decided by the literal automaton are not counted, because the automaton checks all of them at once.
+     * @param entryIndex The index of the entry.
+     */
+    public void recordEvaluation(int entryIndex) {
+        evaluations[entryIndex].increment();
+    }
+
+    /**
+     * Records that an entry's regex matched a command.
+     * @param entryIndex The index of the entry.
+     */
+    public void recordMatch(int entryIndex) {
+        matches[entryIndex].increment();
+    }
+
+    /**
+     * Records how long an entry took to check a command. Only entries that may be reordered are timed.
+     * @param entryIndex The index of the entry.
+     * @param nanos The time the entry took in nanoseconds.
+     */
+    public void recordCost(int entryIndex, long nanos) {
+        costNanos[entryIndex].add(nanos);
+    }
+
+    /**
+     * Records that a command was checked.
+     * @param verdict The {@link Verdict} for the command.
+     * @param nanos The time it took to check the command in nanoseconds.
+     */
+    public void recordCommand(Verdict verdict, long nanos) {
+        commands.increment();
+        latency.record(nanos);
+        if(verdict.blocked()) blocks[verdict.entryIndex()].increment();
+    }
+
+    /**
+     * Gets the number of entries counted for.
+     * @return The number of entries.
+     */
+    public int entryCount() {
+        return evaluations.length;
+    }
+
+    /**
+     * Gets the number of times an entry's regex was run.
+     * @param entryIndex The index of the entry.
+     * @return The number of evaluations.
+     */
+    public long evaluations(int entryIndex) {
+        return evaluations[entryIndex].sum();
+    }
+
+    /**
+     * Gets the number of times an entry matched a command.
+     * @param entryIndex The index of the entry.
+     * @return The number of matches.
+     */
+    public long matches(int entryIndex) {
+        return matches[entryIndex].sum();
+    }
+
+    /**
+     * Gets the number of commands an entry blocked.
+     * @param entryIndex The index of the entry.
+     * @return The number of blocks.
+     */
+    public long blocks(int entryIndex) {
+        return blocks[entryIndex].sum();
+    }
+
+    /**
+     * Gets the total time an entry took to check commands. This is only recorded for entries that may be reordered.
+     * @param entryIndex The index of the entry.
+     * @return The time in nanoseconds.
+     */
+    public long costNanos(int entryIndex) {
+        return costNanos[entryIndex].sum();
+    }
+
+    /**
+     * Gets the number of commands checked.
+     * @return The number of commands.
+     */
+    public long commands() {
+        return commands.sum();
+    }
+
+    /**
+     * Gets the histogram of the time it took to check commands.
+     * @return The {@link LatencyHistogram}.
+     */
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+    /**
+     * Resets every counter and the latency histogram.
+     */
+    public void reset() {
+        for(int i = 0; i < evaluations.length; i++) {
+            evaluations[i].reset();
+            matches[i].reset();
+            blocks[i].reset();
+            costNanos[i].reset();
+        }
+        commands.reset();
+        latency.reset();
+    }
+
+    private static LongAdder[] createCounters(int count) {
+        LongAdder[] counters = new LongAdder[count];
+        for(int i = 0; i < count; i++) {
+            counters[i] = new LongAdder();
+        }
+
+        return counters;
+    }
+}
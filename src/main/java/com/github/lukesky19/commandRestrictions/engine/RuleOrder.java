@@ -0,0 +1,133 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class describes an order to check entries in that differs from file order, and the statistics it was chosen from.
+ * Only runs of consecutive entries in the same order-insensitive group are reordered, so whether a command is blocked never changes,
+ * only which entry of a run is reported. Within a run, entries are ranked by their blocks divided by their average evaluation time in milliseconds,
+ * which checks the entries most likely to block for their cost first.
+ * Blocks include commands answered from the verdict cache, while the average time only comes from evaluations that actually ran,
+ * so cached commands count towards an entry's rank without making it look cheaper.
+ * Entries whose regex may backtrack for an exponential time, and quarantined entries, never move and split the run they are in,
+ * so exactly the same commands reach them as in file order.
+ * @param order The entry index checked at each position.
+ * @param scores The score of each entry, or {@link Double#NaN} if the entry wasn't evaluated often enough to be ranked or can't move.
+ * @param blocks The number of commands each entry had blocked when the order was chosen.
+ * @param evaluations The number of times each entry had been evaluated when the order was chosen.
+ * @param costNanos The total time each entry had taken to check commands when the order was chosen, in nanoseconds.
+ * @param createdMillis The time the order was chosen, in milliseconds since the epoch.
+ */
+public record RuleOrder(
+        int[] order,
+        double[] scores,
+        long[] blocks,
+        long[] evaluations,
+        long[] costNanos,
+        long createdMillis) {
+    /**
+     * Ranks the entries of every order-insensitive run by the statistics recorded so far.
+     * Literal entries are checked by the automaton whether they come first or not, so one that has blocked a command is ranked first.
+     * Entries that weren't evaluated often enough keep their relative file order after the ranked entries that block.
+     * @param rules The {@link CompiledRules} to reorder.
+     * @param metrics The {@link RuleMetrics} of the rules.
+     * @param minEvaluations The number of times an entry must have been evaluated before it is ranked.
+     * @return The new {@link RuleOrder}, or null if no entry that may be reordered has enough statistics yet.
+     */
+    @Nullable
+    public static RuleOrder compute(@NotNull CompiledRules rules, @NotNull RuleMetrics metrics, long minEvaluations) {
+        int entryCount = rules.entries().size();
+        int[] order = new int[entryCount];
+        double[] scores = new double[entryCount];
+        long[] blocks = new long[entryCount];
+        long[] evaluations = new long[entryCount];
+        long[] costNanos = new long[entryCount];
+        boolean ranked = false;
+
+        // Promoting a slow entry could make it time out on commands an earlier entry used to block, so those stay in place.
+        boolean[] pinned = new boolean[entryCount];
+        for(int entryIndex : rules.unsafeEntries()) {
+            pinned[entryIndex] = true;
+        }
+
+        for(int i = 0; i < entryCount; i++) {
+            order[i] = i;
+            scores[i] = Double.NaN;
+            pinned[i] |= rules.isQuarantined(i);
+            if(!rules.isReorderable(i) || pinned[i]) continue;
+
+            blocks[i] = metrics.blocks(i);
+            evaluations[i] = metrics.evaluations(i);
+            costNanos[i] = metrics.costNanos(i);
+
+            if(rules.isLiteralEntry(i)) {
+                scores[i] = blocks[i] > 0 ? Double.POSITIVE_INFINITY : 0;
+                ranked |= blocks[i] > 0;
+            } else if(evaluations[i] >= minEvaluations) {
+                double averageCostNanos = (double) costNanos[i] / Math.max(1, evaluations[i]);
+                scores[i] = blocks[i] * 1_000_000D / Math.max(1, averageCostNanos);
+                ranked = true;
+            }
+        }
+
+        if(!ranked) return null;
+
+        // Sort each run by score. The sort is stable, so ties keep their file order.
+        Comparator<Integer> byScore = Comparator.comparingDouble(entryIndex -> Double.isNaN(scores[entryIndex]) ? 0 : -scores[entryIndex]);
+        int start = 0;
+        while(start < entryCount) {
+            int run = pinned[start] ? -1 : rules.reorderableRun(start);
+            int end = start + 1;
+            while(run >= 0 && end < entryCount && !pinned[end] && rules.reorderableRun(end) == run) end++;
+
+            if(end - start > 1) {
+                List<Integer> entries = new ArrayList<>(end - start);
+                for(int i = start; i < end; i++) {
+                    entries.add(i);
+                }
+                entries.sort(byScore);
+                for(int i = start; i < end; i++) {
+                    order[i] = entries.get(i - start);
+                }
+            }
+
+            start = end;
+        }
+
+        return new RuleOrder(order, scores, blocks, evaluations, costNanos, System.currentTimeMillis());
+    }
+
+    /**
+     * Gets the number of entries that are checked at a different position than in file order.
+     * @return The number of moved entries.
+     */
+    public int movedEntries() {
+        int moved = 0;
+        for(int i = 0; i < order.length; i++) {
+            if(order[i] != i) moved++;
+        }
+        return moved;
+    }
+}
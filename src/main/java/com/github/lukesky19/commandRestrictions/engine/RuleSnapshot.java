@@ -0,0 +1,54 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * This class represents everything that is produced by a single reload of the plugin's settings.
+ * A snapshot is published as a whole, so a command is always checked against rules from the same reload.
+ * @param settings The {@link Settings} that were loaded.
+ * @param compiledRules The {@link CompiledRules} compiled from the settings.
+ * @param verdictCache The {@link VerdictCache} for the compiled rules, or null if the cache is disabled.
+ * @param metrics The {@link RuleMetrics} of the compiled rules.
+ * @param compileNanos The time it took to load and compile the settings in nanoseconds.
+ */
+public record RuleSnapshot(
+        @NotNull Settings settings,
+        @NotNull CompiledRules compiledRules,
+        @Nullable VerdictCache verdictCache,
+        @NotNull RuleMetrics metrics,
+        long compileNanos) {
+    /**
+     * Gets the number of configured entries.
+     * @return The number of entries.
+     */
+    public int ruleCount() {
+        return compiledRules.entries().size();
+    }
+
+    /**
+     * Gets the time it took to load and compile the settings in milliseconds.
+     * @return The compile time in milliseconds.
+     */
+    public double compileMillis() {
+        return compileNanos / 1_000_000D;
+    }
+}
@@ -0,0 +1,414 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * This class matches the entries that have tokens instead of a regex.
+ * The tokens of every entry are merged into a decision tree with one level per token position, where entries that start
+ * with the same tokens share the same nodes. A command is split into tokens once and walked down the tree,
+ * so the cost depends on the command and the branches it takes instead of the number of token entries.
+ */
+final class TokenTree {
+    /**
+     * The token that matches any token.
+     */
+    static final String WILDCARD = "*";
+    /**
+     * The prefix of a token that is a regex the whole token must match.
+     */
+    static final String REGEX_PREFIX = "re:";
+    /**
+     * The highest position a token entry can match or check, where 0 is the label.
+     * Every thread keeps arrays with one slot per position, so the positions are bounded.
+     */
+    static final int MAX_POSITION = 255;
+
+    private final Node root;
+    private final Pattern[] regexes;
+    private final int[] entryPositions;
+    private final int maxTokens;
+
+    private TokenTree(@NotNull Node root, @NotNull Pattern[] regexes, int[] entryPositions, int maxTokens) {
+        this.root = root;
+        this.regexes = regexes;
+        this.entryPositions = entryPositions;
+        this.maxTokens = maxTokens;
+    }
+
+    /**
+     * Receives the entries whose tokens all matched a command.
+     */
+    @FunctionalInterface
+    interface MatchListener {
+        /**
+         * Called once for every path through the tree that ends at an entry.
+         * @param entryIndex The index of the entry.
+         */
+        void onMatch(int entryIndex);
+    }
+
+    /**
+     * Compiles the token entries into a tree.
+     * @param entries The configured entries. Entries with a regex or with invalid tokens are skipped.
+     * @return A {@link TokenTree}, or null if there are no valid token entries.
+     */
+    @Nullable
+    static TokenTree compile(@NotNull List<Settings.Entry> entries) {
+        BuildNode buildRoot = new BuildNode();
+        Map<String, Integer> regexIds = new LinkedHashMap<>();
+        int[] entryPositions = new int[entries.size()];
+        int maxTokens = 0;
+
+        for(int i = 0; i < entries.size(); i++) {
+            Settings.Entry entry = entries.get(i);
+            if(!isTokenEntry(entry) || !isValid(entry)) continue;
+
+            // Nodes are keyed by the canonical form of the token, so entries with the same leading tokens share them.
+            BuildNode node = buildRoot;
+            for(String token : entry.tokens()) {
+                node = node.children.computeIfAbsent(canonical(token), key -> new BuildNode());
+            }
+            node.entries.add(i);
+
+            entryPositions[i] = entry.tokens().size();
+            maxTokens = Math.max(maxTokens, entry.tokens().size());
+            if(!entry.blockAllMatches()) maxTokens = Math.max(maxTokens, entry.blockedArgument() + 1);
+        }
+
+        if(maxTokens == 0) return null;
+
+        Node root = buildRoot.freeze(regexIds);
+        Pattern[] regexes = new Pattern[regexIds.size()];
+        for(Map.Entry<String, Integer> regex : regexIds.entrySet()) {
+            regexes[regex.getValue()] = Pattern.compile(regex.getKey());
+        }
+
+        return new TokenTree(root, regexes, entryPositions, maxTokens);
+    }
+
+    /**
+     * Checks if an entry matches tokens instead of a regex.
+     * @param entry The {@link Settings.Entry}.
+     * @return true if the entry has tokens and no regex, false if not.
+     */
+    static boolean isTokenEntry(@NotNull Settings.Entry entry) {
+        return entry.regex() == null && entry.tokens() != null;
+    }
+
+    /**
+     * Checks if a token entry can be compiled. Every token must be non-empty without spaces, every regex token must compile
+     * and must not have nested quantifiers, and neither the tokens nor the blocked argument may go past {@link #MAX_POSITION}.
+     * The blocked argument must not be negative.
+     * @param entry The {@link Settings.Entry}.
+     * @return true if the entry's tokens are valid, false if not.
+     */
+    static boolean isValid(@NotNull Settings.Entry entry) {
+        List<String> tokens = entry.tokens();
+        if(tokens == null || tokens.isEmpty() || tokens.size() > MAX_POSITION + 1) return false;
+        if(!entry.blockAllMatches() && (entry.blockedArgument() < 0 || entry.blockedArgument() > MAX_POSITION)) return false;
+
+        for(String token : tokens) {
+            if(token == null || token.isEmpty()) return false;
+
+            if(token.startsWith(REGEX_PREFIX)) {
+                try {
+                    Pattern regex = Pattern.compile(token.substring(REGEX_PREFIX.length()));
+                    if(RegexAnalyzer.hasNestedQuantifier(regex)) return false;
+                } catch (PatternSyntaxException exception) {
+                    return false;
+                }
+            } else if(!token.equals(WILDCARD)) {
+                for(String literal : token.split("\\|", -1)) {
+                    if(literal.isEmpty() || literal.indexOf(' ') >= 0) return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the number of tokens of the longest token entry or the highest blocked argument, whichever needs more.
+     * Tokens after this are never looked at.
+     * @return The maximum number of tokens.
+     */
+    int maxTokens() {
+        return maxTokens;
+    }
+
+    /**
+     * Gets the number of distinct regex tokens, which each need a {@link Matcher} per thread.
+     * @return The number of regex tokens.
+     */
+    int regexCount() {
+        return regexes.length;
+    }
+
+    /**
+     * Gets the number of tokens an entry matches.
+     * @param entryIndex The index of the entry.
+     * @return The number of tokens, or 0 if the entry isn't a valid token entry.
+     */
+    int positions(int entryIndex) {
+        return entryPositions[entryIndex];
+    }
+
+    /**
+     * Walks a tokenized command down the tree.
+     * @param tokens The {@link Tokens} of the command.
+     * @param listener The {@link MatchListener} to call for every entry whose tokens all match.
+     */
+    void walk(@NotNull Tokens tokens, @NotNull MatchListener listener) {
+        walk(root, 0, tokens, listener);
+    }
+
+    private void walk(@NotNull Node node, int position, @NotNull Tokens tokens, @NotNull MatchListener listener) {
+        for(int entryIndex : node.entries) {
+            listener.onMatch(entryIndex);
+        }
+
+        if(position >= tokens.count) return;
+
+        String command = tokens.command;
+        int start = tokens.starts[position];
+        int end = tokens.ends[position];
+
+        Node[] literalChildren = node.literalChildren(command, start, end, tokens.hashes[position]);
+        if(literalChildren != null) {
+            for(Node child : literalChildren) {
+                walk(child, position + 1, tokens, listener);
+            }
+        }
+
+        if(node.wildcard != null) walk(node.wildcard, position + 1, tokens, listener);
+
+        for(int i = 0; i < node.regexChildren.length; i++) {
+            int regexId = node.regexIds[i];
+            Matcher matcher = tokens.matchers[regexId];
+            if(matcher == null) {
+                matcher = regexes[regexId].matcher(command);
+                tokens.matchers[regexId] = matcher;
+            } else {
+                matcher.reset(command);
+            }
+
+            if(matcher.region(start, end).matches()) walk(node.regexChildren[i], position + 1, tokens, listener);
+        }
+    }
+
+    /**
+     * Gets the key a token is stored under, so tokens that match the same text share a node.
+     * @param token The token.
+     * @return The canonical form of the token.
+     */
+    @NotNull
+    private static String canonical(@NotNull String token) {
+        if(token.equals(WILDCARD) || token.startsWith(REGEX_PREFIX)) return token;
+
+        return String.join("|", new TreeSet<>(List.of(token.split("\\|"))));
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * This class holds a command split into tokens. It is reused for every command checked on the same thread.
+     */
+    static final class Tokens {
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] hashes;
+        private final Matcher[] matchers;
+        private String command;
+        private int count;
+
+        /**
+         * Constructor
+         * @param tree The {@link TokenTree} the tokens are walked down.
+         */
+        Tokens(@NotNull TokenTree tree) {
+            this.starts = new int[tree.maxTokens];
+            this.ends = new int[tree.maxTokens];
+            this.hashes = new int[tree.maxTokens];
+            this.matchers = new Matcher[tree.regexes.length];
+        }
+
+        /**
+         * Splits a command on spaces, keeping the span and hash of each token up to the tree's maximum.
+         * @param command The command.
+         */
+        void split(@NotNull String command) {
+            this.command = command;
+            this.count = 0;
+
+            int length = command.length();
+            int i = 0;
+            while(count < starts.length) {
+                while(i < length && command.charAt(i) == ' ') i++;
+                if(i >= length) break;
+
+                int start = i;
+                int hash = 0;
+                while(i < length && command.charAt(i) != ' ') {
+                    hash = 31 * hash + command.charAt(i++);
+                }
+
+                starts[count] = start;
+                ends[count] = i;
+                hashes[count] = hash;
+                count++;
+            }
+        }
+
+        /**
+         * Gets the number of tokens found, which is at most the tree's maximum.
+         * @return The number of tokens.
+         */
+        int count() {
+            return count;
+        }
+
+        /**
+         * Gets the index of the first character of a token.
+         * @param position The position of the token.
+         * @return The start index in the command.
+         */
+        int start(int position) {
+            return starts[position];
+        }
+
+        /**
+         * Gets the index after the last character of a token.
+         * @param position The position of the token.
+         * @return The end index in the command.
+         */
+        int end(int position) {
+            return ends[position];
+        }
+    }
+
+    /**
+     * A node of the tree for one token position.
+     * Literal alternatives are kept in an open addressing hash table that maps each literal to the children of the tokens that contain it.
+     */
+    private static final class Node {
+        private static final int[] NO_ENTRIES = new int[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private final int[] entries;
+        private final String[] literalTable;
+        private final int[] literalHashes;
+        private final Node[][] literalTargets;
+        private final Node wildcard;
+        private final Node[] regexChildren;
+        private final int[] regexIds;
+
+        private Node(int[] entries, @NotNull String[] literalTable, int[] literalHashes, @NotNull Node[][] literalTargets,
+                     @Nullable Node wildcard, @NotNull Node[] regexChildren, int[] regexIds) {
+            this.entries = entries;
+            this.literalTable = literalTable;
+            this.literalHashes = literalHashes;
+            this.literalTargets = literalTargets;
+            this.wildcard = wildcard;
+            this.regexChildren = regexChildren;
+            this.regexIds = regexIds;
+        }
+
+        @Nullable
+        private Node[] literalChildren(@NotNull String command, int start, int end, int hash) {
+            if(literalTable.length == 0) return null;
+
+            int mask = literalTable.length - 1;
+            int length = end - start;
+            for(int slot = spread(hash) & mask; literalTable[slot] != null; slot = (slot + 1) & mask) {
+                String literal = literalTable[slot];
+                if(literalHashes[slot] == hash && literal.length() == length && command.regionMatches(start, literal, 0, length)) {
+                    return literalTargets[slot];
+                }
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * A mutable node of the tree used while compiling.
+     */
+    private static final class BuildNode {
+        private final Map<String, BuildNode> children = new LinkedHashMap<>();
+        private final List<Integer> entries = new ArrayList<>();
+
+        @NotNull
+        private Node freeze(@NotNull Map<String, Integer> regexIds) {
+            Map<String, List<Node>> literals = new LinkedHashMap<>();
+            Node wildcard = null;
+            List<Node> regexChildren = new ArrayList<>();
+            List<Integer> childRegexIds = new ArrayList<>();
+
+            for(Map.Entry<String, BuildNode> child : children.entrySet()) {
+                String token = child.getKey();
+                Node frozen = child.getValue().freeze(regexIds);
+
+                if(token.equals(WILDCARD)) {
+                    wildcard = frozen;
+                } else if(token.startsWith(REGEX_PREFIX)) {
+                    regexChildren.add(frozen);
+                    childRegexIds.add(regexIds.computeIfAbsent(token.substring(REGEX_PREFIX.length()), regex -> regexIds.size()));
+                } else {
+                    for(String literal : token.split("\\|")) {
+                        literals.computeIfAbsent(literal, key -> new ArrayList<>()).add(frozen);
+                    }
+                }
+            }
+
+            // Size the table for a load factor of at most one half.
+            int capacity = literals.isEmpty() ? 0 : Integer.highestOneBit(literals.size() * 2 - 1) << 1;
+            String[] literalTable = new String[capacity];
+            int[] literalHashes = new int[capacity];
+            Node[][] literalTargets = new Node[capacity][];
+            for(Map.Entry<String, List<Node>> literal : literals.entrySet()) {
+                int hash = literal.getKey().hashCode();
+                int slot = spread(hash) & (capacity - 1);
+                while(literalTable[slot] != null) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                literalTable[slot] = literal.getKey();
+                literalHashes[slot] = hash;
+                literalTargets[slot] = literal.getValue().toArray(Node.NO_CHILDREN);
+            }
+
+            int[] entryArray = entries.isEmpty() ? Node.NO_ENTRIES : entries.stream().mapToInt(Integer::intValue).toArray();
+            return new Node(entryArray, literalTable, literalHashes, literalTargets, wildcard,
+                    regexChildren.toArray(Node.NO_CHILDREN), childRegexIds.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * This class keeps the most recent {@link TraceEvent}s in a fixed-size ring buffer.
+ * The fields of each event are stored in parallel arrays that are allocated once, so recording an event only copies references and numbers.
+ * Old events are overwritten once the buffer is full.
+ */
+public final class TraceBuffer {
+    private static final TraceEvent.Type[] TYPES = TraceEvent.Type.values();
+
+    private final int capacity;
+    private final long[] commandIds;
+    private final long[] times;
+    private final byte[] types;
+    private final int[] entries;
+    private final int[] groups;
+    private final Pattern[] regexes;
+    private final String[] texts;
+    private long written;
+    private long nextCommandId;
+
+    /**
+     * Constructor
+     * @param capacity The maximum number of events kept.
+     */
+    public TraceBuffer(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.commandIds = new long[this.capacity];
+        this.times = new long[this.capacity];
+        this.types = new byte[this.capacity];
+        this.entries = new int[this.capacity];
+        this.groups = new int[this.capacity];
+        this.regexes = new Pattern[this.capacity];
+        this.texts = new String[this.capacity];
+    }
+
+    /**
+     * Gets the maximum number of events kept.
+     * @return The capacity of the buffer.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Starts tracing a command.
+     * @param sender The name of the command's sender.
+     * @param command The command.
+     * @return A {@link CommandTrace} to record the events of checking the command with.
+     */
+    @NotNull
+    public CommandTrace start(@NotNull String sender, @NotNull String command) {
+        long commandId;
+        synchronized(this) {
+            commandId = ++nextCommandId;
+        }
+
+        CommandTrace trace = new CommandTrace(this, commandId);
+        trace.record(TraceEvent.Type.COMMAND, -1, -1, null, sender + ": " + command);
+        return trace;
+    }
+
+    /**
+     * Records an event, overwriting the oldest event if the buffer is full.
+     * @param commandId The id of the traced command.
+     * @param type The {@link TraceEvent.Type} of the event.
+     * @param entryIndex The index of the entry involved, or -1 if none.
+     * @param group The number of the regex group involved, or -1 if none.
+     * @param regex The regex of the entry involved, or null if none.
+     * @param text The text involved, or null if none.
+     */
+    synchronized void record(long commandId, @NotNull TraceEvent.Type type, int entryIndex, int group, @Nullable Pattern regex, @Nullable String text) {
+        int slot = (int) (written % capacity);
+        commandIds[slot] = commandId;
+        times[slot] = System.nanoTime();
+        types[slot] = (byte) type.ordinal();
+        entries[slot] = entryIndex;
+        groups[slot] = group;
+        regexes[slot] = regex;
+        texts[slot] = text;
+        written++;
+    }
+
+    /**
+     * Copies the events in the buffer, oldest first.
+     * @return A {@link List} of {@link TraceEvent}.
+     */
+    @NotNull
+    public synchronized List<TraceEvent> events() {
+        int size = (int) Math.min(written, capacity);
+        List<TraceEvent> events = new ArrayList<>(size);
+        for(long i = written - size; i < written; i++) {
+            int slot = (int) (i % capacity);
+            events.add(new TraceEvent(commandIds[slot], times[slot], TYPES[types[slot]], entries[slot], groups[slot], regexes[slot], texts[slot]));
+        }
+
+        return events;
+    }
+
+    /**
+     * Gets the number of events recorded since the buffer was created or cleared, including the overwritten ones.
+     * @return The number of events recorded.
+     */
+    public synchronized long written() {
+        return written;
+    }
+
+    /**
+     * Removes every event from the buffer.
+     */
+    public synchronized void clear() {
+        Arrays.fill(regexes, null);
+        Arrays.fill(texts, null);
+        written = 0;
+    }
+}
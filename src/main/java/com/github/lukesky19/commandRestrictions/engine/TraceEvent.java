@@ -0,0 +1,103 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.regex.Pattern;
+
+/**
+ * This class represents a single step of checking a traced command.
+ * Events hold references to the objects involved instead of formatted text, so nothing is formatted until the trace is dumped.
+ * @param commandId The id of the traced command the event belongs to.
+ * @param nanoTime The {@link System#nanoTime()} when the event was recorded.
+ * @param type The {@link Type} of the event.
+ * @param entryIndex The index of the entry involved, or -1 if none.
+ * @param group The number of the regex group involved, or -1 if none.
+ * @param regex The regex of the entry involved, or null if none.
+ * @param text The text involved, such as the command or the matched text, or null if none.
+ */
+public record TraceEvent(
+        long commandId,
+        long nanoTime,
+        @NotNull Type type,
+        int entryIndex,
+        int group,
+        @Nullable Pattern regex,
+        @Nullable String text) {
+    /**
+     * The steps of checking a command that are traced.
+     */
+    public enum Type {
+        /**
+         * A command was received. The text is the sender and the command.
+         */
+        COMMAND,
+        /**
+         * The command was normalized before it was checked. The text is the normalized command.
+         */
+        NORMALIZED,
+        /**
+         * The entry is quarantined, so it wasn't run. The command is blocked if timeouts fail closed.
+         */
+        QUARANTINED,
+        /**
+         * The entry's regex matched the command. The text is the matched text.
+         */
+        MATCH,
+        /**
+         * A group of the entry's regex was checked for blocked text. The text is the group's text.
+         */
+        GROUP,
+        /**
+         * A group of the entry's regex contained blocked text. The text is the blocked text.
+         */
+        BLOCKED_TEXT,
+        /**
+         * An entry with block-all-matches enabled matched the command. The text is the matched text.
+         */
+        BLOCK_ALL,
+        /**
+         * The regex took longer than the match budget.
+         */
+        TIMEOUT,
+        /**
+         * The command was checked. The text is the name of the verdict's type.
+         */
+        VERDICT
+    }
+
+    /**
+     * Formats the event as a line of a trace dump.
+     * @param startNanos The {@link System#nanoTime()} the times are shown relative to.
+     * @return The formatted event.
+     */
+    @NotNull
+    public String format(long startNanos) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%+.3f ms", (nanoTime - startNanos) / 1_000_000D));
+        builder.append(" #").append(commandId).append(' ').append(type);
+        if(entryIndex >= 0) builder.append(" entry=").append(entryIndex);
+        if(group >= 0) builder.append(" group=").append(group);
+        if(regex != null) builder.append(" regex=").append(regex.pattern());
+        if(text != null) builder.append(" text=").append(text);
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * This class represents the result of checking a command against the configured entries.
+ * @param type The {@link Type} of the verdict.
+ * @param entryIndex The index of the entry that blocked the command, or -1 if the command is allowed.
+ * @param matchedText The text that caused the command to be blocked, or null if the command is allowed or the match timed out.
+ */
+public record Verdict(
+        @NotNull Type type,
+        int entryIndex,
+        @Nullable String matchedText) {
+    /**
+     * The verdict for commands that no entry blocks.
+     */
+    public static final Verdict ALLOW = new Verdict(Type.ALLOW, -1, null);
+
+    /**
+     * Checks if the command should be blocked.
+     * @return true if blocked, false if not.
+     */
+    public boolean blocked() {
+        return type != Type.ALLOW;
+    }
+
+    /**
+     * The reasons a command can be allowed or blocked for.
+     */
+    public enum Type {
+        /**
+         * No entry blocked the command.
+         */
+        ALLOW,
+        /**
+         * An entry with block-all-matches enabled matched the command.
+         */
+        BLOCK_ALL,
+        /**
+         * A group captured by an entry's regex contained blocked text.
+         */
+        BLOCKED_TEXT,
+        /**
+         * An entry's regex took longer than its match budget while checking this command, or the entry is quarantined, and timeouts fail closed.
+         */
+        MATCH_TIMEOUT
+    }
+}
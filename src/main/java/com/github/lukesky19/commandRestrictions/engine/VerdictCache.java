@@ -0,0 +1,165 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.engine;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size-bounded least recently used cache of command text to {@link Verdict}.
+ * The cache is split into segments that are locked separately so it can be used from several threads.
+ * A new cache is created for each set of {@link CompiledRules}, so cached verdicts never outlive the rules that produced them.
+ */
+public final class VerdictCache {
+    private static final int MAX_SEGMENTS = 16;
+
+    private final int capacity;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor
+     * @param capacity The maximum number of commands to cache. Must be greater than 0.
+     */
+    public VerdictCache(int capacity) {
+        if(capacity <= 0) throw new IllegalArgumentException("The verdict cache capacity must be greater than 0.");
+
+        this.capacity = capacity;
+
+        int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(capacity));
+        this.segments = new Segment[segmentCount];
+        for(int i = 0; i < segmentCount; i++) {
+            // Spread the remainder so the segment capacities add up to the configured capacity.
+            segments[i] = new Segment(capacity / segmentCount + (i < capacity % segmentCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * Gets the cached verdict for a command.
+     * @param command The command text.
+     * @return The cached {@link Verdict}, or null if the command isn't cached.
+     */
+    @Nullable
+    public Verdict get(@NotNull String command) {
+        Segment segment = segmentFor(command);
+
+        Verdict verdict;
+        synchronized(segment) {
+            verdict = segment.get(command);
+        }
+
+        if(verdict == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+
+        return verdict;
+    }
+
+    /**
+     * Caches the verdict for a command, evicting the least recently used command of its segment if the segment is full.
+     * @param command The command text.
+     * @param verdict The {@link Verdict} for the command.
+     */
+    public void put(@NotNull String command, @NotNull Verdict verdict) {
+        Segment segment = segmentFor(command);
+
+        synchronized(segment) {
+            segment.put(command, verdict);
+        }
+    }
+
+    /**
+     * Gets the maximum number of commands the cache can hold.
+     * @return The capacity of the cache.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of commands currently cached.
+     * @return The size of the cache.
+     */
+    public int size() {
+        int size = 0;
+        for(Segment segment : segments) {
+            synchronized(segment) {
+                size += segment.size();
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Gets the number of lookups that found a cached verdict.
+     * @return The number of hits.
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that didn't find a cached verdict.
+     * @return The number of misses.
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the fraction of lookups that found a cached verdict.
+     * @return The hit rate between 0 and 1, or 0 if the cache was never used.
+     */
+    public double hitRate() {
+        long hits = hits();
+        long total = hits + misses();
+
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private Segment segmentFor(@NotNull String command) {
+        int hash = command.hashCode();
+        // Mix the high bits in, the segment count is a power of two.
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * A single access-ordered segment of the cache.
+     */
+    private static final class Segment extends LinkedHashMap<String, Verdict> {
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Verdict> eldest) {
+            return size() > capacity;
+        }
+    }
+}
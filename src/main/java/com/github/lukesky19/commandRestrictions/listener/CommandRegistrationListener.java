@@ -0,0 +1,69 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.listener;
+
+import com.github.lukesky19.commandRestrictions.normalization.CommandAliasManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
+import org.bukkit.event.server.ServerLoadEvent;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * This class listens to events after which the server's commands may have changed and refreshes the alias table used to normalize commands.
+ */
+public class CommandRegistrationListener implements Listener {
+    private final CommandAliasManager commandAliasManager;
+
+    /**
+     * Constructor
+     * @param commandAliasManager A {@link CommandAliasManager} instance.
+     */
+    public CommandRegistrationListener(@NotNull CommandAliasManager commandAliasManager) {
+        this.commandAliasManager = commandAliasManager;
+    }
+
+    /**
+     * Refreshes the alias table once the server has finished loading, or after a reload.
+     * @param serverLoadEvent A {@link ServerLoadEvent}.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onServerLoad(ServerLoadEvent serverLoadEvent) {
+        commandAliasManager.scheduleRefresh();
+    }
+
+    /**
+     * Refreshes the alias table after a plugin is enabled, since it may have registered commands.
+     * @param pluginEnableEvent A {@link PluginEnableEvent}.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginEnable(PluginEnableEvent pluginEnableEvent) {
+        commandAliasManager.scheduleRefresh();
+    }
+
+    /**
+     * Refreshes the alias table after a plugin is disabled, since its commands may have been unregistered.
+     * @param pluginDisableEvent A {@link PluginDisableEvent}.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(PluginDisableEvent pluginDisableEvent) {
+        commandAliasManager.scheduleRefresh();
+    }
+}
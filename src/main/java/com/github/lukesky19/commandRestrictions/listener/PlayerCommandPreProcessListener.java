@@ -17,42 +17,63 @@
 */
 package com.github.lukesky19.commandRestrictions.listener;
 
-import com.github.lukesky19.commandRestrictions.CommandRestrictions;
-import com.github.lukesky19.commandRestrictions.config.locale.Locale;
+import com.github.lukesky19.commandRestrictions.audit.BlockedCommandReporter;
+import com.github.lukesky19.commandRestrictions.bypass.BypassManager;
 import com.github.lukesky19.commandRestrictions.config.locale.LocaleManager;
+import com.github.lukesky19.commandRestrictions.config.locale.RenderedLocale;
 import com.github.lukesky19.commandRestrictions.config.settings.Settings;
-import com.github.lukesky19.commandRestrictions.config.settings.SettingsManager;
-import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.commandRestrictions.engine.RestrictionEngine;
+import com.github.lukesky19.commandRestrictions.engine.RuleSnapshot;
+import com.github.lukesky19.commandRestrictions.engine.Verdict;
+import com.github.lukesky19.commandRestrictions.throttle.ThrottleManager;
+import com.github.lukesky19.commandRestrictions.trace.TraceManager;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
-import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
-import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * This class listens to commands sent by players and uses the configured regex and blocked text to restrict commands sent in-game.
  */
 public class PlayerCommandPreProcessListener implements Listener {
-    private final CommandRestrictions commandRestrictions;
-    private final SettingsManager settingsManager;
+    private final Plugin commandRestrictions;
+    private final RestrictionEngine restrictionEngine;
     private final LocaleManager localeManager;
+    private final BlockedCommandReporter blockedCommandReporter;
+    private final BypassManager bypassManager;
+    private final ThrottleManager throttleManager;
+    private final TraceManager traceManager;
 
+    /**
+     * Constructor
+     * @param commandRestrictions The plugin's class.
+     * @param restrictionEngine The {@link RestrictionEngine} to check commands with.
+     * @param localeManager A {@link LocaleManager} instance.
+     * @param blockedCommandReporter The {@link BlockedCommandReporter} to report blocked commands to.
+     * @param bypassManager The {@link BypassManager} to get player exemptions from.
+     * @param throttleManager The {@link ThrottleManager} to throttle players that keep sending blocked commands with.
+     * @param traceManager The {@link TraceManager} that selects the commands to trace.
+     */
     public PlayerCommandPreProcessListener(
-            @NotNull CommandRestrictions commandRestrictions,
-            @NotNull SettingsManager settingsManager,
-            @NotNull LocaleManager localeManager) {
+            @NotNull Plugin commandRestrictions,
+            @NotNull RestrictionEngine restrictionEngine,
+            @NotNull LocaleManager localeManager,
+            @NotNull BlockedCommandReporter blockedCommandReporter,
+            @NotNull BypassManager bypassManager,
+            @NotNull ThrottleManager throttleManager,
+            @NotNull TraceManager traceManager) {
         this.commandRestrictions = commandRestrictions;
-        this.settingsManager = settingsManager;
+        this.restrictionEngine = restrictionEngine;
         this.localeManager = localeManager;
+        this.blockedCommandReporter = blockedCommandReporter;
+        this.bypassManager = bypassManager;
+        this.throttleManager = throttleManager;
+        this.traceManager = traceManager;
     }
 
     /**
@@ -62,73 +83,39 @@ public class PlayerCommandPreProcessListener implements Listener {
     @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
     public void onPlayerCommandSent(PlayerCommandPreprocessEvent playerCommandPreprocessEvent) {
         ComponentLogger logger = commandRestrictions.getComponentLogger();
-        @Nullable Settings settings = settingsManager.getSettings();
-        @NotNull Locale locale = localeManager.getLocale();
+        @Nullable RuleSnapshot snapshot = restrictionEngine.getSnapshot();
+        @NotNull RenderedLocale locale = localeManager.getRenderedLocale();
 
         // If the plugin settings is invalid, display and error and return.
-        if(settings == null) {
-            logger.error(AdventureUtil.serialize(locale.invalidSettings()));
+        if(snapshot == null) {
+            logger.error(locale.invalidSettings());
             return;
         }
 
-        // Get the Player and command sent.
-        Player player = playerCommandPreprocessEvent.getPlayer();
-        String command = playerCommandPreprocessEvent.getMessage();
-
-        // Create the command placeholder for console log messages.
-        List<TagResolver.Single> placeholders = List.of(Placeholder.parsed("command", command));
-
-        // Loop through configured regex and process any matches.
-        settings.entries().forEach(entry -> {
-            Pattern regex = entry.regex();
-
-            // Check if regex is non-null.
-            if(regex != null) {
-                Matcher matcher = regex.matcher(command);
+        Settings settings = snapshot.settings();
+        @Nullable Settings.Sources sources = settings.sources();
+        if(sources != null && !sources.players()) return;
 
-                // While the matcher has a match, process the match based on the configuration.
-                while(matcher.find()) {
-                    if(settings.debug()) {
-                        logger.info(AdventureUtil.serialize("Match found for regex: " + regex));
-                    }
-
-                    // If any match should be blocked, cancel the event here.
-                    // Also send the player a message and log the incident to console.
-                    if(entry.blockAllMatches()) {
-                        if(settings.debug()) {
-                            logger.info(AdventureUtil.serialize("Blocking entire command for regex: " + regex));
-                        }
-
-                        player.sendMessage(AdventureUtil.serialize(locale.prefix() + locale.blockedCommandPlayerMessage()));
-                        logger.warn(AdventureUtil.serialize(locale.blockedCommandConsoleMessage(), placeholders));
-                        playerCommandPreprocessEvent.setCancelled(true);
-                        return;
-                    } else {
-                        // Loop through the groups and check if the group contains any blocked text.
-                        for(int i = 0; i <= matcher.groupCount(); i++) {
-                            String group = matcher.group(i);
+        // Display an error if any entry has no regex configured.
+        if(snapshot.compiledRules().invalidEntries() > 0) {
+            logger.error(locale.invalidRegex());
+        }
 
-                            if(settings.debug()) {
-                                logger.info(AdventureUtil.serialize("Processing group number " + i + " with text: " + group));
-                            }
+        // Reject every command from a throttled player without checking it.
+        Player player = playerCommandPreprocessEvent.getPlayer();
+        if(throttleManager.rejectIfThrottled(player)) {
+            playerCommandPreprocessEvent.setCancelled(true);
+            return;
+        }
 
-                            if(entry.blockedText().contains(group)) {
-                                if(settings.debug()) {
-                                    logger.info(AdventureUtil.serialize("Group number " + i + " contained blocked text. Blocked text: " + group));
-                                }
+        // Check the command sent, skipping the groups the player is exempt from.
+        String command = playerCommandPreprocessEvent.getMessage();
+        long exemptGroups = bypassManager.getExemptGroups(player, snapshot);
+        Verdict verdict = restrictionEngine.check(snapshot, command, exemptGroups, true, traceManager.start(player, command));
+        if(!verdict.blocked()) return;
 
-                                player.sendMessage(AdventureUtil.serialize(locale.prefix() + locale.blockedCommandPlayerMessage()));
-                                logger.warn(AdventureUtil.serialize(locale.blockedTextConsoleMessage(), placeholders));
-                                playerCommandPreprocessEvent.setCancelled(true);
-                                return;
-                            }
-                        }
-                    }
-                }
-            } else {
-                // Display and error if no regex is configured.
-                logger.error(AdventureUtil.serialize(locale.invalidRegex()));
-            }
-        });
+        blockedCommandReporter.report(player, command, verdict);
+        playerCommandPreprocessEvent.setCancelled(true);
+        throttleManager.recordBlocked(player);
     }
 }
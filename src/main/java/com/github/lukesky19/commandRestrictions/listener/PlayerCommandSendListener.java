@@ -0,0 +1,120 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.listener;
+
+import com.github.lukesky19.commandRestrictions.bypass.BypassManager;
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import com.github.lukesky19.commandRestrictions.config.settings.SettingsManager;
+import com.github.lukesky19.commandRestrictions.engine.CommandNormalizer;
+import com.github.lukesky19.commandRestrictions.engine.RuleSnapshot;
+import com.github.lukesky19.commandRestrictions.normalization.CommandAliasManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandSendEvent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class removes commands that are always blocked from the command tree sent to players.
+ * Whether a label is hidden is worked out once per rule snapshot and set of exemptions, and reused for every player.
+ */
+public class PlayerCommandSendListener implements Listener {
+    private final SettingsManager settingsManager;
+    private final CommandAliasManager commandAliasManager;
+    private final BypassManager bypassManager;
+    private volatile PrunedLabels prunedLabels;
+
+    /**
+     * Constructor
+     * @param settingsManager A {@link SettingsManager} instance.
+     * @param commandAliasManager The {@link CommandAliasManager} to normalize labels with.
+     * @param bypassManager The {@link BypassManager} to get player exemptions from.
+     */
+    public PlayerCommandSendListener(
+            @NotNull SettingsManager settingsManager,
+            @NotNull CommandAliasManager commandAliasManager,
+            @NotNull BypassManager bypassManager) {
+        this.settingsManager = settingsManager;
+        this.commandAliasManager = commandAliasManager;
+        this.bypassManager = bypassManager;
+    }
+
+    /**
+     * Listens to when the command tree is sent to a player and removes the labels that are always blocked.
+     * @param playerCommandSendEvent A {@link PlayerCommandSendEvent}.
+     */
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onPlayerCommandSend(PlayerCommandSendEvent playerCommandSendEvent) {
+        @Nullable RuleSnapshot snapshot = settingsManager.getSnapshot();
+        if(snapshot == null) return;
+
+        Settings settings = snapshot.settings();
+        @Nullable Settings.Sources sources = settings.sources();
+        if(!settings.pruneCommandTree() || (sources != null && !sources.players())) return;
+
+        PrunedLabels current = getPrunedLabels(snapshot);
+        long exemptGroups = bypassManager.getExemptGroups(playerCommandSendEvent.getPlayer(), snapshot);
+        playerCommandSendEvent.getCommands().removeIf(label -> current.isHidden(label, exemptGroups));
+    }
+
+    /**
+     * Gets the pruned labels for a rule snapshot, starting over if the rules or the alias table changed.
+     * @param snapshot The current {@link RuleSnapshot}.
+     * @return The {@link PrunedLabels} for the snapshot.
+     */
+    @NotNull
+    private PrunedLabels getPrunedLabels(@NotNull RuleSnapshot snapshot) {
+        CommandNormalizer normalizer = commandAliasManager.getNormalizer();
+        PrunedLabels current = prunedLabels;
+        if(current == null || current.snapshot() != snapshot || current.normalizer() != normalizer) {
+            current = new PrunedLabels(snapshot, normalizer, new ConcurrentHashMap<>());
+            prunedLabels = current;
+        }
+
+        return current;
+    }
+
+    /**
+     * This class remembers which labels are hidden for one rule snapshot and alias table.
+     * @param snapshot The {@link RuleSnapshot} the labels were checked against.
+     * @param normalizer The {@link CommandNormalizer} the labels were normalized with.
+     * @param hidden Whether each label checked so far is hidden, for each mask of exempt groups. Most players share the same few masks.
+     */
+    private record PrunedLabels(
+            @NotNull RuleSnapshot snapshot,
+            @NotNull CommandNormalizer normalizer,
+            @NotNull ConcurrentHashMap<Long, ConcurrentHashMap<String, Boolean>> hidden) {
+        /**
+         * Checks if a label is always blocked for a player and should be hidden.
+         * @param label The label without the leading slash.
+         * @param exemptGroups The mask of entry groups the player is exempt from.
+         * @return true if hidden, false if not.
+         */
+        boolean isHidden(@NotNull String label, long exemptGroups) {
+            return hidden.computeIfAbsent(exemptGroups, key -> new ConcurrentHashMap<>()).computeIfAbsent(label, key -> {
+                String command = "/" + key;
+                if(snapshot.settings().normalizeCommands()) command = normalizer.normalize(command);
+
+                return snapshot.compiledRules().containsBlockedLiteral(command, exemptGroups);
+            });
+        }
+    }
+}
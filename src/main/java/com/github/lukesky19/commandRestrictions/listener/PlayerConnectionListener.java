@@ -0,0 +1,85 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.listener;
+
+import com.github.lukesky19.commandRestrictions.bypass.BypassManager;
+import com.github.lukesky19.commandRestrictions.throttle.ThrottleManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerCommandSendEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * This class keeps the bypass exemptions and throttle state of online players up to date.
+ */
+public class PlayerConnectionListener implements Listener {
+    private final BypassManager bypassManager;
+    private final ThrottleManager throttleManager;
+
+    /**
+     * Constructor
+     * @param bypassManager A {@link BypassManager} instance.
+     * @param throttleManager A {@link ThrottleManager} instance.
+     */
+    public PlayerConnectionListener(@NotNull BypassManager bypassManager, @NotNull ThrottleManager throttleManager) {
+        this.bypassManager = bypassManager;
+        this.throttleManager = throttleManager;
+    }
+
+    /**
+     * Computes the exemptions of a player that joined.
+     * @param playerJoinEvent A {@link PlayerJoinEvent}.
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent playerJoinEvent) {
+        bypassManager.update(playerJoinEvent.getPlayer());
+    }
+
+    /**
+     * Recomputes the exemptions of a player that changed worlds, since permissions may depend on the world.
+     * @param playerChangedWorldEvent A {@link PlayerChangedWorldEvent}.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent playerChangedWorldEvent) {
+        bypassManager.update(playerChangedWorldEvent.getPlayer());
+    }
+
+    /**
+     * Recomputes the exemptions of a player before their command tree is sent.
+     * Permission plugins resend the command tree when a player's permissions change, so this keeps the exemptions current.
+     * @param playerCommandSendEvent A {@link PlayerCommandSendEvent}.
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerCommandSend(PlayerCommandSendEvent playerCommandSendEvent) {
+        bypassManager.update(playerCommandSendEvent.getPlayer());
+    }
+
+    /**
+     * Forgets the exemptions and blocked attempts of a player that left.
+     * @param playerQuitEvent A {@link PlayerQuitEvent}.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent playerQuitEvent) {
+        bypassManager.remove(playerQuitEvent.getPlayer().getUniqueId());
+        throttleManager.remove(playerQuitEvent.getPlayer());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.listener;
+
+import com.github.lukesky19.commandRestrictions.audit.BlockedCommandReporter;
+import com.github.lukesky19.commandRestrictions.config.locale.LocaleManager;
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import com.github.lukesky19.commandRestrictions.engine.RestrictionEngine;
+import com.github.lukesky19.commandRestrictions.engine.RuleSnapshot;
+import com.github.lukesky19.commandRestrictions.engine.Verdict;
+import com.github.lukesky19.commandRestrictions.trace.TraceManager;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.command.BlockCommandSender;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.minecart.CommandMinecart;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.ServerCommandEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * This class listens to commands run by the console, RCON, command blocks and command block minecarts and restricts them like commands sent in-game.
+ */
+public class ServerCommandListener implements Listener {
+    private final Plugin commandRestrictions;
+    private final RestrictionEngine restrictionEngine;
+    private final LocaleManager localeManager;
+    private final BlockedCommandReporter blockedCommandReporter;
+    private final TraceManager traceManager;
+
+    /**
+     * Constructor
+     * @param commandRestrictions The plugin's class.
+     * @param restrictionEngine The {@link RestrictionEngine} to check commands with.
+     * @param localeManager A {@link LocaleManager} instance.
+     * @param blockedCommandReporter The {@link BlockedCommandReporter} to report blocked commands to.
+     * @param traceManager The {@link TraceManager} that selects the commands to trace.
+     */
+    public ServerCommandListener(
+            @NotNull Plugin commandRestrictions,
+            @NotNull RestrictionEngine restrictionEngine,
+            @NotNull LocaleManager localeManager,
+            @NotNull BlockedCommandReporter blockedCommandReporter,
+            @NotNull TraceManager traceManager) {
+        this.commandRestrictions = commandRestrictions;
+        this.restrictionEngine = restrictionEngine;
+        this.localeManager = localeManager;
+        this.blockedCommandReporter = blockedCommandReporter;
+        this.traceManager = traceManager;
+    }
+
+    /**
+     * Listens to when the console, RCON or a command block runs a command and restricts it if that source is enabled.
+     * @param serverCommandEvent A {@link ServerCommandEvent}.
+     */
+    @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
+    public void onServerCommand(ServerCommandEvent serverCommandEvent) {
+        ComponentLogger logger = commandRestrictions.getComponentLogger();
+        @Nullable RuleSnapshot snapshot = restrictionEngine.getSnapshot();
+        CommandSender sender = serverCommandEvent.getSender();
+
+        // If the plugin settings is invalid, display an error and return.
+        if(snapshot == null) {
+            logger.error(localeManager.getRenderedLocale().invalidSettings());
+            return;
+        }
+
+        // Only check the sources that are enabled. Without the sources section only player commands are checked.
+        Settings settings = snapshot.settings();
+        @Nullable Settings.Sources sources = settings.sources();
+        if(sources == null) return;
+        boolean commandBlock = sender instanceof BlockCommandSender || sender instanceof CommandMinecart;
+        if(commandBlock ? !sources.commandBlocks() : !sources.console()) return;
+
+        // Server commands are sent without the slash, so add it to match the commands the entries are written for.
+        String command = serverCommandEvent.getCommand();
+        if(!command.startsWith("/")) command = "/" + command;
+
+        Verdict verdict = restrictionEngine.check(snapshot, command, 0L, true, traceManager.start(sender, command));
+        if(!verdict.blocked()) return;
+
+        blockedCommandReporter.report(sender, command, verdict);
+        serverCommandEvent.setCancelled(true);
+    }
+}
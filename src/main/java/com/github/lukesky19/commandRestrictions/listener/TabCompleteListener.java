@@ -0,0 +1,175 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.listener;
+
+import com.destroystokyo.paper.event.brigadier.AsyncPlayerSendSuggestionsEvent;
+import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent;
+import com.github.lukesky19.commandRestrictions.bypass.BypassManager;
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import com.github.lukesky19.commandRestrictions.engine.RestrictionEngine;
+import com.github.lukesky19.commandRestrictions.engine.RuleSnapshot;
+import com.mojang.brigadier.suggestion.Suggestion;
+import com.mojang.brigadier.suggestion.Suggestions;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.TabCompleteEvent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class filters the tab completion suggestions sent to players so they don't reveal blocked commands or blocked text.
+ * A suggestion is removed if the command it would complete to is blocked.
+ * The async events are handled on the thread they are called on and never wait for the main thread.
+ */
+public class TabCompleteListener implements Listener {
+    private final RestrictionEngine restrictionEngine;
+    private final BypassManager bypassManager;
+
+    /**
+     * Constructor
+     * @param restrictionEngine The {@link RestrictionEngine} to check completed commands with.
+     * @param bypassManager The {@link BypassManager} to get player exemptions from.
+     */
+    public TabCompleteListener(@NotNull RestrictionEngine restrictionEngine, @NotNull BypassManager bypassManager) {
+        this.restrictionEngine = restrictionEngine;
+        this.bypassManager = bypassManager;
+    }
+
+    /**
+     * Filters the completions provided asynchronously by plugins.
+     * @param asyncTabCompleteEvent An {@link AsyncTabCompleteEvent}.
+     */
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onAsyncTabComplete(AsyncTabCompleteEvent asyncTabCompleteEvent) {
+        if(!asyncTabCompleteEvent.isCommand() || !(asyncTabCompleteEvent.getSender() instanceof Player player)) return;
+
+        @Nullable RuleSnapshot snapshot = getSnapshot();
+        if(snapshot == null) return;
+
+        String buffer = asyncTabCompleteEvent.getBuffer();
+        List<AsyncTabCompleteEvent.Completion> completions = asyncTabCompleteEvent.completions();
+        if(completions.isEmpty()) return;
+
+        // Completions replace the last word of the buffer.
+        long exemptGroups = bypassManager.getExemptGroups(player, snapshot);
+        int start = buffer.lastIndexOf(' ') + 1;
+        List<AsyncTabCompleteEvent.Completion> allowed = new ArrayList<>(completions.size());
+        for(AsyncTabCompleteEvent.Completion completion : completions) {
+            if(isAllowed(snapshot, exemptGroups, buffer, start, completion.suggestion())) {
+                allowed.add(completion);
+            }
+        }
+
+        if(allowed.size() != completions.size()) {
+            asyncTabCompleteEvent.completions(allowed);
+        }
+    }
+
+    /**
+     * Filters the completions provided synchronously by commands that don't use Brigadier.
+     * @param tabCompleteEvent A {@link TabCompleteEvent}.
+     */
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onTabComplete(TabCompleteEvent tabCompleteEvent) {
+        if(!(tabCompleteEvent.getSender() instanceof Player player)) return;
+
+        @Nullable RuleSnapshot snapshot = getSnapshot();
+        if(snapshot == null) return;
+
+        String buffer = tabCompleteEvent.getBuffer();
+        List<String> completions = tabCompleteEvent.getCompletions();
+        if(completions.isEmpty()) return;
+
+        // Completions replace the last word of the buffer.
+        long exemptGroups = bypassManager.getExemptGroups(player, snapshot);
+        int start = buffer.lastIndexOf(' ') + 1;
+        List<String> allowed = new ArrayList<>(completions.size());
+        for(String completion : completions) {
+            if(isAllowed(snapshot, exemptGroups, buffer, start, completion)) {
+                allowed.add(completion);
+            }
+        }
+
+        if(allowed.size() != completions.size()) {
+            tabCompleteEvent.setCompletions(allowed);
+        }
+    }
+
+    /**
+     * Filters the Brigadier suggestions right before they are sent to the player.
+     * @param asyncPlayerSendSuggestionsEvent An {@link AsyncPlayerSendSuggestionsEvent}.
+     */
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onAsyncPlayerSendSuggestions(AsyncPlayerSendSuggestionsEvent asyncPlayerSendSuggestionsEvent) {
+        @Nullable RuleSnapshot snapshot = getSnapshot();
+        if(snapshot == null) return;
+
+        String buffer = asyncPlayerSendSuggestionsEvent.getBuffer();
+        Suggestions suggestions = asyncPlayerSendSuggestionsEvent.getSuggestions();
+        List<Suggestion> list = suggestions.getList();
+        if(list.isEmpty()) return;
+
+        long exemptGroups = bypassManager.getExemptGroups(asyncPlayerSendSuggestionsEvent.getPlayer(), snapshot);
+        List<Suggestion> allowed = new ArrayList<>(list.size());
+        for(Suggestion suggestion : list) {
+            int start = Math.min(suggestion.getRange().getStart(), buffer.length());
+            if(isAllowed(snapshot, exemptGroups, buffer, start, suggestion.getText())) {
+                allowed.add(suggestion);
+            }
+        }
+
+        if(allowed.size() != list.size()) {
+            asyncPlayerSendSuggestionsEvent.setSuggestions(new Suggestions(suggestions.getRange(), allowed));
+        }
+    }
+
+    /**
+     * Gets the current rule snapshot if tab completion should be filtered.
+     * @return The current {@link RuleSnapshot}, or null if the settings are invalid or filtering tab completion is disabled.
+     */
+    @Nullable
+    private RuleSnapshot getSnapshot() {
+        @Nullable RuleSnapshot snapshot = restrictionEngine.getSnapshot();
+        if(snapshot == null) return null;
+
+        @Nullable Settings.Sources sources = snapshot.settings().sources();
+        return sources != null && sources.tabComplete() ? snapshot : null;
+    }
+
+    /**
+     * Checks if the command a suggestion completes to is allowed.
+     * @param snapshot The {@link RuleSnapshot} to check against.
+     * @param exemptGroups The mask of entry groups the player is exempt from.
+     * @param buffer The text the player has typed so far.
+     * @param start The index in the buffer the suggestion replaces text from.
+     * @param suggestion The suggested text.
+     * @return true if the completed command is allowed, false if it is blocked.
+     */
+    private boolean isAllowed(@NotNull RuleSnapshot snapshot, long exemptGroups, @NotNull String buffer, int start, @NotNull String suggestion) {
+        // Label suggestions may be sent without the slash the entries are written for.
+        String completed = buffer.substring(0, start) + suggestion;
+        if(!completed.startsWith("/")) completed = "/" + completed;
+
+        return !restrictionEngine.check(snapshot, completed, exemptGroups, false, null).blocked();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.metrics;
+
+import com.github.lukesky19.commandRestrictions.CommandRestrictions;
+import com.github.lukesky19.commandRestrictions.audit.AuditLog;
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import com.github.lukesky19.commandRestrictions.config.settings.SettingsManager;
+import com.github.lukesky19.commandRestrictions.engine.LatencyHistogram;
+import com.github.lukesky19.commandRestrictions.engine.RuleMetrics;
+import com.github.lukesky19.commandRestrictions.engine.RuleSnapshot;
+import com.github.lukesky19.commandRestrictions.engine.VerdictCache;
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+
+/**
+ * This class periodically writes the rule statistics to a file in the plugin's data folder.
+ */
+public class MetricsDumper {
+    private final CommandRestrictions commandRestrictions;
+    private final SettingsManager settingsManager;
+    private final AuditLog auditLog;
+    private BukkitTask task;
+
+    /**
+     * Constructor
+     * @param commandRestrictions The plugin's class.
+     * @param settingsManager A {@link SettingsManager} instance.
+     * @param auditLog The {@link AuditLog} to report the counters of.
+     */
+    public MetricsDumper(@NotNull CommandRestrictions commandRestrictions, @NotNull SettingsManager settingsManager, @NotNull AuditLog auditLog) {
+        this.commandRestrictions = commandRestrictions;
+        this.settingsManager = settingsManager;
+        this.auditLog = auditLog;
+    }
+
+    /**
+     * Restarts the periodic dump with a new interval.
+     * @param intervalSeconds The number of seconds between dumps. 0 or less disables dumping.
+     */
+    public synchronized void reload(int intervalSeconds) {
+        if(task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        if(intervalSeconds > 0) {
+            long ticks = intervalSeconds * 20L;
+            task = commandRestrictions.getServer().getScheduler().runTaskTimerAsynchronously(commandRestrictions, this::dump, ticks, ticks);
+        }
+    }
+
+    /**
+     * Writes the statistics of the current rule snapshot to stats.txt.
+     * @return The {@link Path} of the file written, or null if the settings never loaded or the file couldn't be written.
+     */
+    @Nullable
+    public Path dump() {
+        RuleSnapshot snapshot = settingsManager.getSnapshot();
+        if(snapshot == null) return null;
+
+        Path path = commandRestrictions.getDataFolder().toPath().resolve("stats.txt");
+        Path temporary = commandRestrictions.getDataFolder().toPath().resolve("stats.txt.tmp");
+        try {
+            Files.writeString(temporary, createReport(snapshot));
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            ComponentLogger logger = commandRestrictions.getComponentLogger();
+            logger.error(AdventureUtil.serialize("<red>Failed to write the statistics file: " + exception.getMessage() + "</red>"));
+            return null;
+        }
+
+        return path;
+    }
+
+    @NotNull
+    private String createReport(@NotNull RuleSnapshot snapshot) {
+        RuleMetrics metrics = snapshot.metrics();
+        LatencyHistogram latency = metrics.latency();
+        VerdictCache verdictCache = snapshot.verdictCache();
+
+        StringBuilder builder = new StringBuilder();
+        builder.append("# CommandRestrictions statistics since the last reload or reset.\n");
+        builder.append("generated: ").append(Instant.now()).append('\n');
+        builder.append("commands: ").append(metrics.commands()).append('\n');
+        builder.append("latency-mean-ns: ").append(Math.round(latency.meanNanos())).append('\n');
+        builder.append("latency-p50-ns: ").append(latency.percentileNanos(50)).append('\n');
+        builder.append("latency-p99-ns: ").append(latency.percentileNanos(99)).append('\n');
+        builder.append("latency-p999-ns: ").append(latency.percentileNanos(99.9)).append('\n');
+        builder.append("latency-max-ns: ").append(latency.maxNanos()).append('\n');
+        if(verdictCache != null) {
+            builder.append("verdict-cache-size: ").append(verdictCache.size()).append('\n');
+            builder.append("verdict-cache-hit-rate: ").append(verdictCache.hitRate()).append('\n');
+        }
+        builder.append("audit-written: ").append(auditLog.written()).append('\n');
+        builder.append("audit-dropped: ").append(auditLog.dropped()).append('\n');
+        builder.append("entries:\n");
+        for(int i = 0; i < metrics.entryCount(); i++) {
+            builder.append("  - index: ").append(i).append('\n');
+            Settings.Entry entry = snapshot.compiledRules().entries().get(i);
+            builder.append(entry.regex() == null && entry.tokens() != null ? "    tokens: '" : "    regex: '").append(entry.description().replace("'", "''")).append("'\n");
+            builder.append("    evaluations: ").append(metrics.evaluations(i)).append('\n');
+            builder.append("    matches: ").append(metrics.matches(i)).append('\n');
+            builder.append("    blocks: ").append(metrics.blocks(i)).append('\n');
+        }
+
+        return builder.toString();
+    }
+}
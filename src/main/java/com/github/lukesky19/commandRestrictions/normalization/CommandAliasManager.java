@@ -0,0 +1,121 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.normalization;
+
+import com.github.lukesky19.commandRestrictions.CommandRestrictions;
+import com.github.lukesky19.commandRestrictions.engine.CommandNormalizer;
+import org.bukkit.command.Command;
+import org.bukkit.command.PluginCommand;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This class builds the alias table used to normalize commands from the server's command map.
+ * The table is only rebuilt when commands are registered or unregistered, never while checking a command.
+ */
+public class CommandAliasManager {
+    private final CommandRestrictions commandRestrictions;
+    private volatile CommandNormalizer normalizer = CommandNormalizer.EMPTY;
+    private boolean refreshScheduled = false;
+
+    /**
+     * Constructor
+     * @param commandRestrictions The plugin's class.
+     */
+    public CommandAliasManager(@NotNull CommandRestrictions commandRestrictions) {
+        this.commandRestrictions = commandRestrictions;
+    }
+
+    /**
+     * A getter to get the current {@link CommandNormalizer}.
+     * @return The {@link CommandNormalizer} built from the last refresh.
+     */
+    @NotNull
+    public CommandNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    /**
+     * Schedules a refresh of the alias table on the next tick.
+     * Plugins register their commands in bursts, so several requests in the same tick only cause one refresh.
+     * Must be called on the main thread.
+     */
+    public void scheduleRefresh() {
+        if(refreshScheduled || !commandRestrictions.isEnabled()) return;
+
+        refreshScheduled = true;
+        commandRestrictions.getServer().getScheduler().runTask(commandRestrictions, () -> {
+            refreshScheduled = false;
+            refresh();
+        });
+    }
+
+    /**
+     * Rebuilds the alias table from the server's command map and publishes a new {@link CommandNormalizer}.
+     * Must be called on the main thread.
+     */
+    public void refresh() {
+        Map<String, Command> knownCommands = commandRestrictions.getServer().getCommandMap().getKnownCommands();
+
+        // Find the namespaced label of each command, preferring the one that uses the command's own name.
+        Map<Command, String> namespacedLabels = new IdentityHashMap<>();
+        for(Map.Entry<String, Command> entry : knownCommands.entrySet()) {
+            String label = entry.getKey().toLowerCase(Locale.ROOT);
+            Command command = entry.getValue();
+            int separator = label.indexOf(':');
+            if(separator < 0 || command == null) continue;
+
+            String current = namespacedLabels.get(command);
+            boolean ownName = label.substring(separator + 1).equals(command.getName().toLowerCase(Locale.ROOT));
+            if(current == null || ownName) {
+                namespacedLabels.put(command, label);
+            }
+        }
+
+        // Map every label to the canonical label of its command.
+        Map<String, String> aliases = new HashMap<>(knownCommands.size() * 2);
+        for(Map.Entry<String, Command> entry : knownCommands.entrySet()) {
+            Command command = entry.getValue();
+            if(command == null) continue;
+
+            aliases.put(entry.getKey().toLowerCase(Locale.ROOT), getCanonicalLabel(command, namespacedLabels));
+        }
+
+        normalizer = new CommandNormalizer(aliases);
+    }
+
+    /**
+     * Gets the canonical label of a command.
+     * @param command The {@link Command}.
+     * @param namespacedLabels The namespaced label found for each command in the command map.
+     * @return The canonical label in the form {@code namespace:command}, or the command's name if it has no namespace.
+     */
+    @NotNull
+    private String getCanonicalLabel(@NotNull Command command, @NotNull Map<Command, String> namespacedLabels) {
+        if(command instanceof PluginCommand pluginCommand) {
+            return pluginCommand.getPlugin().getName().toLowerCase(Locale.ROOT) + ":" + pluginCommand.getName().toLowerCase(Locale.ROOT);
+        }
+
+        String namespacedLabel = namespacedLabels.get(command);
+        return namespacedLabel != null ? namespacedLabel : command.getName().toLowerCase(Locale.ROOT);
+    }
+}
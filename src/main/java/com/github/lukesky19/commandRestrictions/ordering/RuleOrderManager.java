@@ -0,0 +1,93 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.ordering;
+
+import com.github.lukesky19.commandRestrictions.CommandRestrictions;
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import com.github.lukesky19.commandRestrictions.config.settings.SettingsManager;
+import com.github.lukesky19.commandRestrictions.engine.CompiledRules;
+import com.github.lukesky19.commandRestrictions.engine.RuleOrder;
+import com.github.lukesky19.commandRestrictions.engine.RuleSnapshot;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * This class periodically reorders the entries of order-insensitive groups from the live rule statistics.
+ * A new order is published as a new rule snapshot that shares the compiled rules, statistics and verdict cache of the current one.
+ */
+public class RuleOrderManager {
+    private static final int DEFAULT_INTERVAL_SECONDS = 60;
+    private static final int DEFAULT_MIN_EVALUATIONS = 100;
+
+    private final CommandRestrictions commandRestrictions;
+    private final SettingsManager settingsManager;
+    private BukkitTask task;
+    private volatile long minEvaluations = DEFAULT_MIN_EVALUATIONS;
+
+    /**
+     * Constructor
+     * @param commandRestrictions The plugin's class.
+     * @param settingsManager A {@link SettingsManager} instance.
+     */
+    public RuleOrderManager(@NotNull CommandRestrictions commandRestrictions, @NotNull SettingsManager settingsManager) {
+        this.commandRestrictions = commandRestrictions;
+        this.settingsManager = settingsManager;
+    }
+
+    /**
+     * Restarts the periodic reordering with new settings.
+     * @param adaptiveOrdering The {@link Settings.AdaptiveOrdering} settings, or null to disable reordering.
+     */
+    public synchronized void reload(@Nullable Settings.AdaptiveOrdering adaptiveOrdering) {
+        if(task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        if(adaptiveOrdering == null || !adaptiveOrdering.enabled()) return;
+
+        minEvaluations = adaptiveOrdering.minEvaluations() > 0 ? adaptiveOrdering.minEvaluations() : DEFAULT_MIN_EVALUATIONS;
+
+        long ticks = (adaptiveOrdering.intervalSeconds() > 0 ? adaptiveOrdering.intervalSeconds() : DEFAULT_INTERVAL_SECONDS) * 20L;
+        task = commandRestrictions.getServer().getScheduler().runTaskTimerAsynchronously(commandRestrictions, this::reorder, ticks, ticks);
+    }
+
+    /**
+     * Computes the order of the current rule snapshot's entries and publishes it if it changed.
+     * Nothing is published if a reload replaced the snapshot while the order was computed.
+     */
+    public void reorder() {
+        RuleSnapshot snapshot = settingsManager.getSnapshot();
+        if(snapshot == null) return;
+
+        CompiledRules compiledRules = snapshot.compiledRules();
+        RuleOrder order = RuleOrder.compute(compiledRules, snapshot.metrics(), minEvaluations);
+        if(order == null) return;
+
+        // Keep the current snapshot, and the reason for its order, if the order would stay the same.
+        RuleOrder current = compiledRules.order();
+        if(current != null ? Arrays.equals(current.order(), order.order()) : order.movedEntries() == 0) return;
+
+        // The verdicts stay valid, since only entries that may be checked in any order moved.
+        RuleSnapshot reordered = new RuleSnapshot(snapshot.settings(), compiledRules.withOrder(order), snapshot.verdictCache(), snapshot.metrics(), snapshot.compileNanos());
+        settingsManager.replaceSnapshot(snapshot, reordered);
+    }
+}
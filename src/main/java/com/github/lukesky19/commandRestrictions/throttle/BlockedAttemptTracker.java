@@ -0,0 +1,234 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.throttle;
+
+import java.util.Arrays;
+
+/**
+ * This class keeps a token bucket of blocked attempts for each player, keyed by entity id.
+ * The buckets are stored in parallel primitive arrays with open addressing, so tracking an attempt never allocates
+ * once a player has a slot. A player that spends the last token is throttled for one window.
+ * It is not thread-safe and must only be used from the main thread.
+ */
+public final class BlockedAttemptTracker {
+    private static final int EMPTY = Integer.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int maxAttempts = 1;
+    private long windowNanos = 1;
+
+    private int[] keys;
+    private double[] tokens;
+    private long[] lastRefill;
+    private long[] throttledUntil;
+    private int[] rejected;
+    private int[] throttles;
+    private int size;
+
+    /**
+     * Constructor
+     */
+    public BlockedAttemptTracker() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Sets the size and refill rate of the buckets. Existing buckets keep their state.
+     * @param maxAttempts The number of blocked attempts allowed in a window. Must be greater than 0.
+     * @param windowNanos The length of the window in nanoseconds, which is also how long a player stays throttled. Must be greater than 0.
+     */
+    public void configure(int maxAttempts, long windowNanos) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.windowNanos = Math.max(1, windowNanos);
+    }
+
+    /**
+     * Checks if a player is throttled.
+     * @param entityId The player's entity id.
+     * @param now The current time from {@link System#nanoTime()}.
+     * @return true if throttled, false if not.
+     */
+    public boolean isThrottled(int entityId, long now) {
+        int slot = find(entityId);
+        return slot >= 0 && throttledUntil[slot] - now > 0;
+    }
+
+    /**
+     * Records a command rejected while the player was throttled.
+     * @param entityId The player's entity id.
+     */
+    public void recordRejected(int entityId) {
+        int slot = find(entityId);
+        if(slot >= 0) rejected[slot]++;
+    }
+
+    /**
+     * Records a blocked attempt and throttles the player if it was the last token in their bucket.
+     * @param entityId The player's entity id.
+     * @param now The current time from {@link System#nanoTime()}.
+     * @return 0 if the player wasn't throttled by this attempt, otherwise the number of times the player has been throttled.
+     */
+    public int recordBlocked(int entityId, long now) {
+        int slot = find(entityId);
+        if(slot < 0) {
+            slot = insert(entityId);
+            tokens[slot] = maxAttempts;
+            lastRefill[slot] = now;
+        }
+
+        // Refill the bucket for the time since the last attempt.
+        double refilled = tokens[slot] + (double) (now - lastRefill[slot]) * maxAttempts / windowNanos;
+        tokens[slot] = Math.min(maxAttempts, refilled) - 1;
+        lastRefill[slot] = now;
+
+        if(tokens[slot] > 0) return 0;
+
+        // Throttle for a window and start the next one with a full bucket.
+        throttledUntil[slot] = now + windowNanos;
+        tokens[slot] = maxAttempts;
+        lastRefill[slot] = now + windowNanos;
+        return ++throttles[slot];
+    }
+
+    /**
+     * Gets and resets the number of commands rejected from a player while throttled.
+     * @param entityId The player's entity id.
+     * @return The number of commands rejected since the count was last taken.
+     */
+    public int takeRejected(int entityId) {
+        int slot = find(entityId);
+        if(slot < 0) return 0;
+
+        int count = rejected[slot];
+        rejected[slot] = 0;
+        return count;
+    }
+
+    /**
+     * Forgets a player's bucket.
+     * @param entityId The player's entity id.
+     */
+    public void remove(int entityId) {
+        int slot = find(entityId);
+        if(slot < 0) return;
+
+        // Shift the following entries of the probe sequence back so lookups don't stop at the hole.
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while(keys[next] != EMPTY) {
+            int home = mix(keys[next]) & mask;
+            if(((next - home) & mask) >= ((next - hole) & mask)) {
+                move(next, hole);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        keys[hole] = EMPTY;
+        size--;
+    }
+
+    /**
+     * Forgets every bucket.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Gets the number of players with a bucket.
+     * @return The number of players.
+     */
+    public int size() {
+        return size;
+    }
+
+    private int find(int entityId) {
+        int mask = keys.length - 1;
+        for(int slot = mix(entityId) & mask; ; slot = (slot + 1) & mask) {
+            int key = keys[slot];
+            if(key == entityId) return slot;
+            if(key == EMPTY) return -1;
+        }
+    }
+
+    private int insert(int entityId) {
+        // Keep the table at most half full so probe sequences stay short.
+        if((size + 1) * 2 > keys.length) grow();
+
+        int mask = keys.length - 1;
+        int slot = mix(entityId) & mask;
+        while(keys[slot] != EMPTY) slot = (slot + 1) & mask;
+
+        keys[slot] = entityId;
+        throttledUntil[slot] = 0;
+        rejected[slot] = 0;
+        throttles[slot] = 0;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        double[] oldTokens = tokens;
+        long[] oldLastRefill = lastRefill;
+        long[] oldThrottledUntil = throttledUntil;
+        int[] oldRejected = rejected;
+        int[] oldThrottles = throttles;
+
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for(int i = 0; i < oldKeys.length; i++) {
+            if(oldKeys[i] == EMPTY) continue;
+
+            int slot = insert(oldKeys[i]);
+            tokens[slot] = oldTokens[i];
+            lastRefill[slot] = oldLastRefill[i];
+            throttledUntil[slot] = oldThrottledUntil[i];
+            rejected[slot] = oldRejected[i];
+            throttles[slot] = oldThrottles[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        tokens = new double[capacity];
+        lastRefill = new long[capacity];
+        throttledUntil = new long[capacity];
+        rejected = new int[capacity];
+        throttles = new int[capacity];
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        tokens[to] = tokens[from];
+        lastRefill[to] = lastRefill[from];
+        throttledUntil[to] = throttledUntil[from];
+        rejected[to] = rejected[from];
+        throttles[to] = throttles[from];
+    }
+
+    private static int mix(int key) {
+        // Entity ids are sequential, so spread them before masking.
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.throttle;
+
+import com.github.lukesky19.commandRestrictions.config.locale.LocaleManager;
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * This class throttles players that keep sending blocked commands.
+ * Commands from a throttled player are rejected before they are checked, and the messages and warnings for them
+ * are collapsed into a summary logged periodically. It must only be used from the main thread.
+ */
+public class ThrottleManager {
+    private final Plugin commandRestrictions;
+    private final LocaleManager localeManager;
+    private final BlockedAttemptTracker tracker = new BlockedAttemptTracker();
+    private boolean enabled = false;
+    private int kickAfterThrottles = 0;
+    private BukkitTask summaryTask;
+
+    /**
+     * Constructor
+     * @param commandRestrictions The plugin's class.
+     * @param localeManager A {@link LocaleManager} instance.
+     */
+    public ThrottleManager(@NotNull Plugin commandRestrictions, @NotNull LocaleManager localeManager) {
+        this.commandRestrictions = commandRestrictions;
+        this.localeManager = localeManager;
+    }
+
+    /**
+     * Applies the throttle settings and restarts the summary task.
+     * @param throttle The {@link Settings.Throttle} settings, or null to disable throttling.
+     */
+    public void reload(@Nullable Settings.Throttle throttle) {
+        if(summaryTask != null) {
+            summaryTask.cancel();
+            summaryTask = null;
+        }
+
+        enabled = throttle != null && throttle.enabled();
+        if(!enabled) {
+            tracker.clear();
+            return;
+        }
+
+        tracker.configure(throttle.maxBlockedAttempts(), Math.max(1, throttle.windowSeconds()) * 1_000_000_000L);
+        kickAfterThrottles = throttle.kickAfterThrottles();
+
+        long ticks = Math.max(1, throttle.summaryIntervalSeconds()) * 20L;
+        summaryTask = commandRestrictions.getServer().getScheduler().runTaskTimer(commandRestrictions, this::logSummary, ticks, ticks);
+    }
+
+    /**
+     * Rejects a command if the player that sent it is throttled.
+     * This is checked before the command is matched against any entry.
+     * @param player The {@link Player} that sent the command.
+     * @return true if the command should be rejected, false if it should be checked as usual.
+     */
+    public boolean rejectIfThrottled(@NotNull Player player) {
+        if(!enabled) return false;
+
+        int entityId = player.getEntityId();
+        if(!tracker.isThrottled(entityId, System.nanoTime())) return false;
+
+        tracker.recordRejected(entityId);
+        return true;
+    }
+
+    /**
+     * Records a blocked command and throttles the player if they sent too many.
+     * A newly throttled player is told so, and kicked if they have been throttled too many times.
+     * @param player The {@link Player} that sent the blocked command.
+     */
+    public void recordBlocked(@NotNull Player player) {
+        if(!enabled) return;
+
+        int throttles = tracker.recordBlocked(player.getEntityId(), System.nanoTime());
+        if(throttles == 0) return;
+
+        if(kickAfterThrottles > 0 && throttles >= kickAfterThrottles) {
+            player.kick(localeManager.getRenderedLocale(player.locale()).throttledKickMessage());
+            return;
+        }
+
+        player.sendMessage(localeManager.getRenderedLocale(player.locale()).throttledPlayerMessage());
+    }
+
+    /**
+     * Forgets a player's blocked attempts.
+     * @param player The {@link Player}.
+     */
+    public void remove(@NotNull Player player) {
+        tracker.remove(player.getEntityId());
+    }
+
+    /**
+     * Logs the number of commands rejected from each throttled player since the last summary.
+     */
+    private void logSummary() {
+        for(Player player : commandRestrictions.getServer().getOnlinePlayers()) {
+            int rejected = tracker.takeRejected(player.getEntityId());
+            if(rejected == 0) continue;
+
+            commandRestrictions.getComponentLogger().warn(AdventureUtil.serialize(localeManager.getLocale().throttledConsoleSummary(), List.of(
+                    Placeholder.unparsed("count", String.valueOf(rejected)),
+                    Placeholder.unparsed("player", player.getName()))));
+        }
+    }
+}
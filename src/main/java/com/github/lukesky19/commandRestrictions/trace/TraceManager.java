@@ -0,0 +1,162 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.trace;
+
+import com.github.lukesky19.commandRestrictions.engine.CommandTrace;
+import com.github.lukesky19.commandRestrictions.engine.TraceBuffer;
+import com.github.lukesky19.commandRestrictions.engine.TraceEvent;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * This class selects the commands that are traced and writes the recorded events to a file.
+ * While nothing is traced, {@link #start(CommandSender, String)} returns after a single null check,
+ * so the listeners pay nothing else for tracing.
+ */
+public class TraceManager {
+    private static final int DEFAULT_BUFFER_SIZE = 4096;
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+
+    private final Plugin commandRestrictions;
+    private volatile TraceBuffer buffer = new TraceBuffer(DEFAULT_BUFFER_SIZE);
+    private volatile @Nullable TraceFilter filter;
+
+    /**
+     * Constructor
+     * @param commandRestrictions The plugin's class.
+     */
+    public TraceManager(@NotNull Plugin commandRestrictions) {
+        this.commandRestrictions = commandRestrictions;
+    }
+
+    /**
+     * Applies the size of the trace buffer. The recorded events are dropped if the size changed.
+     * @param bufferSize The number of events to keep. 0 or less uses the default size.
+     */
+    public void reload(int bufferSize) {
+        int capacity = bufferSize > 0 ? bufferSize : DEFAULT_BUFFER_SIZE;
+        if(buffer.capacity() != capacity) buffer = new TraceBuffer(capacity);
+    }
+
+    /**
+     * Starts tracing a command if it is selected for tracing.
+     * @param sender The {@link CommandSender} that sent the command.
+     * @param command The command.
+     * @return A {@link CommandTrace} to pass to the engine, or null if the command isn't traced.
+     */
+    @Nullable
+    public CommandTrace start(@NotNull CommandSender sender, @NotNull String command) {
+        TraceFilter current = filter;
+        if(current == null) return null;
+
+        if(!current.matches(sender, command)) return null;
+        return buffer.start(sender.getName(), command);
+    }
+
+    /**
+     * Traces every command sent by a player. The previously recorded events are dropped.
+     * @param player The {@link Player} to trace.
+     */
+    public void tracePlayer(@NotNull Player player) {
+        buffer.clear();
+        filter = new TraceFilter(player.getUniqueId(), null, "player " + player.getName());
+    }
+
+    /**
+     * Traces every command that the pattern finds a match in, from any sender. The previously recorded events are dropped.
+     * @param pattern The {@link Pattern} commands are matched against.
+     */
+    public void tracePattern(@NotNull Pattern pattern) {
+        buffer.clear();
+        filter = new TraceFilter(null, pattern, "pattern " + pattern.pattern());
+    }
+
+    /**
+     * Stops tracing. The recorded events are kept until they are dumped or a new trace is started.
+     */
+    public void stop() {
+        filter = null;
+    }
+
+    /**
+     * Writes the recorded events to a new file in the traces directory of the plugin's data folder.
+     * This is I/O, so it should be called off the main thread.
+     * @return The {@link TraceDump} describing the written file.
+     * @throws IOException If the file can't be written.
+     */
+    @NotNull
+    public TraceDump dump() throws IOException {
+        TraceBuffer current = buffer;
+        TraceFilter currentFilter = filter;
+        List<TraceEvent> events = current.events();
+
+        List<String> lines = new ArrayList<>(events.size() + 2);
+        lines.add("# CommandRestrictions trace of " + (currentFilter != null ? currentFilter.description() : "a stopped selection") + ".");
+        lines.add("# " + events.size() + " events kept of " + current.written() + " recorded. Times are relative to the first event kept.");
+        long startNanos = events.isEmpty() ? 0 : events.getFirst().nanoTime();
+        for(TraceEvent event : events) {
+            lines.add(event.format(startNanos));
+        }
+
+        Path directory = commandRestrictions.getDataFolder().toPath().resolve("traces");
+        Files.createDirectories(directory);
+        Path file = directory.resolve("trace-" + LocalDateTime.now().format(FILE_NAME_FORMAT) + ".txt");
+        Files.write(file, lines);
+
+        return new TraceDump(file, events.size());
+    }
+
+    /**
+     * This class represents the selection of commands that are traced.
+     * @param playerId The {@link UUID} of the traced player, or null to select commands by pattern.
+     * @param pattern The {@link Pattern} commands are matched against, or null to select commands by player.
+     * @param description The description of the selection written to the dump.
+     */
+    private record TraceFilter(@Nullable UUID playerId, @Nullable Pattern pattern, @NotNull String description) {
+        /**
+         * Checks if a command is selected for tracing.
+         * @param sender The {@link CommandSender} that sent the command.
+         * @param command The command.
+         * @return true if the command should be traced, false if not.
+         */
+        boolean matches(@NotNull CommandSender sender, @NotNull String command) {
+            if(playerId != null) return sender instanceof Player player && playerId.equals(player.getUniqueId());
+            return pattern != null && pattern.matcher(command).find();
+        }
+    }
+
+    /**
+     * This class represents a written trace dump.
+     * @param file The {@link Path} of the file.
+     * @param events The number of events written.
+     */
+    public record TraceDump(@NotNull Path file, int events) {}
+}
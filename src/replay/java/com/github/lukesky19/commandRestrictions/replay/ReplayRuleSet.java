@@ -0,0 +1,163 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.replay;
+
+import com.github.lukesky19.commandRestrictions.config.settings.RuleFile;
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import com.github.lukesky19.commandRestrictions.engine.CommandNormalizer;
+import com.github.lukesky19.commandRestrictions.engine.CompiledRules;
+import com.github.lukesky19.commandRestrictions.engine.RestrictionEngine;
+import com.github.lukesky19.commandRestrictions.engine.RuleCompiler;
+import com.github.lukesky19.commandRestrictions.engine.RuleMetrics;
+import com.github.lukesky19.commandRestrictions.engine.RuleSnapshot;
+import com.github.lukesky19.commandRestrictions.engine.Verdict;
+import com.github.lukesky19.commandRestrictions.engine.VerdictCache;
+import com.github.lukesky19.skylib.libs.configurate.ConfigurateException;
+import com.github.lukesky19.skylib.libs.configurate.yaml.YamlConfigurationLoader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * This class loads a settings file and its rule files the same way the plugin does, but without a server,
+ * and checks commands against them with the same {@link RestrictionEngine} the listeners use.
+ * The replay checks commands on every core, so a regex can run over its budget because of the load alone.
+ * Entries are therefore never quarantined and timeouts count as allowed, so one slow check can't change the verdicts of later commands.
+ */
+final class ReplayRuleSet {
+    private final String name;
+    private final RuleSnapshot snapshot;
+    private final Map<Integer, LongAdder> timeouts;
+    private final RestrictionEngine engine;
+
+    private ReplayRuleSet(@NotNull String name, @NotNull RuleSnapshot snapshot, @NotNull Map<Integer, LongAdder> timeouts) {
+        this.name = name;
+        this.snapshot = snapshot;
+        this.timeouts = timeouts;
+        this.engine = new RestrictionEngine(() -> snapshot, () -> CommandNormalizer.EMPTY);
+    }
+
+    /**
+     * Loads and compiles a rule set.
+     * There is no command map outside a server, so with normalize-commands enabled only the case of the label and the whitespace are normalized.
+     * @param name The name of the rule set shown in the report.
+     * @param settingsFile The {@link Path} of the settings.yml to load.
+     * @param rulesDirectory The {@link Path} of the rules directory whose files are added after the settings' entries, or null.
+     * @return The loaded {@link ReplayRuleSet}.
+     * @throws IOException If a file can't be read or parsed.
+     */
+    @NotNull
+    static ReplayRuleSet load(@NotNull String name, @NotNull Path settingsFile, @Nullable Path rulesDirectory) throws IOException {
+        long start = System.nanoTime();
+
+        Settings settings;
+        try {
+            settings = YamlConfigurationLoader.builder().path(settingsFile).build().load().get(Settings.class);
+        } catch (ConfigurateException configurateException) {
+            throw new IOException("Failed to load " + settingsFile + ": " + configurateException.getMessage(), configurateException);
+        }
+        if(settings == null) throw new IOException("Failed to load " + settingsFile + ".");
+
+        // Add the entries of the rule files after the entries of the settings, in the alphabetical order of the file names.
+        if(rulesDirectory != null) {
+            // Configurate leaves the list null if the entries key is missing.
+            //noinspection ConstantValue
+            List<Settings.Entry> entries = settings.entries() == null ? new ArrayList<>() : new ArrayList<>(settings.entries());
+
+            List<Path> files;
+            try(Stream<Path> stream = Files.list(rulesDirectory)) {
+                files = stream.filter(file -> {
+                    String fileName = file.getFileName().toString();
+                    return Files.isRegularFile(file) && (fileName.endsWith(".yml") || fileName.endsWith(".yaml"));
+                }).sorted().toList();
+            }
+
+            for(Path file : files) {
+                RuleFile ruleFile;
+                try {
+                    ruleFile = YamlConfigurationLoader.builder().path(file).build().load().get(RuleFile.class);
+                } catch (ConfigurateException configurateException) {
+                    throw new IOException("Failed to load " + file + ": " + configurateException.getMessage(), configurateException);
+                }
+                if(ruleFile != null && ruleFile.entries() != null) entries.addAll(ruleFile.entries());
+            }
+
+            settings = settings.withEntries(entries);
+        }
+
+        Map<Integer, LongAdder> timeouts = new ConcurrentHashMap<>();
+        CompiledRules compiledRules = RuleCompiler.compileWithoutQuarantine(settings, entryIndex ->
+                timeouts.computeIfAbsent(entryIndex, key -> new LongAdder()).increment());
+
+        for(int entryIndex : compiledRules.unsafeEntries()) {
+            System.err.println("[" + name + "] Entry " + entryIndex + " has nested quantifiers and may be very slow on some commands.");
+        }
+
+        VerdictCache verdictCache = settings.verdictCacheSize() > 0 ? new VerdictCache(settings.verdictCacheSize()) : null;
+        RuleMetrics metrics = new RuleMetrics(compiledRules.entries().size());
+
+        return new ReplayRuleSet(name, new RuleSnapshot(settings, compiledRules, verdictCache, metrics, System.nanoTime() - start), timeouts);
+    }
+
+    /**
+     * Gets the name of the rule set.
+     * @return The name shown in the report.
+     */
+    @NotNull
+    String name() {
+        return name;
+    }
+
+    /**
+     * Gets the snapshot the commands are checked against.
+     * @return The {@link RuleSnapshot}, whose {@link RuleMetrics} count the replayed commands.
+     */
+    @NotNull
+    RuleSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gets the number of times an entry took longer than the match budget to check a command.
+     * @param entryIndex The index of the entry.
+     * @return The number of timeouts.
+     */
+    long timeouts(int entryIndex) {
+        LongAdder counter = timeouts.get(entryIndex);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * Checks a command as if a player without bypass permissions sent it.
+     * @param command The command to check.
+     * @return The {@link Verdict} for the command.
+     */
+    @NotNull
+    Verdict check(@NotNull String command) {
+        return engine.check(snapshot, command, 0, true, null);
+    }
+}
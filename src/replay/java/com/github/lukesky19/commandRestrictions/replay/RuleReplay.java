@@ -0,0 +1,329 @@
+/*
+    CommandRestrictions is a plugin that restricts specific commands or partial commands using regex.
+    Copyright (C) 2025  lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.commandRestrictions.replay;
+
+import com.github.lukesky19.commandRestrictions.config.settings.Settings;
+import com.github.lukesky19.commandRestrictions.engine.LatencyHistogram;
+import com.github.lukesky19.commandRestrictions.engine.RuleMetrics;
+import com.github.lukesky19.commandRestrictions.engine.Verdict;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Replays a log of commands against a rule set without a server, to see what a change to the rules would block before deploying it.
+ * The log is streamed in batches that are checked on every core, so logs with millions of commands don't need to fit in memory.
+ * Run it with {@code ./gradlew replay --args="--settings <settings.yml> [--rules <dir>] [--baseline <settings.yml>] [--baseline-rules <dir>] [--threads <n>] [--examples <n>] <log>..."}.
+ * Each line of a log is one command. Logs ending in .gz are decompressed while reading.
+ */
+public final class RuleReplay {
+    private static final int BATCH_SIZE = 1024;
+
+    private final ReplayRuleSet candidate;
+    private final @Nullable ReplayRuleSet baseline;
+    private final int threads;
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder newlyBlocked = new LongAdder();
+    private final LongAdder newlyAllowed = new LongAdder();
+    private final String[] examples;
+    private final AtomicInteger exampleCount = new AtomicInteger();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private RuleReplay(@NotNull ReplayRuleSet candidate, @Nullable ReplayRuleSet baseline, int threads, int maxExamples) {
+        this.candidate = candidate;
+        this.baseline = baseline;
+        this.threads = threads;
+        this.examples = new String[maxExamples];
+    }
+
+    /**
+     * The entry point of the replay.
+     * @param args The command line arguments.
+     */
+    public static void main(String[] args) {
+        Path settingsFile = null;
+        Path rulesDirectory = null;
+        Path baselineFile = null;
+        Path baselineRulesDirectory = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxExamples = 20;
+        List<Path> logs = new ArrayList<>();
+
+        try {
+            for(int i = 0; i < args.length; i++) {
+                switch(args[i]) {
+                    case "--settings" -> settingsFile = Path.of(args[++i]);
+                    case "--rules" -> rulesDirectory = Path.of(args[++i]);
+                    case "--baseline" -> baselineFile = Path.of(args[++i]);
+                    case "--baseline-rules" -> baselineRulesDirectory = Path.of(args[++i]);
+                    case "--threads" -> threads = Math.max(1, Integer.parseInt(args[++i]));
+                    case "--examples" -> maxExamples = Math.max(0, Integer.parseInt(args[++i]));
+                    default -> logs.add(Path.of(args[i]));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException exception) {
+            settingsFile = null;
+        }
+
+        if(settingsFile == null || logs.isEmpty()) {
+            System.err.println("Usage: --settings <settings.yml> [--rules <dir>] [--baseline <settings.yml>] [--baseline-rules <dir>] [--threads <n>] [--examples <n>] <log>...");
+            System.exit(2);
+            return;
+        }
+
+        try {
+            ReplayRuleSet candidate = ReplayRuleSet.load("candidate", settingsFile, rulesDirectory);
+            ReplayRuleSet baseline = baselineFile != null ? ReplayRuleSet.load("baseline", baselineFile, baselineRulesDirectory) : null;
+
+            RuleReplay replay = new RuleReplay(candidate, baseline, threads, maxExamples);
+            long nanos = replay.run(logs);
+            replay.printReport(logs.size(), nanos);
+        } catch (IOException | InterruptedException exception) {
+            System.err.println("Replay failed: " + exception.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Streams the logs and checks every command against the rule sets.
+     * @param logs The {@link Path}s of the command logs.
+     * @return The time the replay took in nanoseconds.
+     * @throws IOException If a log can't be read or a command couldn't be checked.
+     * @throws InterruptedException If the replay was interrupted.
+     */
+    private long run(@NotNull List<Path> logs) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "CommandRestrictions-Replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Bound the batches in flight so the reader can't get far ahead of the workers.
+        Semaphore inFlight = new Semaphore(threads * 4);
+
+        long start = System.nanoTime();
+        try {
+            for(Path log : logs) {
+                try(BufferedReader reader = openLog(log)) {
+                    String[] batch = new String[BATCH_SIZE];
+                    int size = 0;
+                    String line;
+                    while((line = reader.readLine()) != null) {
+                        String command = line.strip();
+                        if(command.isEmpty()) continue;
+
+                        batch[size++] = command;
+                        if(size == BATCH_SIZE) {
+                            submit(executor, inFlight, batch, size);
+                            batch = new String[BATCH_SIZE];
+                            size = 0;
+                        }
+                    }
+
+                    if(size > 0) submit(executor, inFlight, batch, size);
+                }
+            }
+        } finally {
+            executor.shutdown();
+            //noinspection ResultOfMethodCallIgnored
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        long nanos = System.nanoTime() - start;
+
+        Throwable throwable = failure.get();
+        if(throwable != null) throw new IOException("A command couldn't be checked: " + throwable, throwable);
+
+        return nanos;
+    }
+
+    /**
+     * Queues a batch of commands to be checked.
+     * @param executor The {@link ExecutorService} that checks the batch.
+     * @param inFlight The {@link Semaphore} that bounds the batches in flight.
+     * @param batch The commands.
+     * @param size The number of commands in the batch.
+     * @throws InterruptedException If interrupted while waiting for a batch to finish.
+     */
+    private void submit(@NotNull ExecutorService executor, @NotNull Semaphore inFlight, @NotNull String[] batch, int size) throws InterruptedException {
+        inFlight.acquire();
+        executor.execute(() -> {
+            try {
+                for(int i = 0; i < size; i++) {
+                    check(batch[i]);
+                }
+            } catch (RuntimeException exception) {
+                failure.compareAndSet(null, exception);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Checks a command against the rule sets and records any difference between them.
+     * @param line The command as logged, with or without the leading slash.
+     */
+    private void check(@NotNull String line) {
+        String command = line.charAt(0) == '/' ? line : "/" + line;
+        commands.increment();
+
+        Verdict verdict = candidate.check(command);
+        if(baseline == null) return;
+
+        Verdict baselineVerdict = baseline.check(command);
+        if(verdict.blocked() == baselineVerdict.blocked()) return;
+
+        if(verdict.blocked()) {
+            newlyBlocked.increment();
+            addExample("+ " + command + " (entry #" + verdict.entryIndex() + ")");
+        } else {
+            newlyAllowed.increment();
+            addExample("- " + command + " (baseline entry #" + baselineVerdict.entryIndex() + ")");
+        }
+    }
+
+    /**
+     * Keeps an example of a changed verdict, until the maximum number of examples is reached.
+     * @param example The example to keep.
+     */
+    private void addExample(@NotNull String example) {
+        if(exampleCount.get() >= examples.length) return;
+
+        int index = exampleCount.getAndIncrement();
+        if(index < examples.length) examples[index] = example;
+    }
+
+    /**
+     * Prints the throughput, the hits of each entry and the difference against the baseline.
+     * @param logCount The number of logs replayed.
+     * @param nanos The time the replay took in nanoseconds.
+     */
+    private void printReport(int logCount, long nanos) {
+        long commandCount = commands.sum();
+        double seconds = nanos / 1_000_000_000D;
+        System.out.printf(Locale.ROOT, "Replayed %,d commands from %d log(s) in %.2f s on %d threads: %,.0f commands/s.%n",
+                commandCount, logCount, seconds, threads, seconds > 0 ? commandCount / seconds : 0D);
+
+        Map<String, Long> candidateBlocks = printRuleSet(candidate, commandCount);
+        if(baseline == null) return;
+        Map<String, Long> baselineBlocks = printRuleSet(baseline, commandCount);
+
+        System.out.println();
+        System.out.printf(Locale.ROOT, "Difference against the baseline: %,d newly blocked, %,d newly allowed.%n", newlyBlocked.sum(), newlyAllowed.sum());
+
+        // Entries are matched between the rule sets by their regex, since adding or removing an entry shifts the indexes.
+        // Only entries whose number of blocks changed are listed.
+        Map<String, Long> patterns = new HashMap<>(baselineBlocks);
+        candidateBlocks.forEach((pattern, blocks) -> patterns.putIfAbsent(pattern, 0L));
+        patterns.keySet().stream().sorted().forEach(pattern -> {
+            long before = baselineBlocks.getOrDefault(pattern, 0L);
+            long after = candidateBlocks.getOrDefault(pattern, 0L);
+            if(before == after) return;
+
+            String change = !baselineBlocks.containsKey(pattern) ? "added" : !candidateBlocks.containsKey(pattern) ? "removed" : "changed";
+            System.out.printf(Locale.ROOT, "  %-8s %,d -> %,d blocks: %s%n", change, before, after, pattern);
+        });
+
+        int shown = Math.min(exampleCount.get(), examples.length);
+        if(shown > 0) {
+            System.out.println("Examples:");
+            for(int i = 0; i < shown; i++) {
+                System.out.println("  " + examples[i]);
+            }
+        }
+    }
+
+    /**
+     * Prints the blocked commands, the latency and the hits of each entry of a rule set.
+     * @param ruleSet The {@link ReplayRuleSet}.
+     * @param commandCount The number of commands replayed.
+     * @return The number of commands blocked by each regex, for the difference against the baseline.
+     */
+    @NotNull
+    private static Map<String, Long> printRuleSet(@NotNull ReplayRuleSet ruleSet, long commandCount) {
+        RuleMetrics metrics = ruleSet.snapshot().metrics();
+        LatencyHistogram latency = metrics.latency();
+        List<Settings.Entry> entries = ruleSet.snapshot().compiledRules().entries();
+
+        long blocked = 0;
+        long timeouts = 0;
+        for(int i = 0; i < metrics.entryCount(); i++) {
+            blocked += metrics.blocks(i);
+            timeouts += ruleSet.timeouts(i);
+        }
+
+        System.out.println();
+        System.out.printf(Locale.ROOT, "Rule set %s: %d entries compiled in %.1f ms. Blocked %,d commands (%.2f%%).%n",
+                ruleSet.name(), entries.size(), ruleSet.snapshot().compileMillis(), blocked, commandCount > 0 ? blocked * 100D / commandCount : 0D);
+        System.out.printf(Locale.ROOT, "  Check latency p50 %.1f us, p99 %.1f us, max %.1f us.%n",
+                latency.percentileNanos(50) / 1000D, latency.percentileNanos(99) / 1000D, latency.maxNanos() / 1000D);
+        System.out.printf(Locale.ROOT, "  Checks over the match budget: %,d. They are counted as allowed and not in the blocked commands.%n", timeouts);
+
+        Map<String, Long> blocksByPattern = new HashMap<>();
+        int unused = 0;
+        for(int i = 0; i < entries.size(); i++) {
+            Settings.Entry entry = entries.get(i);
+            String pattern = entry.regex() == null && entry.tokens() == null ? "<invalid regex>" : entry.description();
+            blocksByPattern.merge(pattern, metrics.blocks(i), Long::sum);
+
+            if(metrics.matches(i) == 0 && metrics.blocks(i) == 0 && ruleSet.timeouts(i) == 0) {
+                unused++;
+                continue;
+            }
+
+            System.out.printf(Locale.ROOT, "  #%d %,d blocks, %,d matches, %,d evaluations, %,d timeouts: %s%n",
+                    i, metrics.blocks(i), metrics.matches(i), metrics.evaluations(i), ruleSet.timeouts(i), pattern);
+        }
+        System.out.printf(Locale.ROOT, "  Entries that never matched: %d%n", unused);
+
+        return blocksByPattern;
+    }
+
+    /**
+     * Opens a command log, decompressing it if its name ends in .gz.
+     * @param log The {@link Path} of the log.
+     * @return A {@link BufferedReader} of the log's lines.
+     * @throws IOException If the log can't be opened.
+     */
+    @NotNull
+    private static BufferedReader openLog(@NotNull Path log) throws IOException {
+        InputStream input = Files.newInputStream(log);
+        if(log.getFileName().toString().endsWith(".gz")) input = new GZIPInputStream(input, 1 << 16);
+
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+    }
+}